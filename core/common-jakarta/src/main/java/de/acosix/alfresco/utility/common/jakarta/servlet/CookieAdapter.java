@@ -0,0 +1,149 @@
+/*
+ * Copyright 2016 - 2025 Acosix GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.acosix.alfresco.utility.common.jakarta.servlet;
+
+import de.acosix.alfresco.utility.common.servlet.Cookie;
+
+/**
+ * Instances of this class adapt a {@link jakarta.servlet.http.Cookie Servlet API cookie} to the {@link Cookie} abstraction.
+ *
+ * @author Axel Faust
+ */
+public class CookieAdapter implements Cookie
+{
+
+    private final jakarta.servlet.http.Cookie backingInstance;
+
+    /**
+     * Creates a new instance of this class.
+     *
+     * @param backingInstance
+     *     the backing instance
+     */
+    public CookieAdapter(final jakarta.servlet.http.Cookie backingInstance)
+    {
+        this.backingInstance = backingInstance;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setMaxAge(final int expiry)
+    {
+        this.backingInstance.setMaxAge(expiry);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getMaxAge()
+    {
+        return this.backingInstance.getMaxAge();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setPath(final String uri)
+    {
+        this.backingInstance.setPath(uri);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getPath()
+    {
+        return this.backingInstance.getPath();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setSecure(final boolean flag)
+    {
+        this.backingInstance.setSecure(flag);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean getSecure()
+    {
+        return this.backingInstance.getSecure();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getName()
+    {
+        return this.backingInstance.getName();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setValue(final String newValue)
+    {
+        this.backingInstance.setValue(newValue);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getValue()
+    {
+        return this.backingInstance.getValue();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setHttpOnly(final boolean isHttpOnly)
+    {
+        this.backingInstance.setHttpOnly(isHttpOnly);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isHttpOnly()
+    {
+        return this.backingInstance.isHttpOnly();
+    }
+
+    /**
+     * Retrieves the backing instance.
+     *
+     * @return the backing instance
+     */
+    public jakarta.servlet.http.Cookie getBackingInstance()
+    {
+        return this.backingInstance;
+    }
+}
@@ -16,7 +16,6 @@
 package de.acosix.alfresco.utility.common.jakarta.servlet;
 
 import java.io.IOException;
-import java.lang.reflect.Proxy;
 
 import de.acosix.alfresco.utility.common.servlet.Filter;
 import de.acosix.alfresco.utility.common.servlet.ServletRequest;
@@ -24,8 +23,6 @@ import de.acosix.alfresco.utility.common.servlet.ServletResponse;
 import de.acosix.alfresco.utility.common.servlet.WrappedServletException;
 import jakarta.servlet.FilterConfig;
 import jakarta.servlet.ServletException;
-import jakarta.servlet.http.HttpServletRequest;
-import jakarta.servlet.http.HttpServletResponse;
 
 /**
  * @author Axel Faust
@@ -62,12 +59,8 @@ public class FilterBridge implements jakarta.servlet.Filter
     public void doFilter(final jakarta.servlet.ServletRequest request, final jakarta.servlet.ServletResponse response,
             final jakarta.servlet.FilterChain chain) throws IOException, ServletException
     {
-        final ServletRequest req = (ServletRequest) Proxy.newProxyInstance(this.getClass().getClassLoader(),
-                new Class<?>[] { request instanceof HttpServletRequest ? HttpServletRequest.class : ServletRequest.class },
-                new ServletRequestHandler(request));
-        final ServletResponse res = (ServletResponse) Proxy.newProxyInstance(this.getClass().getClassLoader(),
-                new Class<?>[] { response instanceof HttpServletResponse ? HttpServletResponse.class : ServletResponse.class },
-                new ServletResponseHandler(response));
+        final ServletRequest req = new ServletRequestAdapter(request);
+        final ServletResponse res = new ServletResponseAdapter(response);
         final FilterChainImpl chainImpl = new FilterChainImpl(chain);
         try
         {
@@ -16,7 +16,6 @@
 package de.acosix.alfresco.utility.common.jakarta.servlet;
 
 import java.io.IOException;
-import java.lang.reflect.Proxy;
 
 import jakarta.servlet.ServletException;
 
@@ -52,8 +51,8 @@ public class FilterChainImpl implements FilterChain
     @Override
     public void doFilter(final ServletRequest request, final ServletResponse response) throws IOException, WrappedServletException
     {
-        final jakarta.servlet.ServletRequest req = ((ServletRequestHandler) Proxy.getInvocationHandler(request)).getBackingInstance();
-        final jakarta.servlet.ServletResponse res = ((ServletResponseHandler) Proxy.getInvocationHandler(request)).getBackingInstance();
+        final jakarta.servlet.ServletRequest req = ((ServletRequestAdapter) request).getBackingInstance();
+        final jakarta.servlet.ServletResponse res = ((ServletResponseAdapter) response).getBackingInstance();
 
         try
         {
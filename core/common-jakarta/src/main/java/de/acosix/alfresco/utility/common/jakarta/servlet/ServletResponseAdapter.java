@@ -0,0 +1,369 @@
+/*
+ * Copyright 2016 - 2025 Acosix GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.acosix.alfresco.utility.common.jakarta.servlet;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.util.Collection;
+import java.util.Locale;
+
+import de.acosix.alfresco.utility.common.servlet.Cookie;
+import de.acosix.alfresco.utility.common.servlet.ServletResponse;
+
+/**
+ * Instances of this class adapt a {@link jakarta.servlet.ServletResponse Servlet API response} to the {@link ServletResponse} abstraction,
+ * delegating all operations directly to the backing instance.
+ *
+ * @author Axel Faust
+ */
+public class ServletResponseAdapter implements ServletResponse
+{
+
+    private final jakarta.servlet.ServletResponse backingInstance;
+
+    private final jakarta.servlet.http.HttpServletResponse httpBackingInstance;
+
+    /**
+     * Creates a new instance of this class.
+     *
+     * @param backingInstance
+     *     the backing instance
+     */
+    public ServletResponseAdapter(final jakarta.servlet.ServletResponse backingInstance)
+    {
+        this.backingInstance = backingInstance;
+        this.httpBackingInstance = backingInstance instanceof jakarta.servlet.http.HttpServletResponse
+                ? (jakarta.servlet.http.HttpServletResponse) backingInstance
+                : null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getCharacterEncoding()
+    {
+        return this.backingInstance.getCharacterEncoding();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getContentType()
+    {
+        return this.backingInstance.getContentType();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public OutputStream getOutputStream() throws IOException
+    {
+        return this.backingInstance.getOutputStream();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public PrintWriter getWriter() throws IOException
+    {
+        return this.backingInstance.getWriter();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setCharacterEncoding(final String charset)
+    {
+        this.backingInstance.setCharacterEncoding(charset);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setContentLength(final int len)
+    {
+        this.backingInstance.setContentLength(len);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setContentLengthLong(final long len)
+    {
+        this.backingInstance.setContentLengthLong(len);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setContentType(final String type)
+    {
+        this.backingInstance.setContentType(type);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setBufferSize(final int size)
+    {
+        this.backingInstance.setBufferSize(size);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getBufferSize()
+    {
+        return this.backingInstance.getBufferSize();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void flushBuffer() throws IOException
+    {
+        this.backingInstance.flushBuffer();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void resetBuffer()
+    {
+        this.backingInstance.resetBuffer();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isCommitted()
+    {
+        return this.backingInstance.isCommitted();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void reset()
+    {
+        this.backingInstance.reset();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setLocale(final Locale loc)
+    {
+        this.backingInstance.setLocale(loc);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Locale getLocale()
+    {
+        return this.backingInstance.getLocale();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Cookie newCookie(final String name, final String value)
+    {
+        return new CookieAdapter(new jakarta.servlet.http.Cookie(name, value));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void addCookie(final Cookie cookie)
+    {
+        this.getHttpBackingInstance().addCookie(((CookieAdapter) cookie).getBackingInstance());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean containsHeader(final String name)
+    {
+        return this.getHttpBackingInstance().containsHeader(name);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void sendError(final int sc, final String msg) throws IOException
+    {
+        this.getHttpBackingInstance().sendError(sc, msg);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void sendError(final int sc) throws IOException
+    {
+        this.getHttpBackingInstance().sendError(sc);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void sendRedirect(final String location) throws IOException
+    {
+        this.getHttpBackingInstance().sendRedirect(location);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setDateHeader(final String name, final long date)
+    {
+        this.getHttpBackingInstance().setDateHeader(name, date);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void addDateHeader(final String name, final long date)
+    {
+        this.getHttpBackingInstance().addDateHeader(name, date);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setHeader(final String name, final String value)
+    {
+        this.getHttpBackingInstance().setHeader(name, value);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void addHeader(final String name, final String value)
+    {
+        this.getHttpBackingInstance().addHeader(name, value);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setIntHeader(final String name, final int value)
+    {
+        this.getHttpBackingInstance().setIntHeader(name, value);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void addIntHeader(final String name, final int value)
+    {
+        this.getHttpBackingInstance().addIntHeader(name, value);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setStatus(final int sc)
+    {
+        this.getHttpBackingInstance().setStatus(sc);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getStatus()
+    {
+        return this.getHttpBackingInstance().getStatus();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getHeader(final String name)
+    {
+        return this.getHttpBackingInstance().getHeader(name);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Collection<String> getHeaders(final String name)
+    {
+        return this.getHttpBackingInstance().getHeaders(name);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Collection<String> getHeaderNames()
+    {
+        return this.getHttpBackingInstance().getHeaderNames();
+    }
+
+    /**
+     * Retrieves the backing instance.
+     *
+     * @return the backing instance
+     */
+    public jakarta.servlet.ServletResponse getBackingInstance()
+    {
+        return this.backingInstance;
+    }
+
+    protected jakarta.servlet.http.HttpServletResponse getHttpBackingInstance()
+    {
+        if (this.httpBackingInstance == null)
+        {
+            throw new IllegalStateException("Unsupported operation for non-HTTP servlet response");
+        }
+        return this.httpBackingInstance;
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2016 - 2025 Acosix GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.acosix.alfresco.utility.common.jakarta.servlet;
+
+import java.util.Enumeration;
+
+import de.acosix.alfresco.utility.common.servlet.Session;
+
+/**
+ * Instances of this class adapt a {@link jakarta.servlet.http.HttpSession Servlet API session} to the {@link Session} abstraction.
+ *
+ * @author Axel Faust
+ */
+public class SessionAdapter implements Session
+{
+
+    private final jakarta.servlet.http.HttpSession backingInstance;
+
+    /**
+     * Creates a new instance of this class.
+     *
+     * @param backingInstance
+     *     the backing instance
+     */
+    public SessionAdapter(final jakarta.servlet.http.HttpSession backingInstance)
+    {
+        this.backingInstance = backingInstance;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getCreationTime()
+    {
+        return this.backingInstance.getCreationTime();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getId()
+    {
+        return this.backingInstance.getId();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getLastAccessedTime()
+    {
+        return this.backingInstance.getLastAccessedTime();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Object getAttribute(final String name)
+    {
+        return this.backingInstance.getAttribute(name);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Enumeration<String> getAttributeNames()
+    {
+        return this.backingInstance.getAttributeNames();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setAttribute(final String name, final Object value)
+    {
+        this.backingInstance.setAttribute(name, value);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void removeAttribute(final String name)
+    {
+        this.backingInstance.removeAttribute(name);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void invalidate()
+    {
+        this.backingInstance.invalidate();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isNew()
+    {
+        return this.backingInstance.isNew();
+    }
+
+    /**
+     * Retrieves the backing instance.
+     *
+     * @return the backing instance
+     */
+    public jakarta.servlet.http.HttpSession getBackingInstance()
+    {
+        return this.backingInstance;
+    }
+}
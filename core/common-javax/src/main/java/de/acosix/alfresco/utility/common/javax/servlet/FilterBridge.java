@@ -16,12 +16,9 @@
 package de.acosix.alfresco.utility.common.javax.servlet;
 
 import java.io.IOException;
-import java.lang.reflect.Proxy;
 
 import javax.servlet.FilterConfig;
 import javax.servlet.ServletException;
-import javax.servlet.http.HttpServletRequest;
-import javax.servlet.http.HttpServletResponse;
 
 import de.acosix.alfresco.utility.common.servlet.Filter;
 import de.acosix.alfresco.utility.common.servlet.ServletRequest;
@@ -63,12 +60,8 @@ public class FilterBridge implements javax.servlet.Filter
     public void doFilter(final javax.servlet.ServletRequest request, final javax.servlet.ServletResponse response,
             final javax.servlet.FilterChain chain) throws IOException, ServletException
     {
-        final ServletRequest req = (ServletRequest) Proxy.newProxyInstance(this.getClass().getClassLoader(),
-                new Class<?>[] { request instanceof HttpServletRequest ? HttpServletRequest.class : ServletRequest.class },
-                new ServletRequestHandler(request));
-        final ServletResponse res = (ServletResponse) Proxy.newProxyInstance(this.getClass().getClassLoader(),
-                new Class<?>[] { response instanceof HttpServletResponse ? HttpServletResponse.class : ServletResponse.class },
-                new ServletResponseHandler(response));
+        final ServletRequest req = new ServletRequestAdapter(request);
+        final ServletResponse res = new ServletResponseAdapter(response);
         final FilterChainImpl chainImpl = new FilterChainImpl(chain);
         try
         {
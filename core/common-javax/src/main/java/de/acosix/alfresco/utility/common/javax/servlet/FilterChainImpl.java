@@ -16,7 +16,6 @@
 package de.acosix.alfresco.utility.common.javax.servlet;
 
 import java.io.IOException;
-import java.lang.reflect.Proxy;
 
 import javax.servlet.ServletException;
 
@@ -52,8 +51,8 @@ public class FilterChainImpl implements FilterChain
     @Override
     public void doFilter(final ServletRequest request, final ServletResponse response) throws IOException, WrappedServletException
     {
-        final javax.servlet.ServletRequest req = ((ServletRequestHandler) Proxy.getInvocationHandler(request)).getBackingInstance();
-        final javax.servlet.ServletResponse res = ((ServletResponseHandler) Proxy.getInvocationHandler(request)).getBackingInstance();
+        final javax.servlet.ServletRequest req = ((ServletRequestAdapter) request).getBackingInstance();
+        final javax.servlet.ServletResponse res = ((ServletResponseAdapter) response).getBackingInstance();
 
         try
         {
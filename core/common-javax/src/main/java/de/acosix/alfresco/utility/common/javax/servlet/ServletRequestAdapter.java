@@ -0,0 +1,298 @@
+/*
+ * Copyright 2016 - 2025 Acosix GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.acosix.alfresco.utility.common.javax.servlet;
+
+import java.util.Enumeration;
+import java.util.Locale;
+import java.util.Map;
+
+import de.acosix.alfresco.utility.common.servlet.Cookie;
+import de.acosix.alfresco.utility.common.servlet.ServletRequest;
+import de.acosix.alfresco.utility.common.servlet.Session;
+
+/**
+ * Instances of this class adapt a {@link javax.servlet.ServletRequest Servlet API request} to the {@link ServletRequest} abstraction,
+ * delegating all operations directly to the backing instance.
+ *
+ * @author Axel Faust
+ */
+public class ServletRequestAdapter implements ServletRequest
+{
+
+    private final javax.servlet.ServletRequest backingInstance;
+
+    private final javax.servlet.http.HttpServletRequest httpBackingInstance;
+
+    /**
+     * Creates a new instance of this class.
+     *
+     * @param backingInstance
+     *     the backing instance
+     */
+    public ServletRequestAdapter(final javax.servlet.ServletRequest backingInstance)
+    {
+        this.backingInstance = backingInstance;
+        this.httpBackingInstance = backingInstance instanceof javax.servlet.http.HttpServletRequest
+                ? (javax.servlet.http.HttpServletRequest) backingInstance
+                : null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getParameter(final String name)
+    {
+        return this.backingInstance.getParameter(name);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Enumeration<String> getParameterNames()
+    {
+        return this.backingInstance.getParameterNames();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String[] getParameterValues(final String name)
+    {
+        return this.backingInstance.getParameterValues(name);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<String, String[]> getParameterMap()
+    {
+        return this.backingInstance.getParameterMap();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getProtocol()
+    {
+        return this.backingInstance.getProtocol();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getScheme()
+    {
+        return this.backingInstance.getScheme();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getServerName()
+    {
+        return this.backingInstance.getServerName();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getServerPort()
+    {
+        return this.backingInstance.getServerPort();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Locale getLocale()
+    {
+        return this.backingInstance.getLocale();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Enumeration<Locale> getLocales()
+    {
+        return this.backingInstance.getLocales();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isSecure()
+    {
+        return this.backingInstance.isSecure();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Cookie[] getCookies()
+    {
+        final javax.servlet.http.Cookie[] backingCookies = this.getHttpBackingInstance().getCookies();
+        Cookie[] cookies = null;
+        if (backingCookies != null)
+        {
+            cookies = new Cookie[backingCookies.length];
+            for (int idx = 0; idx < backingCookies.length; idx++)
+            {
+                cookies[idx] = new CookieAdapter(backingCookies[idx]);
+            }
+        }
+        return cookies;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getHeader(final String name)
+    {
+        return this.getHttpBackingInstance().getHeader(name);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Enumeration<String> getHeaders(final String name)
+    {
+        return this.getHttpBackingInstance().getHeaders(name);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Enumeration<String> getHeaderNames()
+    {
+        return this.getHttpBackingInstance().getHeaderNames();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getMethod()
+    {
+        return this.getHttpBackingInstance().getMethod();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getPathInfo()
+    {
+        return this.getHttpBackingInstance().getPathInfo();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getContextPath()
+    {
+        return this.getHttpBackingInstance().getContextPath();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getQueryString()
+    {
+        return this.getHttpBackingInstance().getQueryString();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getRemoteUser()
+    {
+        return this.getHttpBackingInstance().getRemoteUser();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getRequestURI()
+    {
+        return this.getHttpBackingInstance().getRequestURI();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getServletPath()
+    {
+        return this.getHttpBackingInstance().getServletPath();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Session getSession(final boolean create)
+    {
+        final javax.servlet.http.HttpSession session = this.getHttpBackingInstance().getSession(create);
+        return session != null ? new SessionAdapter(session) : null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Session getSession()
+    {
+        return new SessionAdapter(this.getHttpBackingInstance().getSession());
+    }
+
+    /**
+     * Retrieves the backing instance.
+     *
+     * @return the backing instance
+     */
+    public javax.servlet.ServletRequest getBackingInstance()
+    {
+        return this.backingInstance;
+    }
+
+    protected javax.servlet.http.HttpServletRequest getHttpBackingInstance()
+    {
+        if (this.httpBackingInstance == null)
+        {
+            throw new IllegalStateException("Unsupported operation for non-HTTP servlet request");
+        }
+        return this.httpBackingInstance;
+    }
+}
@@ -19,34 +19,77 @@ import java.io.IOException;
 import java.net.InetAddress;
 import java.net.Socket;
 import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.Key;
 import java.security.KeyManagementException;
 import java.security.KeyStore;
 import java.security.KeyStoreException;
+import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
+import java.security.cert.Certificate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 import javax.net.SocketFactory;
 import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSessionContext;
 import javax.net.ssl.SSLSocketFactory;
 import javax.net.ssl.TrustManagerFactory;
 
 import org.alfresco.error.AlfrescoRuntimeException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * This class can be used as an alternative to {@code AlfrescoSSLSocketFactory} which is not thread safe, especially when multiple instances
  * are initialised with different trust stores.
  *
+ * SSL contexts are kept in a registry keyed by the fingerprint of the trust store they have been initialised with (and the configuration of
+ * their client session cache), so that repeated initialisations with the same trust store reuse the same context and its TLS session
+ * cache, allowing sessions to be resumed instead of performing a full handshake for every connection. The registry is limited to the
+ * most recently used contexts, as trust stores may change over time (e.g. when a subsystem is restarted with a different configuration),
+ * and contexts of outdated trust stores should not be retained indefinitely.
+ *
  * @author Axel Faust
  */
 public class ThreadSafeSSLSocketFactory extends SSLSocketFactory
 {
 
-    private static SSLContext LAST_INITIALISED_CONTEXT;
+    private static final Logger LOGGER = LoggerFactory.getLogger(ThreadSafeSSLSocketFactory.class);
+
+    private static final int MAX_REGISTERED_CONTEXTS = 16;
+
+    private static final Map<String, SSLContext> CONTEXTS_BY_FINGERPRINT = Collections
+            .synchronizedMap(new LinkedHashMap<String, SSLContext>(16, 0.75f, true)
+            {
+
+                private static final long serialVersionUID = 1L;
 
-    private static ThreadLocal<SSLContext> THREAD_INITIALISED_CONTEXT;
+                /**
+                 * {@inheritDoc}
+                 */
+                @Override
+                protected boolean removeEldestEntry(final Map.Entry<String, SSLContext> eldest)
+                {
+                    return this.size() > MAX_REGISTERED_CONTEXTS;
+                }
+            });
+
+    private static volatile SSLContext LAST_INITIALISED_CONTEXT;
+
+    private static final ThreadLocal<SSLContext> THREAD_INITIALISED_CONTEXT = new ThreadLocal<>();
 
     protected final SSLContext context;
 
+    /**
+     * Creates a new instance of this class using the SSL context last initialised by the current thread or - if the current thread has
+     * not initialised any context - by any thread.
+     */
     public ThreadSafeSSLSocketFactory()
     {
         if (THREAD_INITIALISED_CONTEXT.get() != null)
@@ -63,21 +106,92 @@ public class ThreadSafeSSLSocketFactory extends SSLSocketFactory
         }
     }
 
+    /**
+     * Creates a new instance of this class using a specific SSL context.
+     *
+     * @param context
+     *            the SSL context to use
+     */
+    public ThreadSafeSSLSocketFactory(final SSLContext context)
+    {
+        if (context == null)
+        {
+            throw new IllegalArgumentException("context must not be null");
+        }
+        this.context = context;
+    }
+
+    /**
+     * Initialise the factory with custom trustStore
+     *
+     * @param trustStore
+     *            the key store containing any certificates for validation of servers / CAs
+     */
+    public static void initTrustedSSLSocketFactory(final KeyStore trustStore)
+    {
+        initTrustedSSLSocketFactory(trustStore, 0, 0);
+    }
+
     /**
      * Initialise the factory with custom trustStore
      *
      * @param trustStore
      *            the key store containing any certificates for validation of servers / CAs
+     * @param sessionCacheSize
+     *            the maximum number of client TLS sessions to cache for resumption, or {@code 0} to use the default of the JVM
+     * @param sessionTimeout
+     *            the timeout in seconds for cached client TLS sessions, or {@code 0} to use the default of the JVM
      */
-    public static synchronized void initTrustedSSLSocketFactory(final KeyStore trustStore)
+    public static void initTrustedSSLSocketFactory(final KeyStore trustStore, final int sessionCacheSize, final int sessionTimeout)
+    {
+        final SSLContext context = getTrustedSSLContext(trustStore, sessionCacheSize, sessionTimeout);
+        THREAD_INITIALISED_CONTEXT.set(context);
+        LAST_INITIALISED_CONTEXT = context;
+    }
+
+    /**
+     * Retrieves the SSL context for a custom trustStore, creating and registering it if no context has yet been created for the same
+     * trust store.
+     *
+     * @param trustStore
+     *            the key store containing any certificates for validation of servers / CAs
+     * @param sessionCacheSize
+     *            the maximum number of client TLS sessions to cache for resumption, or {@code 0} to use the default of the JVM
+     * @param sessionTimeout
+     *            the timeout in seconds for cached client TLS sessions, or {@code 0} to use the default of the JVM
+     * @return the SSL context
+     */
+    public static SSLContext getTrustedSSLContext(final KeyStore trustStore, final int sessionCacheSize, final int sessionTimeout)
+    {
+        final String fingerprint = buildFingerprint(trustStore, sessionCacheSize, sessionTimeout);
+        return CONTEXTS_BY_FINGERPRINT.computeIfAbsent(fingerprint, fp -> createSSLContext(trustStore, sessionCacheSize, sessionTimeout));
+    }
+
+    protected static SSLContext createSSLContext(final KeyStore trustStore, final int sessionCacheSize, final int sessionTimeout)
     {
         try
         {
+            LOGGER.debug("Creating SSL context for trust store with {} entries", trustStore.size());
+
             final TrustManagerFactory trustManagerFactory = TrustManagerFactory.getInstance("SunX509");
             trustManagerFactory.init(trustStore);
-            THREAD_INITIALISED_CONTEXT.set(SSLContext.getInstance("SSL"));
-            LAST_INITIALISED_CONTEXT = THREAD_INITIALISED_CONTEXT.get();
-            THREAD_INITIALISED_CONTEXT.get().init(null, trustManagerFactory.getTrustManagers(), SecureRandom.getInstance("SHA1PRNG"));
+            final SSLContext context = SSLContext.getInstance("SSL");
+            context.init(null, trustManagerFactory.getTrustManagers(), SecureRandom.getInstance("SHA1PRNG"));
+
+            final SSLSessionContext clientSessionContext = context.getClientSessionContext();
+            if (clientSessionContext != null)
+            {
+                if (sessionCacheSize > 0)
+                {
+                    clientSessionContext.setSessionCacheSize(sessionCacheSize);
+                }
+                if (sessionTimeout > 0)
+                {
+                    clientSessionContext.setSessionTimeout(sessionTimeout);
+                }
+            }
+
+            return context;
         }
         catch (final NoSuchAlgorithmException nsae)
         {
@@ -93,11 +207,65 @@ public class ThreadSafeSSLSocketFactory extends SSLSocketFactory
         }
     }
 
-    public static synchronized SocketFactory getDefault()
+    public static SocketFactory getDefault()
     {
         return new ThreadSafeSSLSocketFactory();
     }
 
+    protected static String buildFingerprint(final KeyStore trustStore, final int sessionCacheSize, final int sessionTimeout)
+    {
+        try
+        {
+            final List<String> aliases = new ArrayList<>(Collections.list(trustStore.aliases()));
+            Collections.sort(aliases);
+
+            final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update((sessionCacheSize + "/" + sessionTimeout).getBytes(StandardCharsets.UTF_8));
+            for (final String alias : aliases)
+            {
+                digest.update((byte) 0);
+                digest.update(alias.getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+
+                final Certificate certificate = trustStore.getCertificate(alias);
+                if (certificate != null)
+                {
+                    digest.update(certificate.getEncoded());
+                }
+                else
+                {
+                    // trust stores may contain key entries without a certificate
+                    try
+                    {
+                        final Key key = trustStore.getKey(alias, null);
+                        final byte[] encoded = key != null ? key.getEncoded() : null;
+                        if (encoded != null)
+                        {
+                            digest.update(encoded);
+                        }
+                    }
+                    catch (final GeneralSecurityException gse)
+                    {
+                        LOGGER.debug("Unable to include key entry {} in trust store fingerprint", alias, gse);
+                    }
+                }
+            }
+
+            final byte[] hash = digest.digest();
+            final StringBuilder fingerprintBuilder = new StringBuilder(hash.length * 2);
+            for (final byte b : hash)
+            {
+                fingerprintBuilder.append(Character.forDigit((b >> 4) & 0xf, 16));
+                fingerprintBuilder.append(Character.forDigit(b & 0xf, 16));
+            }
+            return fingerprintBuilder.toString();
+        }
+        catch (final GeneralSecurityException gse)
+        {
+            throw new AlfrescoRuntimeException("The trust store cannot be fingerprinted.", gse);
+        }
+    }
+
     /**
      *
      * {@inheritDoc}
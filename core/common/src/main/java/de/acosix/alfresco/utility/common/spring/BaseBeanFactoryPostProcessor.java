@@ -20,8 +20,8 @@ import java.util.List;
 import java.util.Properties;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
-import java.util.regex.Pattern;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -248,6 +248,7 @@ public abstract class BaseBeanFactoryPostProcessor<D extends BeanFactoryPostProc
                     dependsOn.forEach(x -> x.postProcessBeanFactory(beanFactory));
                 }
 
+                final long start = System.nanoTime();
                 if (this.condition == null || this.condition.applies(beanFactory))
                 {
                     final Set<String> touchedBeanDefinitionNames = new HashSet<>();
@@ -276,19 +277,16 @@ public abstract class BaseBeanFactoryPostProcessor<D extends BeanFactoryPostProc
                     }
                     else if (this.targetBeanNamePattern != null)
                     {
-                        final Pattern beanNamePattern = Pattern.compile(this.targetBeanNamePattern);
-                        final String[] beanDefinitionNames = beanFactory.getBeanDefinitionNames();
-                        for (final String beanDefinitionName : beanDefinitionNames)
+                        final List<String> matchingBeanNames = BeanDefinitionNameIndex.getMatchingBeanNames(beanFactory,
+                                beanFactory.getBeanDefinitionNames(), this.targetBeanNamePattern, null);
+                        for (final String beanDefinitionName : matchingBeanNames)
                         {
-                            if (beanNamePattern.matcher(beanDefinitionName).matches())
-                            {
-                                operation.applyChange(beanFactory.getBeanDefinition(beanDefinitionName), beanName -> {
-                                    touchedBeanDefinitionNames.add(beanName);
-                                    return beanFactory.getBeanDefinition(beanName);
-                                });
-
-                                touchedBeanDefinitionNames.add(this.beanName);
-                            }
+                            operation.applyChange(beanFactory.getBeanDefinition(beanDefinitionName), beanName -> {
+                                touchedBeanDefinitionNames.add(beanName);
+                                return beanFactory.getBeanDefinition(beanName);
+                            });
+
+                            touchedBeanDefinitionNames.add(beanDefinitionName);
                         }
                     }
                     else
@@ -313,6 +311,8 @@ public abstract class BaseBeanFactoryPostProcessor<D extends BeanFactoryPostProc
                     LOGGER.info("[{}] patch will not be applied as its prerequisite condition does not apply", this.beanName);
                 }
 
+                LOGGER.debug("[{}] patch processing took {} ms (excluding dependencies)", this.beanName,
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
                 this.executed = true;
             }
             else
@@ -335,6 +335,7 @@ public abstract class BaseBeanFactoryPostProcessor<D extends BeanFactoryPostProc
                     dependsOn.forEach(x -> x.postProcessBeanDefinitionRegistry(registry));
                 }
 
+                final long start = System.nanoTime();
                 if (this.condition == null || this.condition.applies(registry))
                 {
                     if (this.targetBeanName != null)
@@ -358,19 +359,12 @@ public abstract class BaseBeanFactoryPostProcessor<D extends BeanFactoryPostProc
                     }
                     else if (this.targetBeanNamePattern != null)
                     {
-                        final Pattern beanNamePattern = Pattern.compile(this.targetBeanNamePattern);
-                        final Pattern exclusionPattern = this.exclusionBeanNamePattern != null
-                                ? Pattern.compile(this.exclusionBeanNamePattern)
-                                : null;
-                        final String[] beanDefinitionNames = registry.getBeanDefinitionNames();
-                        for (final String beanDefinitionName : beanDefinitionNames)
+                        final List<String> matchingBeanNames = BeanDefinitionNameIndex.getMatchingBeanNames(registry,
+                                registry.getBeanDefinitionNames(), this.targetBeanNamePattern, this.exclusionBeanNamePattern);
+                        for (final String beanDefinitionName : matchingBeanNames)
                         {
-                            if (beanNamePattern.matcher(beanDefinitionName).matches()
-                                    && (exclusionPattern == null || !exclusionPattern.matcher(beanDefinitionName).matches()))
-                            {
-                                operation.applyChange(registry.getBeanDefinition(beanDefinitionName),
-                                        beanName -> registry.getBeanDefinition(beanName));
-                            }
+                            operation.applyChange(registry.getBeanDefinition(beanDefinitionName),
+                                    beanName -> registry.getBeanDefinition(beanName));
                         }
                     }
                     else
@@ -384,6 +378,8 @@ public abstract class BaseBeanFactoryPostProcessor<D extends BeanFactoryPostProc
                     LOGGER.info("[{}] patch will not be applied as its prerequisite condition does not apply", this.beanName);
                 }
 
+                LOGGER.debug("[{}] patch processing took {} ms (excluding dependencies)", this.beanName,
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
                 this.executed = true;
             }
             else
@@ -29,7 +29,6 @@ import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Predicate;
 
-import org.alfresco.util.Pair;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.BeansException;
@@ -74,8 +73,6 @@ public class BeanDefinitionFromPropertiesPostProcessor implements BeanDefinition
 
     private static final String PREFIX_SET = "set.";
 
-    private static final String FRAGMENT_PROPERTY = ".property.";
-
     private static final String FRAGMENT_RENAME = "._rename.";
 
     private static final String SUFFIX_PROCESS = "._process";
@@ -325,9 +322,10 @@ public class BeanDefinitionFromPropertiesPostProcessor implements BeanDefinition
                         }
                     };
 
-                    this.processRenamesOrRemovals(registry, isProcessableBean, processedKeys, updatedBeanNames);
+                    final List<PropertiesKeyIndex.Entry> processableEntries = this.getProcessableEntries();
+                    this.processRenamesOrRemovals(registry, isProcessableBean, processedKeys, updatedBeanNames, processableEntries);
                     this.processBeanConfigurations(isProcessableBean, getOrCreateBeanDefinition, processedKeys, updatedBeanNames,
-                            paddedListRegistrator);
+                            paddedListRegistrator, processableEntries);
 
                     this.compressPaddedLists(paddedLists);
 
@@ -386,53 +384,46 @@ public class BeanDefinitionFromPropertiesPostProcessor implements BeanDefinition
         });
     }
 
-    protected Pair<String, String> getProcessableKeyValue(final Object key, final Object value, final String effectivePropertyPrefix)
+    protected List<PropertiesKeyIndex.Entry> getProcessableEntries()
     {
-        Pair<String, String> processeableKeyAndValue = null;
-
-        if (key instanceof String)
-        {
-            final String keyStr = (String) key;
-            if (keyStr.startsWith(effectivePropertyPrefix))
+        final Map<String, List<PropertiesKeyIndex.Entry>> entriesByBeanType = PropertiesKeyIndex.getEntriesByBeanType(this.propertiesSource,
+                this.propertyPrefix);
+        final List<PropertiesKeyIndex.Entry> processableEntries = new ArrayList<>();
+        this.beanTypes.forEach(beanType -> {
+            final List<PropertiesKeyIndex.Entry> entries = entriesByBeanType.get(beanType);
+            if (entries != null)
             {
-                final String beanDefinitionKey = keyStr.substring(effectivePropertyPrefix.length());
-                final int firstDot = beanDefinitionKey.indexOf('.');
-                if (firstDot != -1)
-                {
-                    final String beanType = beanDefinitionKey.substring(0, firstDot);
-                    if (this.beanTypes.contains(beanType))
-                    {
-                        String resolvedValue = this.placeholderHelper.replacePlaceholders(String.valueOf(value), this.propertiesSource);
-                        if (resolvedValue != null)
-                        {
-                            resolvedValue = resolvedValue.trim();
-                        }
-                        processeableKeyAndValue = new Pair<>(beanDefinitionKey, resolvedValue);
-                    }
-                }
+                processableEntries.addAll(entries);
             }
-        }
+        });
+        return processableEntries;
+    }
 
-        return processeableKeyAndValue;
+    protected String resolveValue(final Object value)
+    {
+        String resolvedValue = this.placeholderHelper.replacePlaceholders(String.valueOf(value), this.propertiesSource);
+        if (resolvedValue != null)
+        {
+            resolvedValue = resolvedValue.trim();
+        }
+        return resolvedValue;
     }
 
     protected void processRenamesOrRemovals(final BeanDefinitionRegistry registry, final Predicate<String> isProcessableBean,
-            final Set<Object> processedKeys, final Set<String> updatedBeanNames)
+            final Set<Object> processedKeys, final Set<String> updatedBeanNames, final List<PropertiesKeyIndex.Entry> processableEntries)
     {
-        final String effectivePropertyPrefix = this.propertyPrefix + DOT;
-
-        this.propertiesSource.forEach((key, value) -> {
+        processableEntries.forEach(entry -> {
+            final String key = entry.getKey();
             if (!processedKeys.contains(key))
             {
-                final Pair<String, String> processableKeyValue = this.getProcessableKeyValue(key, value, effectivePropertyPrefix);
-                if (processableKeyValue != null)
+                final Object value = this.propertiesSource.get(key);
+                if (value != null)
                 {
                     LOGGER.debug("[{}] Evaluating property key {}", this.beanName, key);
-                    final String beanDefinitionKey = processableKeyValue.getFirst();
-                    final String resolvedValue = processableKeyValue.getSecond();
+                    final String beanDefinitionKey = entry.getBeanDefinitionKey();
+                    final String resolvedValue = this.resolveValue(value);
 
-                    final int propertyFragmentIdx = beanDefinitionKey.indexOf(FRAGMENT_PROPERTY);
-                    if (propertyFragmentIdx == -1)
+                    if (!entry.isPropertyDefinition())
                     {
                         LOGGER.trace("[{}] Processing entry {} = {}", this.beanName, key, resolvedValue);
                         if (beanDefinitionKey.contains(FRAGMENT_RENAME))
@@ -467,11 +458,10 @@ public class BeanDefinitionFromPropertiesPostProcessor implements BeanDefinition
                     }
                     else
                     {
-                        final String beanName = beanDefinitionKey.substring(0, propertyFragmentIdx);
+                        final String beanName = entry.getPropertyBeanName();
                         if (isProcessableBean.test(beanName))
                         {
-                            final String propertyDefinitionKey = beanDefinitionKey
-                                    .substring(propertyFragmentIdx + FRAGMENT_PROPERTY.length());
+                            final String propertyDefinitionKey = entry.getPropertyDefinitionKey();
 
                             if (propertyDefinitionKey.endsWith(SUFFIX_REMOVE))
                             {
@@ -576,25 +566,23 @@ public class BeanDefinitionFromPropertiesPostProcessor implements BeanDefinition
 
     protected void processBeanConfigurations(final Predicate<String> isProcessableBean,
             final Function<String, BeanDefinition> getOrCreateBeanDefinition, final Set<Object> processedKeys,
-            final Set<String> updatedBeanNames, final Consumer<ManagedList<?>> paddedListRegistrator)
+            final Set<String> updatedBeanNames, final Consumer<ManagedList<?>> paddedListRegistrator,
+            final List<PropertiesKeyIndex.Entry> processableEntries)
     {
-        final String effectivePropertyPrefix = this.propertyPrefix + DOT;
-
-        this.propertiesSource.forEach((key, value) -> {
+        processableEntries.forEach(entry -> {
+            final String key = entry.getKey();
             if (!processedKeys.contains(key))
             {
-                final Pair<String, String> processableKeyValue = this.getProcessableKeyValue(key, value, effectivePropertyPrefix);
-                if (processableKeyValue != null)
+                final Object value = this.propertiesSource.get(key);
+                if (value != null)
                 {
                     LOGGER.debug("[{}] Evaluating property key {}", this.beanName, key);
-                    final String beanDefinitionKey = processableKeyValue.getFirst();
-                    final String resolvedValue = processableKeyValue.getSecond();
+                    final String beanDefinitionKey = entry.getBeanDefinitionKey();
+                    final String resolvedValue = this.resolveValue(value);
 
                     LOGGER.trace("[{}] Processing entry {} = {}", this.beanName, key, resolvedValue);
 
-                    final int propertyFragmentIdx = beanDefinitionKey.indexOf(FRAGMENT_PROPERTY);
-
-                    if (propertyFragmentIdx == -1)
+                    if (!entry.isPropertyDefinition())
                     {
                         if (beanDefinitionKey.endsWith(SUFFIX_CLASS_NAME))
                         {
@@ -682,11 +670,10 @@ public class BeanDefinitionFromPropertiesPostProcessor implements BeanDefinition
                     }
                     else
                     {
-                        final String beanName = beanDefinitionKey.substring(0, propertyFragmentIdx);
+                        final String beanName = entry.getPropertyBeanName();
                         if (isProcessableBean.test(beanName))
                         {
-                            final String propertyDefinitionKey = beanDefinitionKey
-                                    .substring(propertyFragmentIdx + FRAGMENT_PROPERTY.length());
+                            final String propertyDefinitionKey = entry.getPropertyDefinitionKey();
                             final BeanDefinition beanDefinition = getOrCreateBeanDefinition.apply(beanName);
                             this.processPropertyValueDefinition(beanName, propertyDefinitionKey, resolvedValue, beanDefinition,
                                     paddedListRegistrator);
@@ -799,7 +786,7 @@ public class BeanDefinitionFromPropertiesPostProcessor implements BeanDefinition
 
         // potentialIndex may just be used as a differentiator for multiple list additions / removals for the same property
         final int index;
-        if (potentialIndex.matches("^\\d+$"))
+        if (isIndex(potentialIndex))
         {
             index = Integer.parseInt(potentialIndex);
         }
@@ -1149,4 +1136,15 @@ public class BeanDefinitionFromPropertiesPostProcessor implements BeanDefinition
 
         return result;
     }
+
+    private static boolean isIndex(final String potentialIndex)
+    {
+        boolean isIndex = !potentialIndex.isEmpty();
+        for (int idx = 0; idx < potentialIndex.length() && isIndex; idx++)
+        {
+            final char c = potentialIndex.charAt(idx);
+            isIndex = c >= '0' && c <= '9';
+        }
+        return isIndex;
+    }
 }
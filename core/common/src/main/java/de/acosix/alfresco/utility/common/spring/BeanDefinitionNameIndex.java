@@ -0,0 +1,223 @@
+/*
+ * Copyright 2016 - 2026 Acosix GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.acosix.alfresco.utility.common.spring;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Instances of this class provide an index over the names of bean definitions in a specific bean registry / factory to efficiently resolve
+ * the names of beans matching a specific pattern. Patterns starting with a literal prefix are resolved via a range lookup on the sorted
+ * bean names, so only names sharing that prefix need to be matched against the pattern. Results are memoised per pattern, so that multiple
+ * post processors using the same pattern only require a single evaluation. An index is shared by all post processors operating on the same
+ * bean registry / factory, and is automatically rebuilt when the set of bean definition names changes.
+ *
+ * @author Axel Faust
+ */
+public final class BeanDefinitionNameIndex
+{
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BeanDefinitionNameIndex.class);
+
+    private static final Map<Object, BeanDefinitionNameIndex> INDICES = new WeakHashMap<>();
+
+    private static final String REGEX_META_CHARACTERS = "\\^$.|?*+()[]{}";
+
+    private static final String REGEX_QUANTIFIER_CHARACTERS = "?*{";
+
+    private final String[] beanDefinitionNames;
+
+    private final Integer[] sortedPositions;
+
+    private final String[] sortedNames;
+
+    private final Map<String, Pattern> patterns = new ConcurrentHashMap<>();
+
+    private final Map<String, List<String>> matchesByPattern = new ConcurrentHashMap<>();
+
+    private BeanDefinitionNameIndex(final String[] beanDefinitionNames)
+    {
+        this.beanDefinitionNames = beanDefinitionNames;
+
+        this.sortedPositions = new Integer[beanDefinitionNames.length];
+        for (int idx = 0; idx < beanDefinitionNames.length; idx++)
+        {
+            this.sortedPositions[idx] = Integer.valueOf(idx);
+        }
+        Arrays.sort(this.sortedPositions, Comparator.comparing(idx -> beanDefinitionNames[idx.intValue()]));
+
+        this.sortedNames = new String[beanDefinitionNames.length];
+        for (int idx = 0; idx < this.sortedPositions.length; idx++)
+        {
+            this.sortedNames[idx] = beanDefinitionNames[this.sortedPositions[idx].intValue()];
+        }
+    }
+
+    /**
+     * Retrieves the names of all bean definitions matching a specific pattern.
+     *
+     * @param registry
+     *     the bean registry / factory holding the bean definitions - only used as the key to the index to use
+     * @param beanDefinitionNames
+     *     the names of the bean definitions currently contained in the registry / factory
+     * @param beanNamePattern
+     *     the pattern bean names need to match
+     * @param exclusionBeanNamePattern
+     *     the pattern for bean names to exclude - may be {@code null}
+     * @return the names of the bean definitions matching the pattern, in the order of the provided bean definition names
+     */
+    public static List<String> getMatchingBeanNames(final Object registry, final String[] beanDefinitionNames,
+            final String beanNamePattern, final String exclusionBeanNamePattern)
+    {
+        BeanDefinitionNameIndex index;
+        synchronized (INDICES)
+        {
+            index = INDICES.get(registry);
+            // bean definitions may be added / removed by other post processors between uses
+            if (index == null || !Arrays.equals(index.beanDefinitionNames, beanDefinitionNames))
+            {
+                LOGGER.trace("Building bean definition name index for {} bean definitions", beanDefinitionNames.length);
+                index = new BeanDefinitionNameIndex(beanDefinitionNames.clone());
+                INDICES.put(registry, index);
+            }
+        }
+
+        List<String> matches = index.getMatchingBeanNames(beanNamePattern);
+        if (exclusionBeanNamePattern != null && !matches.isEmpty())
+        {
+            final Pattern exclusionPattern = index.patterns.computeIfAbsent(exclusionBeanNamePattern, Pattern::compile);
+            matches = new ArrayList<>(matches);
+            matches.removeIf(beanName -> exclusionPattern.matcher(beanName).matches());
+        }
+        return matches;
+    }
+
+    private List<String> getMatchingBeanNames(final String beanNamePattern)
+    {
+        return this.matchesByPattern.computeIfAbsent(beanNamePattern, p -> {
+            final Pattern pattern = this.patterns.computeIfAbsent(p, Pattern::compile);
+            final String literalPrefix = getLiteralPrefix(p);
+
+            int from = 0;
+            int to = this.sortedNames.length;
+            if (!literalPrefix.isEmpty())
+            {
+                from = lowerBound(this.sortedNames, literalPrefix);
+                to = from;
+                while (to < this.sortedNames.length && this.sortedNames[to].startsWith(literalPrefix))
+                {
+                    to++;
+                }
+            }
+
+            final List<Integer> matchingPositions = new ArrayList<>();
+            for (int idx = from; idx < to; idx++)
+            {
+                if (pattern.matcher(this.sortedNames[idx]).matches())
+                {
+                    matchingPositions.add(this.sortedPositions[idx]);
+                }
+            }
+
+            // restore registration order
+            Collections.sort(matchingPositions);
+            final List<String> matches = new ArrayList<>(matchingPositions.size());
+            matchingPositions.forEach(idx -> matches.add(this.beanDefinitionNames[idx.intValue()]));
+
+            LOGGER.trace("Pattern {} (literal prefix '{}') matched {} of {} candidate bean names", p, literalPrefix, matches.size(),
+                    to - from);
+            return Collections.unmodifiableList(matches);
+        });
+    }
+
+    private static int lowerBound(final String[] sortedValues, final String value)
+    {
+        int low = 0;
+        int high = sortedValues.length;
+        while (low < high)
+        {
+            final int mid = (low + high) >>> 1;
+            if (sortedValues[mid].compareTo(value) < 0)
+            {
+                low = mid + 1;
+            }
+            else
+            {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Determines the literal prefix that any string matching a pattern must start with.
+     *
+     * @param pattern
+     *     the pattern to process
+     * @return the literal prefix - may be empty if the pattern does not start with a literal character sequence
+     */
+    static String getLiteralPrefix(final String pattern)
+    {
+        final StringBuilder prefix = new StringBuilder();
+
+        // any alternation may invalidate a prefix
+        if (pattern.indexOf('|') == -1)
+        {
+            int idx = 0;
+            final int length = pattern.length();
+            boolean done = false;
+            while (idx < length && !done)
+            {
+                final char c = pattern.charAt(idx);
+                if (c == '^' && idx == 0)
+                {
+                    idx++;
+                }
+                else if (c == '\\' && idx + 1 < length && REGEX_META_CHARACTERS.indexOf(pattern.charAt(idx + 1)) != -1)
+                {
+                    prefix.append(pattern.charAt(idx + 1));
+                    idx += 2;
+                }
+                else if (REGEX_META_CHARACTERS.indexOf(c) == -1)
+                {
+                    prefix.append(c);
+                    idx++;
+                }
+                else
+                {
+                    // a quantifier applies to the preceding character which thus cannot be part of the prefix
+                    if (REGEX_QUANTIFIER_CHARACTERS.indexOf(c) != -1 && prefix.length() > 0)
+                    {
+                        prefix.setLength(prefix.length() - 1);
+                    }
+                    done = true;
+                }
+            }
+        }
+
+        return prefix.toString();
+    }
+}
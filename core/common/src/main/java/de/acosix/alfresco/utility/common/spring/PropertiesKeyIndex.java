@@ -0,0 +1,238 @@
+/*
+ * Copyright 2016 - 2026 Acosix GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.acosix.alfresco.utility.common.spring;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Instances of this class provide a tokenised index over the keys of a specific {@link Properties properties source} to efficiently look up
+ * the keys relevant to {@link BeanDefinitionFromPropertiesPostProcessor post processors} using a specific property prefix. The keys of the
+ * source are grouped by their first dot-separated token in a single pass, and the keys matching a specific property prefix are parsed into
+ * {@link Entry entries} only once and memoised per prefix. An index is shared by all post processors operating on the same properties
+ * source, and is automatically rebuilt when the set of keys in the source changes.
+ *
+ * @author Axel Faust
+ */
+public final class PropertiesKeyIndex
+{
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PropertiesKeyIndex.class);
+
+    private static final String DOT = ".";
+
+    private static final String FRAGMENT_PROPERTY = ".property.";
+
+    // properties sources use content-based equals / hashCode, so a WeakHashMap cannot be used
+    private static final List<PropertiesKeyIndex> INDICES = new ArrayList<>();
+
+    private final WeakReference<Properties> propertiesSource;
+
+    private final int keyCount;
+
+    private final int keysHashCode;
+
+    private final Map<String, List<String>> keysByFirstToken;
+
+    private final Map<String, Map<String, List<Entry>>> entriesByPrefix = new ConcurrentHashMap<>();
+
+    private PropertiesKeyIndex(final Properties propertiesSource, final int keyCount, final int keysHashCode)
+    {
+        this.propertiesSource = new WeakReference<>(propertiesSource);
+        this.keyCount = keyCount;
+        this.keysHashCode = keysHashCode;
+
+        final Map<String, List<String>> keysByFirstToken = new HashMap<>();
+        propertiesSource.keySet().forEach(key -> {
+            if (key instanceof String)
+            {
+                final String keyStr = (String) key;
+                final int firstDot = keyStr.indexOf('.');
+                if (firstDot != -1)
+                {
+                    keysByFirstToken.computeIfAbsent(keyStr.substring(0, firstDot), token -> new ArrayList<>()).add(keyStr);
+                }
+            }
+        });
+        this.keysByFirstToken = keysByFirstToken;
+    }
+
+    /**
+     * Retrieves the indexed entries for all keys in a properties source using a specific property prefix, grouped by the bean type.
+     *
+     * @param propertiesSource
+     *     the properties source to index
+     * @param propertyPrefix
+     *     the property prefix (without trailing dot) of the relevant keys
+     * @return the entries for keys using the property prefix, grouped by bean type and in the iteration order of the properties source
+     */
+    public static Map<String, List<Entry>> getEntriesByBeanType(final Properties propertiesSource, final String propertyPrefix)
+    {
+        final int keyCount = propertiesSource.size();
+        final int keysHashCode = propertiesSource.keySet().hashCode();
+
+        PropertiesKeyIndex index = null;
+        synchronized (INDICES)
+        {
+            final Iterator<PropertiesKeyIndex> indexIterator = INDICES.iterator();
+            while (indexIterator.hasNext())
+            {
+                final PropertiesKeyIndex candidate = indexIterator.next();
+                final Properties candidateSource = candidate.propertiesSource.get();
+                if (candidateSource == null)
+                {
+                    indexIterator.remove();
+                }
+                else if (candidateSource == propertiesSource)
+                {
+                    // properties may be added / removed between uses
+                    if (candidate.keyCount == keyCount && candidate.keysHashCode == keysHashCode)
+                    {
+                        index = candidate;
+                    }
+                    else
+                    {
+                        indexIterator.remove();
+                    }
+                }
+            }
+
+            if (index == null)
+            {
+                LOGGER.trace("Building properties key index for {} keys", keyCount);
+                index = new PropertiesKeyIndex(propertiesSource, keyCount, keysHashCode);
+                INDICES.add(index);
+            }
+        }
+
+        return index.getEntriesByBeanType(propertyPrefix);
+    }
+
+    private Map<String, List<Entry>> getEntriesByBeanType(final String propertyPrefix)
+    {
+        return this.entriesByPrefix.computeIfAbsent(propertyPrefix, prefix -> {
+            final String effectivePropertyPrefix = prefix + DOT;
+            final int firstDot = effectivePropertyPrefix.indexOf('.');
+            final List<String> candidateKeys = this.keysByFirstToken.getOrDefault(effectivePropertyPrefix.substring(0, firstDot),
+                    Collections.emptyList());
+
+            final Map<String, List<Entry>> entriesByBeanType = new LinkedHashMap<>();
+            candidateKeys.forEach(key -> {
+                if (key.startsWith(effectivePropertyPrefix))
+                {
+                    final String beanDefinitionKey = key.substring(effectivePropertyPrefix.length());
+                    final int beanTypeDot = beanDefinitionKey.indexOf('.');
+                    if (beanTypeDot != -1)
+                    {
+                        final String beanType = beanDefinitionKey.substring(0, beanTypeDot);
+                        entriesByBeanType.computeIfAbsent(beanType, type -> new ArrayList<>()).add(new Entry(key, beanDefinitionKey));
+                    }
+                }
+            });
+            entriesByBeanType.replaceAll((beanType, entries) -> Collections.unmodifiableList(entries));
+
+            LOGGER.trace("Property prefix {} matched {} bean types from {} candidate keys", prefix, entriesByBeanType.size(),
+                    candidateKeys.size());
+            return Collections.unmodifiableMap(entriesByBeanType);
+        });
+    }
+
+    /**
+     * Instances of this class represent the pre-parsed tokens of a single property key relevant for a specific property prefix.
+     *
+     * @author Axel Faust
+     */
+    public static final class Entry
+    {
+
+        private final String key;
+
+        private final String beanDefinitionKey;
+
+        private final String propertyBeanName;
+
+        private final String propertyDefinitionKey;
+
+        private Entry(final String key, final String beanDefinitionKey)
+        {
+            this.key = key;
+            this.beanDefinitionKey = beanDefinitionKey;
+
+            final int propertyFragmentIdx = beanDefinitionKey.indexOf(FRAGMENT_PROPERTY);
+            if (propertyFragmentIdx != -1)
+            {
+                this.propertyBeanName = beanDefinitionKey.substring(0, propertyFragmentIdx);
+                this.propertyDefinitionKey = beanDefinitionKey.substring(propertyFragmentIdx + FRAGMENT_PROPERTY.length());
+            }
+            else
+            {
+                this.propertyBeanName = null;
+                this.propertyDefinitionKey = null;
+            }
+        }
+
+        /**
+         * @return the full property key
+         */
+        public String getKey()
+        {
+            return this.key;
+        }
+
+        /**
+         * @return the property key without the property prefix
+         */
+        public String getBeanDefinitionKey()
+        {
+            return this.beanDefinitionKey;
+        }
+
+        /**
+         * @return {@code true} if the key defines a property of a bean, {@code false} if it defines a bean-level setting
+         */
+        public boolean isPropertyDefinition()
+        {
+            return this.propertyDefinitionKey != null;
+        }
+
+        /**
+         * @return the name of the bean for which the key defines a property, or {@code null} if the key defines a bean-level setting
+         */
+        public String getPropertyBeanName()
+        {
+            return this.propertyBeanName;
+        }
+
+        /**
+         * @return the property definition key following the property fragment, or {@code null} if the key defines a bean-level setting
+         */
+        public String getPropertyDefinitionKey()
+        {
+            return this.propertyDefinitionKey;
+        }
+    }
+}
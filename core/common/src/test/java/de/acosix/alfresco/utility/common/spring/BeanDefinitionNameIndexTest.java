@@ -0,0 +1,79 @@
+/*
+ * Copyright 2016 - 2026 Acosix GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.acosix.alfresco.utility.common.spring;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Axel Faust
+ */
+public class BeanDefinitionNameIndexTest
+{
+
+    private static final String[] BEAN_NAMES = { "nodeService", "NodeService", "dbNodeService", "node.service.cache", "nodeServiceX",
+            "mimetypeService", "node" };
+
+    @Test
+    public void literalPrefix()
+    {
+        Assert.assertEquals("nodeService", BeanDefinitionNameIndex.getLiteralPrefix("nodeService"));
+        Assert.assertEquals("nodeService", BeanDefinitionNameIndex.getLiteralPrefix("^nodeService.*"));
+        Assert.assertEquals("node.service.", BeanDefinitionNameIndex.getLiteralPrefix("node\\.service\\..+"));
+        Assert.assertEquals("nodeService", BeanDefinitionNameIndex.getLiteralPrefix("nodeServicex?"));
+        Assert.assertEquals("nodeService", BeanDefinitionNameIndex.getLiteralPrefix("nodeServicex{0,2}"));
+        Assert.assertEquals("nodeServicex", BeanDefinitionNameIndex.getLiteralPrefix("nodeServicex+"));
+        Assert.assertEquals("node", BeanDefinitionNameIndex.getLiteralPrefix("node\\w+"));
+        Assert.assertEquals("", BeanDefinitionNameIndex.getLiteralPrefix("nodeService|dbNodeService"));
+        Assert.assertEquals("", BeanDefinitionNameIndex.getLiteralPrefix("(?i)nodeService"));
+        Assert.assertEquals("", BeanDefinitionNameIndex.getLiteralPrefix(".*Service"));
+    }
+
+    @Test
+    public void matchingBeanNames()
+    {
+        final Object registry = new Object();
+
+        Assert.assertEquals(Arrays.asList("nodeService", "nodeServiceX"),
+                BeanDefinitionNameIndex.getMatchingBeanNames(registry, BEAN_NAMES, "nodeService.*", null));
+        Assert.assertEquals(Arrays.asList("nodeService"),
+                BeanDefinitionNameIndex.getMatchingBeanNames(registry, BEAN_NAMES, "nodeService.*", ".+X"));
+        Assert.assertEquals(Arrays.asList("nodeService", "NodeService", "dbNodeService", "nodeServiceX", "mimetypeService"),
+                BeanDefinitionNameIndex.getMatchingBeanNames(registry, BEAN_NAMES, ".*Service.*", null));
+        Assert.assertEquals(Arrays.asList("nodeService", "dbNodeService"),
+                BeanDefinitionNameIndex.getMatchingBeanNames(registry, BEAN_NAMES, "nodeService|dbNodeService", null));
+        Assert.assertEquals(Collections.emptyList(),
+                BeanDefinitionNameIndex.getMatchingBeanNames(registry, BEAN_NAMES, "contentService", null));
+    }
+
+    @Test
+    public void changedBeanNames()
+    {
+        final Object registry = new Object();
+
+        List<String> matches = BeanDefinitionNameIndex.getMatchingBeanNames(registry, BEAN_NAMES, "node.*", null);
+        Assert.assertEquals(Arrays.asList("nodeService", "node.service.cache", "nodeServiceX", "node"), matches);
+
+        final String[] changedBeanNames = Arrays.copyOf(BEAN_NAMES, BEAN_NAMES.length + 1);
+        changedBeanNames[BEAN_NAMES.length] = "nodeLocator";
+        matches = BeanDefinitionNameIndex.getMatchingBeanNames(registry, changedBeanNames, "node.*", null);
+        Assert.assertEquals(Arrays.asList("nodeService", "node.service.cache", "nodeServiceX", "node", "nodeLocator"), matches);
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2016 - 2026 Acosix GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.acosix.alfresco.utility.common.spring;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * @author Axel Faust
+ */
+public class PropertiesKeyIndexTest
+{
+
+    @Test
+    public void entriesByBeanType()
+    {
+        final Properties properties = new Properties();
+        properties.setProperty("testPrefix.beanTypeX.simpleBean._className", "dummy");
+        properties.setProperty("testPrefix.beanTypeX.simpleBean.property.stringList.list.0", "value 1");
+        properties.setProperty("testPrefix.beanTypeY.otherBean._remove", "true");
+        properties.setProperty("testPrefix.noBeanType", "dummy");
+        properties.setProperty("otherPrefix.beanTypeX.simpleBean._className", "dummy");
+        properties.setProperty("nested.prefix.beanTypeX.nestedBean._parent", "simpleBean");
+
+        final Map<String, List<PropertiesKeyIndex.Entry>> entriesByBeanType = PropertiesKeyIndex.getEntriesByBeanType(properties,
+                "testPrefix");
+        Assert.assertEquals(2, entriesByBeanType.size());
+        Assert.assertEquals(2, entriesByBeanType.get("beanTypeX").size());
+        Assert.assertEquals(1, entriesByBeanType.get("beanTypeY").size());
+
+        final PropertiesKeyIndex.Entry removeEntry = entriesByBeanType.get("beanTypeY").get(0);
+        Assert.assertEquals("testPrefix.beanTypeY.otherBean._remove", removeEntry.getKey());
+        Assert.assertEquals("beanTypeY.otherBean._remove", removeEntry.getBeanDefinitionKey());
+        Assert.assertFalse(removeEntry.isPropertyDefinition());
+
+        final PropertiesKeyIndex.Entry propertyEntry = entriesByBeanType.get("beanTypeX").stream()
+                .filter(PropertiesKeyIndex.Entry::isPropertyDefinition).findFirst().get();
+        Assert.assertEquals("beanTypeX.simpleBean", propertyEntry.getPropertyBeanName());
+        Assert.assertEquals("stringList.list.0", propertyEntry.getPropertyDefinitionKey());
+
+        Assert.assertSame(entriesByBeanType, PropertiesKeyIndex.getEntriesByBeanType(properties, "testPrefix"));
+        Assert.assertEquals(1, PropertiesKeyIndex.getEntriesByBeanType(properties, "nested.prefix").get("beanTypeX").size());
+        Assert.assertTrue(PropertiesKeyIndex.getEntriesByBeanType(properties, "unknownPrefix").isEmpty());
+    }
+
+    @Test
+    public void changedProperties()
+    {
+        final Properties properties = new Properties();
+        properties.setProperty("testPrefix.beanTypeX.simpleBean._className", "dummy");
+
+        Map<String, List<PropertiesKeyIndex.Entry>> entriesByBeanType = PropertiesKeyIndex.getEntriesByBeanType(properties, "testPrefix");
+        Assert.assertEquals(1, entriesByBeanType.get("beanTypeX").size());
+
+        properties.setProperty("testPrefix.beanTypeX.otherBean._className", "dummy");
+        entriesByBeanType = PropertiesKeyIndex.getEntriesByBeanType(properties, "testPrefix");
+        Assert.assertEquals(2, entriesByBeanType.get("beanTypeX").size());
+    }
+}
@@ -16,22 +16,34 @@
 package de.acosix.alfresco.utility.core.repo.acs6;
 
 import java.io.IOException;
-import java.lang.reflect.InvocationTargetException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.WrongMethodTypeException;
 import java.lang.reflect.Method;
 import java.util.Arrays;
 import java.util.Map;
-import java.util.function.Predicate;
+import java.util.Objects;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.alfresco.model.ContentModel;
 import org.alfresco.repo.rendition2.RenditionDefinition2;
 import org.alfresco.repo.rendition2.RenditionService2;
 import org.alfresco.repo.web.scripts.content.ContentStreamer;
 import org.alfresco.service.cmr.repository.ChildAssociationRef;
-import org.alfresco.service.cmr.repository.ContentReader;
-import org.alfresco.service.cmr.repository.ContentService;
+import org.alfresco.service.cmr.repository.ContentData;
 import org.alfresco.service.cmr.repository.NodeRef;
+import org.alfresco.service.cmr.repository.NodeService;
 import org.alfresco.service.namespace.QName;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.event.ContextClosedEvent;
 import org.springframework.extensions.webscripts.WebScriptRequest;
 import org.springframework.extensions.webscripts.WebScriptResponse;
 
@@ -41,9 +53,18 @@ import org.springframework.extensions.webscripts.WebScriptResponse;
 public class RenditionService2RenditionUtility
 {
 
-    private static final Method IS_ENABLED_METHOD;
+    private static final Logger LOGGER = LoggerFactory.getLogger(RenditionService2RenditionUtility.class);
 
-    private static final Method IS_SUPPORTED_METHOD;
+    // fallback lifetime of cached support decisions if configuration reloads of registries cannot be detected
+    private static final long DECISION_CACHE_FALLBACK_TTL = 5 * 60 * 1000l;
+
+    private static final MethodHandle IS_ENABLED_HANDLE;
+
+    private static final MethodHandle IS_SUPPORTED_HANDLE;
+
+    // support contexts reference beans of their application context - entries are removed when the context is closed, or (for contexts
+    // not supporting listeners) once the context has been garbage collected
+    private static final Map<ApplicationContext, RenditionSupportContext> SUPPORT_CONTEXTS = new WeakHashMap<>();
 
     static
     {
@@ -65,15 +86,16 @@ public class RenditionService2RenditionUtility
             }
         }
 
-        Method isEnabled = null;
-        Method isSupported = null;
+        final MethodHandles.Lookup lookup = MethodHandles.lookup();
+        MethodHandle isEnabled = null;
+        MethodHandle isSupported = null;
         if (registryBaseClass != null)
         {
             try
             {
-                isEnabled = registryBaseClass.getDeclaredMethod("isEnabled");
+                isEnabled = lookup.unreflect(registryBaseClass.getDeclaredMethod("isEnabled"));
             }
-            catch (final NoSuchMethodException ignore)
+            catch (final NoSuchMethodException | IllegalAccessException ignore)
             {
                 // ignored - not supported in ACS 6.1.2
             }
@@ -82,33 +104,18 @@ public class RenditionService2RenditionUtility
         {
             try
             {
-                isSupported = registryInterfaceClass.getDeclaredMethod("isSupported", String.class, long.class, String.class, Map.class,
-                        String.class);
+                isSupported = lookup.unreflect(registryInterfaceClass.getDeclaredMethod("isSupported", String.class, long.class,
+                        String.class, Map.class, String.class));
             }
-            catch (final NoSuchMethodException ignore)
+            catch (final NoSuchMethodException | IllegalAccessException ignore)
             {
                 // ignored - should never be
             }
         }
-        IS_ENABLED_METHOD = isEnabled;
-        IS_SUPPORTED_METHOD = isSupported;
+        IS_ENABLED_HANDLE = isEnabled;
+        IS_SUPPORTED_HANDLE = isSupported;
     }
 
-    private static final Predicate<Object> IS_ENABLED = o -> {
-        if (IS_ENABLED_METHOD == null)
-        {
-            return true; // assume true
-        }
-        try
-        {
-            return Boolean.TRUE.equals(IS_ENABLED_METHOD.invoke(o));
-        }
-        catch (InvocationTargetException | IllegalAccessException e)
-        {
-            return false;
-        }
-    };
-
     /**
      * Checks whether the necessary APIs are available to invoke this utility. Note that the caller is still required to handle any
      * {@link NoClassDefFoundError classloading errors} to be safe.
@@ -121,7 +128,7 @@ public class RenditionService2RenditionUtility
         try
         {
             Class.forName("org.alfresco.repo.rendition2.RenditionService2");
-            available = IS_SUPPORTED_METHOD != null;
+            available = IS_SUPPORTED_HANDLE != null;
         }
         catch (final Exception ignore)
         {
@@ -196,49 +203,406 @@ public class RenditionService2RenditionUtility
         boolean possible = false;
         if (ContentModel.PROP_CONTENT.equals(effectivePropertyQName))
         {
-            final RenditionService2 renditionService = applicationContext.getBean("RenditionService2", RenditionService2.class);
-            final RenditionDefinition2 renditionDefinition = renditionService.getRenditionDefinitionRegistry2()
+            final RenditionSupportContext supportContext = getSupportContext(applicationContext);
+            // content data carries all we need - avoids opening a reader just to retrieve mimetype / size
+            final Object contentValue = supportContext.nodeService.getProperty(nodeRef, effectivePropertyQName);
+            if (contentValue instanceof ContentData && ContentData.hasContent((ContentData) contentValue))
+            {
+                final ContentData contentData = (ContentData) contentValue;
+                possible = supportContext.isSupported(contentData.getMimetype(), contentData.getSize(), renditionName);
+            }
+        }
+
+        return possible;
+    }
+
+    private static RenditionSupportContext getSupportContext(final ApplicationContext applicationContext)
+    {
+        RenditionSupportContext supportContext;
+        synchronized (SUPPORT_CONTEXTS)
+        {
+            supportContext = SUPPORT_CONTEXTS.get(applicationContext);
+            if (supportContext == null)
+            {
+                supportContext = new RenditionSupportContext(applicationContext);
+                SUPPORT_CONTEXTS.put(applicationContext, supportContext);
+
+                if (applicationContext instanceof ConfigurableApplicationContext)
+                {
+                    ((ConfigurableApplicationContext) applicationContext).addApplicationListener(new SupportContextCleanupListener());
+                }
+            }
+        }
+        return supportContext;
+    }
+
+    private static MethodHandle findConfigDataHandle(final Object registry)
+    {
+        // all reloadable registries in ACS 6.2+ hold their effective configuration in a data object which is replaced upon reload
+        MethodHandle handle = null;
+        Class<?> cls = registry.getClass();
+        while (handle == null && cls != null && cls != Object.class)
+        {
+            try
+            {
+                final Method getData = cls.getDeclaredMethod("getData");
+                getData.setAccessible(true);
+                handle = MethodHandles.lookup().unreflect(getData).bindTo(registry)
+                        .asType(MethodType.methodType(Object.class));
+            }
+            catch (final NoSuchMethodException ignore)
+            {
+                cls = cls.getSuperclass();
+            }
+            catch (final IllegalAccessException | RuntimeException ignore)
+            {
+                // e.g. access restricted by module system - fall back to time-based expiration
+                break;
+            }
+        }
+        return handle;
+    }
+
+    /**
+     * Instances of this class remove the support context of an application context when it is closed.
+     *
+     * @author Axel Faust
+     */
+    private static class SupportContextCleanupListener implements ApplicationListener<ApplicationEvent>
+    {
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void onApplicationEvent(final ApplicationEvent event)
+        {
+            // closed events of child contexts are propagated to their parents
+            if (event instanceof ContextClosedEvent)
+            {
+                synchronized (SUPPORT_CONTEXTS)
+                {
+                    SUPPORT_CONTEXTS.remove(((ContextClosedEvent) event).getApplicationContext());
+                }
+            }
+        }
+    }
+
+    /**
+     * Instances of this class hold the services / registries resolved once from a specific application context, as well as the cache
+     * of support decisions derived from their current configuration state.
+     *
+     * @author Axel Faust
+     */
+    private static class RenditionSupportContext
+    {
+
+        private final RenditionService2 renditionService;
+
+        private final NodeService nodeService;
+
+        private final MethodHandle remoteIsEnabled;
+
+        private final MethodHandle remoteIsSupported;
+
+        private final MethodHandle localIsEnabled;
+
+        private final MethodHandle localIsSupported;
+
+        private final MethodHandle[] configDataHandles;
+
+        private final boolean configReloadDetectable;
+
+        private final ConcurrentMap<DecisionKey, SupportDecision> decisions = new ConcurrentHashMap<>();
+
+        private volatile Object[] configDataState;
+
+        private volatile long configDataStateTimestamp;
+
+        private RenditionSupportContext(final ApplicationContext applicationContext)
+        {
+            this.renditionService = applicationContext.getBean("RenditionService2", RenditionService2.class);
+            this.nodeService = applicationContext.getBean("NodeService", NodeService.class);
+
+            final Object remoteRegistry = applicationContext.getBean("remoteTransformServiceRegistry");
+            final Object localRegistry = applicationContext.getBean("localTransformServiceRegistry");
+
+            this.remoteIsEnabled = bindIsEnabled(remoteRegistry);
+            this.remoteIsSupported = IS_SUPPORTED_HANDLE.bindTo(remoteRegistry);
+            this.localIsEnabled = bindIsEnabled(localRegistry);
+            this.localIsSupported = IS_SUPPORTED_HANDLE.bindTo(localRegistry);
+
+            this.configDataHandles = new MethodHandle[] { findConfigDataHandle(remoteRegistry), findConfigDataHandle(localRegistry),
+                    findConfigDataHandle(this.renditionService.getRenditionDefinitionRegistry2()) };
+            this.configReloadDetectable = Arrays.stream(this.configDataHandles).allMatch(Objects::nonNull);
+            this.configDataState = this.readConfigDataState();
+            this.configDataStateTimestamp = System.currentTimeMillis();
+        }
+
+        private static MethodHandle bindIsEnabled(final Object registry)
+        {
+            MethodHandle handle = null;
+            if (IS_ENABLED_HANDLE != null && IS_ENABLED_HANDLE.type().parameterType(0).isInstance(registry))
+            {
+                handle = IS_ENABLED_HANDLE.bindTo(registry);
+            }
+            return handle;
+        }
+
+        private boolean isSupported(final String sourceMimetype, final long sourceSize, final String renditionName)
+        {
+            this.invalidateDecisionsOnConfigReload();
+
+            final DecisionKey key = new DecisionKey(sourceMimetype, renditionName, sizeBucket(sourceSize));
+            final SupportDecision decision = this.decisions.computeIfAbsent(key, k -> new SupportDecision());
+
+            Boolean supported = decision.get(sourceSize);
+            if (supported == null)
+            {
+                supported = Boolean.valueOf(this.isSupportedUncached(sourceMimetype, sourceSize, renditionName));
+                decision.record(sourceSize, supported.booleanValue());
+            }
+            return supported.booleanValue();
+        }
+
+        private boolean isSupportedUncached(final String sourceMimetype, final long sourceSize, final String renditionName)
+        {
+            boolean possible = false;
+            final RenditionDefinition2 renditionDefinition = this.renditionService.getRenditionDefinitionRegistry2()
                     .getRenditionDefinition(renditionName);
             if (renditionDefinition != null)
             {
-                final ContentService contentService = applicationContext.getBean("ContentSerivce", ContentService.class);
-                final ContentReader reader = contentService.getReader(nodeRef, effectivePropertyQName);
-                if (reader != null && reader.exists())
+                if (isEnabled(this.remoteIsEnabled))
+                {
+                    possible = isSupported(this.remoteIsSupported, sourceMimetype, sourceSize, renditionDefinition.getTargetMimetype(),
+                            renditionDefinition.getTransformOptions(), renditionDefinition.getRenditionName());
+                }
+
+                if (!possible && isEnabled(this.localIsEnabled))
+                {
+                    possible = isSupported(this.localIsSupported, sourceMimetype, sourceSize, renditionDefinition.getTargetMimetype(),
+                            renditionDefinition.getTransformOptions(), renditionDefinition.getRenditionName());
+                }
+            }
+            return possible;
+        }
+
+        private void invalidateDecisionsOnConfigReload()
+        {
+            final long now = System.currentTimeMillis();
+            if (this.configReloadDetectable)
+            {
+                final Object[] currentState = this.readConfigDataState();
+                final Object[] knownState = this.configDataState;
+                boolean reloaded = false;
+                for (int idx = 0; idx < currentState.length && !reloaded; idx++)
                 {
-                    final Object remoteRegistry = applicationContext.getBean("remoteTransformServiceRegistry");
-                    final Object localRegistry = applicationContext.getBean("localTransformServiceRegistry");
-                    if (IS_ENABLED.test(remoteRegistry))
+                    reloaded = currentState[idx] != knownState[idx];
+                }
+
+                if (reloaded)
+                {
+                    this.decisions.clear();
+                    this.configDataState = currentState;
+                    this.configDataStateTimestamp = now;
+                }
+            }
+            else if (now - this.configDataStateTimestamp > DECISION_CACHE_FALLBACK_TTL)
+            {
+                this.decisions.clear();
+                this.configDataStateTimestamp = now;
+            }
+        }
+
+        private Object[] readConfigDataState()
+        {
+            final Object[] state = new Object[this.configDataHandles.length];
+            for (int idx = 0; idx < state.length; idx++)
+            {
+                if (this.configDataHandles[idx] != null)
+                {
+                    try
                     {
-                        possible = isSupported(remoteRegistry, reader.getMimetype(), reader.getSize(),
-                                renditionDefinition.getTargetMimetype(), renditionDefinition.getTransformOptions(),
-                                renditionDefinition.getRenditionName());
+                        state[idx] = (Object) this.configDataHandles[idx].invokeExact();
                     }
-
-                    if (IS_ENABLED.test(localRegistry) && !possible)
+                    catch (final WrongMethodTypeException | ClassCastException e)
                     {
-                        possible = isSupported(localRegistry, reader.getMimetype(), reader.getSize(),
-                                renditionDefinition.getTargetMimetype(), renditionDefinition.getTransformOptions(),
-                                renditionDefinition.getRenditionName());
+                        LOGGER.warn("Incompatible handle for configuration data of transform / rendition registry", e);
+                    }
+                    catch (final RuntimeException e)
+                    {
+                        // treat as unknown state
+                        LOGGER.debug("Failed to read configuration data of transform / rendition registry", e);
+                    }
+                    catch (final Error e)
+                    {
+                        throw e;
+                    }
+                    catch (final Throwable e)
+                    {
+                        LOGGER.warn("Unexpected error reading configuration data of transform / rendition registry", e);
                     }
-
                 }
             }
+            return state;
         }
 
-        return possible;
+        private static int sizeBucket(final long size)
+        {
+            // power-of-two buckets - registries only use size for max source size limits
+            return 64 - Long.numberOfLeadingZeros(Math.max(0, size));
+        }
+
+        private static boolean isEnabled(final MethodHandle boundIsEnabled)
+        {
+            if (boundIsEnabled == null)
+            {
+                return true; // assume true
+            }
+            try
+            {
+                return (boolean) boundIsEnabled.invokeExact();
+            }
+            catch (final WrongMethodTypeException | ClassCastException e)
+            {
+                LOGGER.warn("Incompatible isEnabled handle for transform registry - treating registry as disabled", e);
+                return false;
+            }
+            catch (final RuntimeException e)
+            {
+                LOGGER.debug("Failed to check if transform registry is enabled - treating registry as disabled", e);
+                return false;
+            }
+            catch (final Error e)
+            {
+                throw e;
+            }
+            catch (final Throwable e)
+            {
+                LOGGER.warn("Unexpected error checking if transform registry is enabled - treating registry as disabled", e);
+                return false;
+            }
+        }
+
+        private static boolean isSupported(final MethodHandle boundIsSupported, final String sourceMimetype, final long sourceSize,
+                final String targetMimetype, final Map<String, String> transformOptions, final String renditionName)
+        {
+            try
+            {
+                return (boolean) boundIsSupported.invokeExact(sourceMimetype, sourceSize, targetMimetype, transformOptions, renditionName);
+            }
+            catch (final WrongMethodTypeException | ClassCastException e)
+            {
+                LOGGER.warn("Incompatible isSupported handle for transform registry - treating transformation as unsupported", e);
+                return false;
+            }
+            catch (final RuntimeException e)
+            {
+                LOGGER.debug("Failed to check support of transformation from {} for rendition {} - treating as unsupported", sourceMimetype,
+                        renditionName, e);
+                return false;
+            }
+            catch (final Error e)
+            {
+                throw e;
+            }
+            catch (final Throwable e)
+            {
+                LOGGER.warn("Unexpected error checking support of transformation from {} for rendition {} - treating as unsupported",
+                        sourceMimetype, renditionName, e);
+                return false;
+            }
+        }
     }
 
-    private static boolean isSupported(final Object registry, final String sourceMimetype, final long sourceSize,
-            final String targetMimetype, final Map<String, String> transformOptions, final String renditionName)
+    /**
+     * Instances of this class represent the cache key of a support decision.
+     *
+     * @author Axel Faust
+     */
+    private static class DecisionKey
     {
-        try
+
+        private final String sourceMimetype;
+
+        private final String renditionName;
+
+        private final int sizeBucket;
+
+        private DecisionKey(final String sourceMimetype, final String renditionName, final int sizeBucket)
+        {
+            this.sourceMimetype = sourceMimetype;
+            this.renditionName = renditionName;
+            this.sizeBucket = sizeBucket;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(this.sourceMimetype, this.renditionName, this.sizeBucket);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean equals(final Object obj)
+        {
+            if (this == obj)
+            {
+                return true;
+            }
+            if (!(obj instanceof DecisionKey))
+            {
+                return false;
+            }
+            final DecisionKey other = (DecisionKey) obj;
+            return this.sizeBucket == other.sizeBucket && Objects.equals(this.sourceMimetype, other.sourceMimetype)
+                    && Objects.equals(this.renditionName, other.renditionName);
+        }
+    }
+
+    /**
+     * Instances of this class track the known bounds of supported / unsupported source sizes within a size bucket. Since transformer
+     * registries only ever restrict by maximum source size, any size up to the largest supported size is supported, and any size from
+     * the smallest unsupported size upwards is unsupported, so decisions from the cache are exact and never approximated by the bucket.
+     *
+     * @author Axel Faust
+     */
+    private static class SupportDecision
+    {
+
+        private long maxSupportedSize = -1;
+
+        private long minUnsupportedSize = Long.MAX_VALUE;
+
+        private synchronized Boolean get(final long size)
         {
-            return Boolean.TRUE.equals(
-                    IS_SUPPORTED_METHOD.invoke(registry, sourceMimetype, sourceSize, targetMimetype, transformOptions, renditionName));
+            Boolean supported = null;
+            if (size <= this.maxSupportedSize)
+            {
+                supported = Boolean.TRUE;
+            }
+            else if (size >= this.minUnsupportedSize)
+            {
+                supported = Boolean.FALSE;
+            }
+            return supported;
         }
-        catch (InvocationTargetException | IllegalAccessException e)
+
+        private synchronized void record(final long size, final boolean supported)
         {
-            return false;
+            if (supported)
+            {
+                this.maxSupportedSize = Math.max(this.maxSupportedSize, size);
+            }
+            else
+            {
+                this.minUnsupportedSize = Math.min(this.minUnsupportedSize, size);
+            }
         }
     }
 }
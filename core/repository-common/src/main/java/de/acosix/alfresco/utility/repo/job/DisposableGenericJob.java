@@ -0,0 +1,33 @@
+/*
+ * Copyright 2016 - 2026 Acosix GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.acosix.alfresco.utility.repo.job;
+
+/**
+ * Instances of this interface are {@link GenericJob generic jobs} which hold resources that need to be released when the instance is
+ * discarded. Relay job instances are discarded after each execution by default, or - if caching of relay instances has been enabled for
+ * the job - when the job is removed from the scheduler, a cached instance is replaced or an execution failed.
+ *
+ * @author Axel Faust
+ */
+public interface DisposableGenericJob extends GenericJob
+{
+
+    /**
+     * Releases any resources held by this instance. This operation is called at most once per instance and no further execution will be
+     * triggered after it has been called.
+     */
+    void dispose();
+}
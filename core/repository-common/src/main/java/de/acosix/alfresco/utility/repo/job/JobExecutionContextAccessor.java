@@ -0,0 +1,70 @@
+/*
+ * Copyright 2016 - 2026 Acosix GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.acosix.alfresco.utility.repo.job;
+
+import java.util.Map;
+
+import org.quartz.JobExecutionContext;
+
+/**
+ * Instances of this interface provide typed access to the job execution context of a specific Quartz version without having to rely on
+ * reflection, bridging the binary incompatibility (class vs. interface) of the {@link JobExecutionContext} API between Quartz 1.x and 2.x.
+ * Implementations are provided by {@code de.acosix.alfresco.utility.core.repo.quartz1.JobExecutionContextAccessorImpl} and
+ * {@code de.acosix.alfresco.utility.core.repo.quartz2.JobExecutionContextAccessorImpl}.
+ *
+ * @author Axel Faust
+ */
+public interface JobExecutionContextAccessor
+{
+
+    /**
+     * Checks whether an object is a job execution context supported by this instance.
+     *
+     * @param jobExecutionContext
+     *     the object to check
+     * @return {@code true} if the object is a job execution context of the Quartz version handled by this instance, {@code false}
+     *     otherwise
+     */
+    boolean isJobExecutionContext(Object jobExecutionContext);
+
+    /**
+     * Retrieves the merged job data map of a job execution context.
+     *
+     * @param jobExecutionContext
+     *     the job execution context
+     * @return the merged job data map
+     */
+    Map<?, ?> getMergedJobDataMap(Object jobExecutionContext);
+
+    /**
+     * Retrieves the identifier of the job detail of a job execution context, which is the full name for Quartz 1.x and the job key for
+     * Quartz 2.x.
+     *
+     * @param jobExecutionContext
+     *     the job execution context
+     * @return the identifier of the job detail
+     */
+    Object getJobDetailId(Object jobExecutionContext);
+
+    /**
+     * Retrieves the scheduler executing the job of a job execution context.
+     *
+     * @param jobExecutionContext
+     *     the job execution context
+     * @return the scheduler
+     */
+    Object getScheduler(Object jobExecutionContext);
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2016 - 2026 Acosix GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.acosix.alfresco.utility.core.repo.quartz1;
+
+import java.util.Map;
+
+import org.quartz.JobExecutionContext;
+
+import de.acosix.alfresco.utility.repo.job.JobExecutionContextAccessor;
+
+/**
+ * This implementation provides typed access to Quartz 1.x job execution contexts.
+ *
+ * @author Axel Faust
+ */
+public class JobExecutionContextAccessorImpl implements JobExecutionContextAccessor
+{
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isJobExecutionContext(final Object jobExecutionContext)
+    {
+        return jobExecutionContext instanceof JobExecutionContext;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<?, ?> getMergedJobDataMap(final Object jobExecutionContext)
+    {
+        final JobExecutionContext context = (JobExecutionContext) jobExecutionContext;
+        return context.getMergedJobDataMap();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Object getJobDetailId(final Object jobExecutionContext)
+    {
+        final JobExecutionContext context = (JobExecutionContext) jobExecutionContext;
+        return context.getJobDetail().getFullName();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Object getScheduler(final Object jobExecutionContext)
+    {
+        final JobExecutionContext context = (JobExecutionContext) jobExecutionContext;
+        return context.getScheduler();
+    }
+}
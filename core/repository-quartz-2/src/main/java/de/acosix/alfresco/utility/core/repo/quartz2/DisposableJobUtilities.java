@@ -15,6 +15,7 @@
  */
 package de.acosix.alfresco.utility.core.repo.quartz2;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import org.quartz.JobKey;
@@ -31,15 +32,18 @@ public final class DisposableJobUtilities
 {
 
     /**
-     * Disposes of jobs by removing their triggers from the scheduler.
+     * Disposes of jobs by removing their triggers from the scheduler, including any {@link InvocationRelayJob#CACHE_RELAY_INSTANCE cached
+     * relay instances}.
      *
      * @param scheduler
      *     the scheduler to access
      * @param triggers
      *     the list of triggers to remove
+     * @return the keys of the disposed jobs
      */
-    public static void disposeJobTriggers(final Scheduler scheduler, final List<Object> triggers)
+    public static List<Object> disposeJobTriggers(final Scheduler scheduler, final List<Object> triggers)
     {
+        final List<Object> jobDetailIds = new ArrayList<>(triggers.size());
         for (final Object trigger : triggers)
         {
             if (trigger instanceof Trigger)
@@ -49,6 +53,8 @@ public final class DisposableJobUtilities
                 try
                 {
                     scheduler.deleteJob(jobKey);
+                    InvocationRelayJob.disposeCachedRelay(jobKey);
+                    jobDetailIds.add(jobKey);
                 }
                 catch (final SchedulerException e)
                 {
@@ -56,6 +62,7 @@ public final class DisposableJobUtilities
                 }
             }
         }
+        return jobDetailIds;
     }
 
     private DisposableJobUtilities()
@@ -16,18 +16,28 @@
 package de.acosix.alfresco.utility.core.repo.quartz2;
 
 import java.lang.reflect.InvocationTargetException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.quartz.Job;
+import org.quartz.JobDataMap;
+import org.quartz.JobDetail;
 import org.quartz.JobExecutionContext;
 import org.quartz.JobExecutionException;
+import org.quartz.JobKey;
+import org.quartz.SchedulerException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import de.acosix.alfresco.utility.repo.job.DisposableGenericJob;
 import de.acosix.alfresco.utility.repo.job.GenericJob;
 
 /**
  * Instances of this job class merely serve the purpose of relaying a job execution to an alternative class instance whose API has been
- * decoupled from the Quartz API to avoid binary class incompatibilities between Alfresco versions.
+ * decoupled from the Quartz API to avoid binary class incompatibilities between Alfresco versions. By default, a new relay instance is
+ * created for each execution. If {@link #CACHE_RELAY_INSTANCE caching of relay instances} has been enabled for a job, the relay instance
+ * will be kept and reused for subsequent executions of the same job until the job is removed from the scheduler via
+ * {@link DisposableJobUtilities} or the factory bean of its job details is destroyed.
  *
  * @author Axel Faust
  */
@@ -36,15 +46,98 @@ public class InvocationRelayJob implements Job
 
     public static final String RELAY_CLASS = InvocationRelayJob.class.getName() + "-relayClass";
 
+    public static final String CACHE_RELAY_INSTANCE = InvocationRelayJob.class.getName() + "-cacheRelayInstance";
+
     private static final Logger LOGGER = LoggerFactory.getLogger(InvocationRelayJob.class);
 
+    // idle relay instances - instances currently executing are removed to avoid concurrent use
+    private static final Map<JobKey, GenericJob> CACHED_RELAYS = new ConcurrentHashMap<>();
+
+    /**
+     * Disposes of the cached relay instance of a job, if any.
+     *
+     * @param jobKey
+     *     the key of the job
+     */
+    public static void disposeCachedRelay(final JobKey jobKey)
+    {
+        final GenericJob relay = CACHED_RELAYS.remove(jobKey);
+        if (relay != null)
+        {
+            LOGGER.debug("Disposing cached relay instance for job {}", jobKey);
+            disposeRelay(relay);
+        }
+    }
+
+    /**
+     * Disposes of the cached relay instance of a job, if any.
+     *
+     * @param jobDetail
+     *     the details of the job
+     */
+    public static void disposeCachedRelay(final JobDetail jobDetail)
+    {
+        disposeCachedRelay(jobDetail.getKey());
+    }
+
     /**
      * {@inheritDoc}
      */
     @Override
     public void execute(final JobExecutionContext context) throws JobExecutionException
     {
-        final Object relayClassCandidate = context.getMergedJobDataMap().get(RELAY_CLASS);
+        final JobDataMap jobDataMap = context.getMergedJobDataMap();
+        final Object relayClassCandidate = jobDataMap.get(RELAY_CLASS);
+        final boolean cacheRelay = Boolean.parseBoolean(String.valueOf(jobDataMap.get(CACHE_RELAY_INSTANCE)));
+        final JobKey jobKey = context.getJobDetail().getKey();
+
+        GenericJob relay = null;
+        if (cacheRelay)
+        {
+            final GenericJob cachedRelay = CACHED_RELAYS.remove(jobKey);
+            if (cachedRelay != null && cachedRelay.getClass().equals(relayClassCandidate))
+            {
+                LOGGER.trace("Reusing cached relay instance for job {}", jobKey);
+                relay = cachedRelay;
+            }
+            else if (cachedRelay != null)
+            {
+                LOGGER.debug("Relay class of job {} changed - disposing cached relay instance", jobKey);
+                disposeRelay(cachedRelay);
+            }
+        }
+
+        if (relay == null)
+        {
+            relay = createRelay(relayClassCandidate);
+        }
+
+        boolean executed = false;
+        try
+        {
+            relay.execute(context);
+            executed = true;
+        }
+        finally
+        {
+            // only cache relay instances which completed successfully and whose job is still scheduled
+            if (executed && cacheRelay && isJobScheduled(context, jobKey))
+            {
+                final GenericJob otherRelay = CACHED_RELAYS.putIfAbsent(jobKey, relay);
+                if (otherRelay != null)
+                {
+                    disposeRelay(relay);
+                }
+            }
+            else
+            {
+                disposeRelay(relay);
+            }
+        }
+    }
+
+    private static GenericJob createRelay(final Object relayClassCandidate)
+    {
         Object relay = null;
 
         if (relayClassCandidate instanceof Class<?>)
@@ -68,7 +161,36 @@ public class InvocationRelayJob implements Job
             throw new IllegalStateException("Invalid relay class value: " + relayClassCandidate);
         }
 
-        ((GenericJob) relay).execute(context);
+        return (GenericJob) relay;
+    }
+
+    private static boolean isJobScheduled(final JobExecutionContext context, final JobKey jobKey)
+    {
+        boolean scheduled;
+        try
+        {
+            scheduled = context.getScheduler().checkExists(jobKey);
+        }
+        catch (final SchedulerException e)
+        {
+            LOGGER.debug("Failed to check if job {} is still scheduled", jobKey, e);
+            scheduled = false;
+        }
+        return scheduled;
     }
 
+    private static void disposeRelay(final GenericJob relay)
+    {
+        if (relay instanceof DisposableGenericJob)
+        {
+            try
+            {
+                ((DisposableGenericJob) relay).dispose();
+            }
+            catch (final RuntimeException e)
+            {
+                LOGGER.warn("Error disposing relay instance {}", relay, e);
+            }
+        }
+    }
 }
@@ -19,7 +19,7 @@ import java.lang.reflect.Array;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.List;
-import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
 
 import org.alfresco.error.AlfrescoRuntimeException;
 import org.quartz.Scheduler;
@@ -36,7 +36,7 @@ public class DisposableSchedulerAccessorBean extends SchedulerAccessorBean imple
 
     private static final Class<?> TRIGGER_CLASS;
 
-    private static final BiConsumer<Scheduler, List<Object>> DISPOSER;
+    private static final BiFunction<Scheduler, List<Object>, List<Object>> DISPOSER;
 
     private static final Method SET_TRIGGERS_METHOD;
     static
@@ -97,7 +97,9 @@ public class DisposableSchedulerAccessorBean extends SchedulerAccessorBean imple
     @Override
     public void destroy() throws Exception
     {
-        DISPOSER.accept(this.getScheduler(), this.triggers);
+        final List<Object> jobDetailIds = DISPOSER.apply(this.getScheduler(), this.triggers);
+        // bindings may reference beans of the application context being disposed, so they must be discarded with the jobs
+        JobUtilities.clearJobDataBindings(this.getScheduler(), jobDetailIds);
     }
 
 }
@@ -20,13 +20,15 @@ import java.lang.reflect.Method;
 
 import org.alfresco.error.AlfrescoRuntimeException;
 import org.quartz.Job;
+import org.quartz.JobDetail;
 import org.quartz.utils.StringKeyDirtyFlagMap;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.scheduling.quartz.JobDetailFactoryBean;
 
 /**
  * @author Axel Faust
  */
-public class GenericJobDetailsFactoryBean extends JobDetailFactoryBean
+public class GenericJobDetailsFactoryBean extends JobDetailFactoryBean implements DisposableBean
 {
 
     private static final Class<? extends Job> EFFECTIVE_JOB_CLASS;
@@ -35,6 +37,8 @@ public class GenericJobDetailsFactoryBean extends JobDetailFactoryBean
 
     private static final String RELAY_JOB_CLASS_DATA_KEY;
 
+    private static final String CACHE_RELAY_INSTANCE_DATA_KEY;
+
     static
     {
         try
@@ -44,12 +48,14 @@ public class GenericJobDetailsFactoryBean extends JobDetailFactoryBean
             {
                 EFFECTIVE_JOB_CLASS = de.acosix.alfresco.utility.core.repo.quartz2.InvocationRelayJob.class;
                 RELAY_JOB_CLASS_DATA_KEY = de.acosix.alfresco.utility.core.repo.quartz2.InvocationRelayJob.RELAY_CLASS;
+                CACHE_RELAY_INSTANCE_DATA_KEY = de.acosix.alfresco.utility.core.repo.quartz2.InvocationRelayJob.CACHE_RELAY_INSTANCE;
                 JOB_DATA_PUT_METHOD = StringKeyDirtyFlagMap.class.getMethod("put", String.class, Object.class);
             }
             else
             {
                 EFFECTIVE_JOB_CLASS = de.acosix.alfresco.utility.core.repo.quartz1.InvocationRelayJob.class;
                 RELAY_JOB_CLASS_DATA_KEY = de.acosix.alfresco.utility.core.repo.quartz1.InvocationRelayJob.RELAY_CLASS;
+                CACHE_RELAY_INSTANCE_DATA_KEY = de.acosix.alfresco.utility.core.repo.quartz1.InvocationRelayJob.CACHE_RELAY_INSTANCE;
                 JOB_DATA_PUT_METHOD = StringKeyDirtyFlagMap.class.getMethod("put", Object.class, Object.class);
             }
         }
@@ -66,6 +72,8 @@ public class GenericJobDetailsFactoryBean extends JobDetailFactoryBean
     // due to erasure of generics, this might actually not extend Job if set via Spring using auto-conversion from String to class
     protected Class<? extends Job> jobClass;
 
+    protected boolean cacheRelayInstance;
+
     /**
      *
      * {@inheritDoc}
@@ -78,6 +86,7 @@ public class GenericJobDetailsFactoryBean extends JobDetailFactoryBean
             try
             {
                 JOB_DATA_PUT_METHOD.invoke(this.getJobDataMap(), RELAY_JOB_CLASS_DATA_KEY, this.jobClass);
+                JOB_DATA_PUT_METHOD.invoke(this.getJobDataMap(), CACHE_RELAY_INSTANCE_DATA_KEY, Boolean.valueOf(this.cacheRelayInstance));
             }
             catch (final InvocationTargetException | IllegalAccessException ex)
             {
@@ -89,6 +98,27 @@ public class GenericJobDetailsFactoryBean extends JobDetailFactoryBean
         super.afterPropertiesSet();
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void destroy()
+    {
+        final JobDetail jobDetail = this.getObject();
+        if (this.cacheRelayInstance && jobDetail != null)
+        {
+            // schedulers (e.g. a plain SchedulerAccessorBean) do not remove their jobs on shutdown - dispose of cached instances here
+            if (EFFECTIVE_JOB_CLASS == de.acosix.alfresco.utility.core.repo.quartz2.InvocationRelayJob.class)
+            {
+                de.acosix.alfresco.utility.core.repo.quartz2.InvocationRelayJob.disposeCachedRelay(jobDetail);
+            }
+            else if (EFFECTIVE_JOB_CLASS == de.acosix.alfresco.utility.core.repo.quartz1.InvocationRelayJob.class)
+            {
+                de.acosix.alfresco.utility.core.repo.quartz1.InvocationRelayJob.disposeCachedRelay(jobDetail);
+            }
+        }
+    }
+
     /**
      *
      * {@inheritDoc}
@@ -99,4 +129,18 @@ public class GenericJobDetailsFactoryBean extends JobDetailFactoryBean
         this.jobClass = jobClass;
         super.setJobClass(jobClass);
     }
+
+    /**
+     * Sets whether the instance of the {@link GenericJob generic job} should be cached and reused for subsequent executions of the job
+     * instead of being re-created for every execution. Cached instances are disposed when the job is removed from the scheduler via a
+     * {@link DisposableSchedulerAccessorBean} or when this factory bean is destroyed. Jobs enabling this must not hold state that is
+     * specific to a single execution, or reset such state at the start of each execution.
+     *
+     * @param cacheRelayInstance
+     *            {@code true} if the generic job instance should be cached, {@code false} otherwise
+     */
+    public void setCacheRelayInstance(final boolean cacheRelayInstance)
+    {
+        this.cacheRelayInstance = cacheRelayInstance;
+    }
 }
@@ -15,15 +15,26 @@
  */
 package de.acosix.alfresco.utility.repo.job;
 
-import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
 
 import org.alfresco.repo.lock.JobLockService;
 import org.alfresco.repo.lock.JobLockService.JobLockRefreshCallback;
 import org.alfresco.repo.lock.LockAcquisitionException;
 import org.alfresco.service.namespace.QName;
-import org.quartz.JobDataMap;
+import org.alfresco.util.Pair;
 import org.quartz.JobExecutionContext;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -37,55 +48,32 @@ public final class JobUtilities
 
     private static final Logger LOGGER = LoggerFactory.getLogger(JobUtilities.class);
 
-    // API change (class => interface) between Quartz 1.x and 2.x means we have to use reflection for various accesses
-    private static final Class<?> JOB_EXECUTION_CONTEXT_CLASS;
-
-    private static final Method JOB_EXECUTION_CONTEXT_GET_JOB_DETAIL;
-
-    private static final Method JOB_EXECUTION_CONTEXT_GET_MERGED_JOB_DATA_MAP;
-
-    private static final Method JOB_DETAIL_GET_FULL_NAME;
-
-    private static final Method JOB_DETAIL_GET_KEY;
+    // API change (class => interface) between Quartz 1.x and 2.x means we have to use version-specific accessors
+    private static final JobExecutionContextAccessor ACCESSOR;
 
     static
     {
-        Class<?> jobDetailClass;
         try
         {
-            JOB_EXECUTION_CONTEXT_CLASS = Class.forName("org.quartz.JobExecutionContext");
-            JOB_EXECUTION_CONTEXT_GET_JOB_DETAIL = JOB_EXECUTION_CONTEXT_CLASS.getMethod("getJobDetail");
-            JOB_EXECUTION_CONTEXT_GET_MERGED_JOB_DATA_MAP = JOB_EXECUTION_CONTEXT_CLASS.getMethod("getMergedJobDataMap");
-            jobDetailClass = Class.forName("org.quartz.JobDetail");
+            final Class<?> jobExecutionContextClass = Class.forName("org.quartz.JobExecutionContext");
+            if (jobExecutionContextClass.isInterface())
+            {
+                ACCESSOR = new de.acosix.alfresco.utility.core.repo.quartz2.JobExecutionContextAccessorImpl();
+            }
+            else
+            {
+                ACCESSOR = new de.acosix.alfresco.utility.core.repo.quartz1.JobExecutionContextAccessorImpl();
+            }
         }
-        catch (final Throwable e)
+        catch (final ClassNotFoundException e)
         {
             throw new RuntimeException("Error looking up known Quartz 1.x/2.x API reflectively to avoid incompatibilities");
         }
-
-        Method getFullName = null;
-        try
-        {
-            getFullName = jobDetailClass.getMethod("getFullName");
-        }
-        catch (final NoSuchMethodException ignore)
-        {
-            // NO-OP
-        }
-        JOB_DETAIL_GET_FULL_NAME = getFullName;
-
-        Method getKey = null;
-        try
-        {
-            getKey = jobDetailClass.getMethod("getKey");
-        }
-        catch (final NoSuchMethodException ignore)
-        {
-            // NO-OP
-        }
-        JOB_DETAIL_GET_KEY = getKey;
     }
 
+    // key in the scheduler context holding the job data bindings of jobs run by that scheduler
+    private static final String JOB_DATA_BINDINGS_KEY = JobUtilities.class.getName() + "-jobDataBindings";
+
     private static final int DEFAULT_LOCK_RETRIES = 15;
 
     private static final long DEFAULT_SINGLE_LOCK_WAIT = 1000;
@@ -169,7 +157,7 @@ public final class JobUtilities
     {
         verifyJobExecutionContext(context);
 
-        final JobDataMap jobDataMap = getJobDataMap(context);
+        final Map<?, ?> jobDataMap = ACCESSOR.getMergedJobDataMap(context);
         final Object object = jobDataMap.get(key);
 
         if (object == null && nonNull)
@@ -212,6 +200,93 @@ public final class JobUtilities
         return getJobDataValue((Object) context, key, valueClass, nonNull);
     }
 
+    /**
+     * Retrieves the typed binding of the data associated with a specific job. A binding is created only once per job, binding type and
+     * set of job data values, and reused for all subsequent executions of the same job as long as its job data remains unchanged or until
+     * the bindings of the job are {@link #clearJobDataBindings(Scheduler, Collection) cleared}. This allows jobs to look up and parse
+     * simple configuration values only once instead of on every execution.
+     *
+     * @param context
+     *            the {@link JobExecutionContext context of the job}
+     * @param bindingClass
+     *            the type of the binding
+     * @param binder
+     *            the function to create the binding from the job execution context - this function would typically use
+     *            {@link #getJobDataValue(Object, String, Class, boolean) getJobDataValue} to access the job data values
+     * @return the binding for the job
+     *
+     * @param <B>
+     *            the type of the binding
+     */
+    public static <B> B getJobDataBinding(final Object context, final Class<B> bindingClass, final Function<Object, B> binder)
+    {
+        verifyJobExecutionContext(context);
+
+        final Object jobDetailId = ACCESSOR.getJobDetailId(context);
+        final Map<?, ?> jobDataMap = ACCESSOR.getMergedJobDataMap(context);
+        final ConcurrentMap<Pair<Object, Class<?>>, JobDataBinding> jobDataBindings = getJobDataBindings(
+                (Scheduler) ACCESSOR.getScheduler(context), true);
+
+        final JobDataBinding binding = jobDataBindings.compute(new Pair<>(jobDetailId, bindingClass), (k, existingBinding) -> {
+            final JobDataBinding effectiveBinding;
+            if (existingBinding != null && existingBinding.isBoundTo(jobDataMap))
+            {
+                effectiveBinding = existingBinding;
+            }
+            else
+            {
+                LOGGER.debug("{} job data binding {} for job {}", existingBinding != null ? "Re-creating" : "Creating", bindingClass,
+                        jobDetailId);
+                effectiveBinding = new JobDataBinding(jobDataMap, binder.apply(context));
+            }
+            return effectiveBinding;
+        });
+        return bindingClass.cast(binding.getBinding());
+    }
+
+    /**
+     * Retrieves the typed binding of the data associated with a specific job. A binding is created only once per job, binding type and
+     * set of job data values, and reused for all subsequent executions of the same job as long as its job data remains unchanged or until
+     * the bindings of the job are {@link #clearJobDataBindings(Scheduler, Collection) cleared}. This allows jobs to look up and parse
+     * simple configuration values only once instead of on every execution.
+     *
+     * @param context
+     *            the {@link JobExecutionContext context of the job}
+     * @param bindingClass
+     *            the type of the binding
+     * @param binder
+     *            the function to create the binding from the job execution context - this function would typically use
+     *            {@link #getJobDataValue(Object, String, Class, boolean) getJobDataValue} to access the job data values
+     * @return the binding for the job
+     *
+     * @param <B>
+     *            the type of the binding
+     */
+    public static <B> B getJobDataBinding(final JobExecutionContext context, final Class<B> bindingClass,
+            final Function<Object, B> binder)
+    {
+        return getJobDataBinding((Object) context, bindingClass, binder);
+    }
+
+    /**
+     * Clears the cached {@link #getJobDataBinding(Object, Class, Function) job data bindings} of specific jobs, e.g. when jobs are removed
+     * from the scheduler as part of the shutdown of the application context defining them.
+     *
+     * @param scheduler
+     *            the scheduler running the jobs
+     * @param jobDetailIds
+     *            the identifiers of the jobs for which to clear bindings - full name of the job detail for Quartz 1.x and the job key for
+     *            Quartz 2.x
+     */
+    public static void clearJobDataBindings(final Scheduler scheduler, final Collection<?> jobDetailIds)
+    {
+        final ConcurrentMap<Pair<Object, Class<?>>, JobDataBinding> jobDataBindings = getJobDataBindings(scheduler, false);
+        if (jobDataBindings != null)
+        {
+            jobDataBindings.keySet().removeIf(key -> jobDetailIds.contains(key.getFirst()));
+        }
+    }
+
     /**
      * Executes an operation within the context of a job lock, preventing concurrent execution by other processes on this node or any other
      * node within a Repository cluster. The operation is itself responsible to refresh the acquired lock if necessary to ensure it does not
@@ -518,6 +593,197 @@ public final class JobUtilities
         runWithJobLock((Object) context, lockQName, lockTTL, retryWait, retryCount, operation);
     }
 
+    /**
+     * Executes a partitioned operation within the context of job locks, allowing concurrent execution of different partitions by processes
+     * on this node and any other node within a Repository cluster. Each partition is guarded by its own job lock, derived from the
+     * specified lock name by appending the partition index. This operation claims and processes as many partitions as are not currently
+     * locked by another process, starting at a random partition to reduce contention. Claimed partition locks are automatically refreshed
+     * and only released when all partitions have been checked, so that a partition is not processed again by another process while this
+     * operation is still running.
+     *
+     * @param context
+     *            the {@link JobExecutionContext context of the job}
+     * @param lockQName
+     *            the qualified name from which to derive the names of the partition locks
+     * @param partitionCount
+     *            the number of partitions
+     * @param operation
+     *            the callback to the operation that must run for each partition within the context of the corresponding job lock
+     * @return the number of partitions processed by this invocation
+     */
+    public static int runWithPartitionedJobLocks(final Object context, final QName lockQName, final int partitionCount,
+            final PartitionedOperationWithJobLock operation)
+    {
+        return runWithPartitionedJobLocks(context, lockQName, partitionCount, REFRESHING_LOCK_TTL, operation);
+    }
+
+    /**
+     * Executes a partitioned operation within the context of job locks, allowing concurrent execution of different partitions by processes
+     * on this node and any other node within a Repository cluster. Each partition is guarded by its own job lock, derived from the
+     * specified lock name by appending the partition index. This operation claims and processes as many partitions as are not currently
+     * locked by another process, starting at a random partition to reduce contention. Claimed partition locks are automatically refreshed
+     * and only released when all partitions have been checked, so that a partition is not processed again by another process while this
+     * operation is still running.
+     *
+     * @param context
+     *            the {@link JobExecutionContext context of the job}
+     * @param lockQName
+     *            the qualified name from which to derive the names of the partition locks
+     * @param partitionCount
+     *            the number of partitions
+     * @param operation
+     *            the callback to the operation that must run for each partition within the context of the corresponding job lock
+     * @return the number of partitions processed by this invocation
+     */
+    public static int runWithPartitionedJobLocks(final JobExecutionContext context, final QName lockQName, final int partitionCount,
+            final PartitionedOperationWithJobLock operation)
+    {
+        return runWithPartitionedJobLocks((Object) context, lockQName, partitionCount, REFRESHING_LOCK_TTL, operation);
+    }
+
+    /**
+     * Executes a partitioned operation within the context of job locks, allowing concurrent execution of different partitions by processes
+     * on this node and any other node within a Repository cluster. Each partition is guarded by its own job lock, derived from the
+     * specified lock name by appending the partition index. This operation claims and processes as many partitions as are not currently
+     * locked by another process, starting at a random partition to reduce contention. Claimed partition locks are automatically refreshed
+     * and only released when all partitions have been checked, so that a partition is not processed again by another process while this
+     * operation is still running.
+     *
+     * @param context
+     *            the {@link JobExecutionContext context of the job}
+     * @param lockQName
+     *            the qualified name from which to derive the names of the partition locks
+     * @param partitionCount
+     *            the number of partitions
+     * @param lockTTL
+     *            the time-to-live for the partition locks
+     * @param operation
+     *            the callback to the operation that must run for each partition within the context of the corresponding job lock
+     * @return the number of partitions processed by this invocation
+     */
+    public static int runWithPartitionedJobLocks(final Object context, final QName lockQName, final int partitionCount, final long lockTTL,
+            final PartitionedOperationWithJobLock operation)
+    {
+        verifyJobExecutionContext(context);
+        if (partitionCount < 1)
+        {
+            throw new IllegalArgumentException("'partitionCount' must be a positive integer");
+        }
+
+        final JobLockService jobLockService = getJobDataValue(context, "jobLockService", JobLockService.class);
+        final List<Pair<QName, String>> heldLocks = new ArrayList<>();
+        final List<AtomicBoolean> activeFlags = new ArrayList<>();
+        int processed = 0;
+
+        try
+        {
+            final int startPartition = ThreadLocalRandom.current().nextInt(partitionCount);
+            for (int offset = 0; offset < partitionCount; offset++)
+            {
+                final int partition = (startPartition + offset) % partitionCount;
+                final QName partitionLockQName = QName.createQName(lockQName.getNamespaceURI(), lockQName.getLocalName() + "-" + partition);
+
+                final String lockToken;
+                try
+                {
+                    // single attempt - any partition currently locked is being processed by another process
+                    lockToken = jobLockService.getLock(partitionLockQName, lockTTL, 0, 0);
+                }
+                catch (final LockAcquisitionException laex)
+                {
+                    LOGGER.debug("Partition lock {} for job {} is held by another process", partitionLockQName,
+                            new JobExecutionContextToStringWrapper(context));
+                    continue;
+                }
+
+                LOGGER.debug("Obtained partition lock {} (token {}) for job {}", partitionLockQName, lockToken,
+                        new JobExecutionContextToStringWrapper(context));
+                heldLocks.add(new Pair<>(partitionLockQName, lockToken));
+
+                final AtomicBoolean active = new AtomicBoolean(true);
+                final AtomicBoolean released = new AtomicBoolean();
+                activeFlags.add(active);
+                jobLockService.refreshLock(lockToken, partitionLockQName, lockTTL, new JobLockRefreshCallback()
+                {
+
+                    /**
+                     *
+                     * {@inheritDoc}
+                     */
+                    @Override
+                    public void lockReleased()
+                    {
+                        released.set(true);
+                    }
+
+                    /**
+                     *
+                     * {@inheritDoc}
+                     */
+                    @Override
+                    public boolean isActive()
+                    {
+                        return active.get();
+                    }
+                });
+
+                operation.withJobLock(partition, () -> {
+                    return released.get();
+                });
+                processed++;
+            }
+        }
+        finally
+        {
+            for (int idx = 0; idx < heldLocks.size(); idx++)
+            {
+                final Pair<QName, String> heldLock = heldLocks.get(idx);
+                final boolean releasedProperly = jobLockService.releaseLockVerify(heldLock.getSecond(), heldLock.getFirst());
+                if (!releasedProperly)
+                {
+                    LOGGER.error(
+                            "Token {} for partition lock {} has expired and was claimed by another process while job {} was running - this should not have happened due to automatic refresh handling",
+                            heldLock.getSecond(), heldLock.getFirst(), new JobExecutionContextToStringWrapper(context));
+                }
+                else
+                {
+                    LOGGER.debug("Released partition lock {} (token {})", heldLock.getFirst(), heldLock.getSecond());
+                }
+                activeFlags.get(idx).set(false);
+            }
+        }
+
+        LOGGER.debug("Processed {} of {} partitions for job {}", processed, partitionCount,
+                new JobExecutionContextToStringWrapper(context));
+        return processed;
+    }
+
+    /**
+     * Executes a partitioned operation within the context of job locks, allowing concurrent execution of different partitions by processes
+     * on this node and any other node within a Repository cluster. Each partition is guarded by its own job lock, derived from the
+     * specified lock name by appending the partition index. This operation claims and processes as many partitions as are not currently
+     * locked by another process, starting at a random partition to reduce contention. Claimed partition locks are automatically refreshed
+     * and only released when all partitions have been checked, so that a partition is not processed again by another process while this
+     * operation is still running.
+     *
+     * @param context
+     *            the {@link JobExecutionContext context of the job}
+     * @param lockQName
+     *            the qualified name from which to derive the names of the partition locks
+     * @param partitionCount
+     *            the number of partitions
+     * @param lockTTL
+     *            the time-to-live for the partition locks
+     * @param operation
+     *            the callback to the operation that must run for each partition within the context of the corresponding job lock
+     * @return the number of partitions processed by this invocation
+     */
+    public static int runWithPartitionedJobLocks(final JobExecutionContext context, final QName lockQName, final int partitionCount,
+            final long lockTTL, final PartitionedOperationWithJobLock operation)
+    {
+        return runWithPartitionedJobLocks((Object) context, lockQName, partitionCount, lockTTL, operation);
+    }
+
     /**
      * This functional interface represents job operations that may manually trigger a refresh of the acquired lock when necessary.
      *
@@ -575,6 +841,28 @@ public final class JobUtilities
         void withJobLock(LockReleasedCheck releaseCheck);
     }
 
+    /**
+     * This functional interface represents partitioned job operations that use automatically refreshing locks per partition.
+     *
+     * @author Axel Faust
+     */
+    @FunctionalInterface
+    public static interface PartitionedOperationWithJobLock
+    {
+
+        /**
+         * Continues execution of the job for a specific partition in the context of the acquired job lock for that partition.
+         *
+         * @param partition
+         *            the zero-based index of the partition to process
+         * @param releaseCheck
+         *            the callback to check if the lock for the partition has been {@link LockReleasedCheck#isLockReleased() released}
+         *            while the operation was running - the operation should regularly check the result of this callback and immediately
+         *            cease execution in case the lock was released
+         */
+        void withJobLock(int partition, LockReleasedCheck releaseCheck);
+    }
+
     /**
      * This functional interface provides the means to check if a job lock has been released while the
      * {@link ManualRefreshOperationWithJobLock job operation} was running.
@@ -622,39 +910,74 @@ public final class JobUtilities
         }
     }
 
-    private static void verifyJobExecutionContext(final Object jobExecutionContext)
+    @SuppressWarnings("unchecked")
+    private static ConcurrentMap<Pair<Object, Class<?>>, JobDataBinding> getJobDataBindings(final Scheduler scheduler,
+            final boolean create)
     {
-        if (!JOB_EXECUTION_CONTEXT_CLASS.isInstance(jobExecutionContext))
+        try
         {
-            throw new IllegalArgumentException("'context' must be an instance of org.quartz.JobExecutionContext");
+            // generic map access as the type hierarchy of the scheduler context differs between Quartz 1.x and 2.x
+            final Map<Object, Object> schedulerContext = (Map<Object, Object>) scheduler.getContext();
+            synchronized (schedulerContext)
+            {
+                Object jobDataBindings = schedulerContext.get(JOB_DATA_BINDINGS_KEY);
+                if (jobDataBindings == null && create)
+                {
+                    jobDataBindings = new ConcurrentHashMap<>();
+                    schedulerContext.put(JOB_DATA_BINDINGS_KEY, jobDataBindings);
+                }
+                return (ConcurrentMap<Pair<Object, Class<?>>, JobDataBinding>) jobDataBindings;
+            }
+        }
+        catch (final SchedulerException e)
+        {
+            throw new IllegalStateException("Failed to access scheduler context", e);
         }
     }
 
-    private static JobDataMap getJobDataMap(final Object jobExecutionContext)
+    private static void verifyJobExecutionContext(final Object jobExecutionContext)
     {
-        try
-        {
-            final Object jobDataMap = JOB_EXECUTION_CONTEXT_GET_MERGED_JOB_DATA_MAP.invoke(jobExecutionContext);
-            return (JobDataMap) jobDataMap;
-        }
-        catch (final Throwable e)
+        if (!ACCESSOR.isJobExecutionContext(jobExecutionContext))
         {
-            throw new RuntimeException("Unexpected error calling known Quartz 1.x/2.x API reflectively to avoid API incompatibility");
+            throw new IllegalArgumentException("'context' must be an instance of org.quartz.JobExecutionContext");
         }
     }
 
     private static Object getJobDetailId(final Object jobExecutionContext)
     {
-        try
+        return ACCESSOR.getJobDetailId(jobExecutionContext);
+    }
+
+    /**
+     * Instances of this class hold a job data binding together with the job data values it was created from.
+     *
+     * @author Axel Faust
+     */
+    private static class JobDataBinding
+    {
+
+        private final Map<?, ?> jobData;
+
+        private final Object binding;
+
+        private JobDataBinding(final Map<?, ?> jobData, final Object binding)
         {
-            final Object jobDetail = JOB_EXECUTION_CONTEXT_GET_JOB_DETAIL.invoke(jobExecutionContext);
-            final Object id = JOB_DETAIL_GET_FULL_NAME != null ? JOB_DETAIL_GET_FULL_NAME.invoke(jobDetail)
-                    : JOB_DETAIL_GET_KEY.invoke(jobDetail);
-            return id;
+            this.jobData = new HashMap<>(jobData);
+            this.binding = binding;
         }
-        catch (final Throwable e)
+
+        private Object getBinding()
+        {
+            return this.binding;
+        }
+
+        private boolean isBoundTo(final Map<?, ?> jobData)
         {
-            throw new RuntimeException("Unexpected error calling known Quartz 1.x/2.x API reflectively to avoid API incompatibility");
+            // values are typically the same instances for each execution, so identity check avoids costly equals
+            return this.jobData.size() == jobData.size() && this.jobData.entrySet().stream().allMatch(e -> {
+                final Object value = jobData.get(e.getKey());
+                return (value == e.getValue() || Objects.equals(value, e.getValue())) && (value != null || jobData.containsKey(e.getKey()));
+            });
         }
     }
 }
@@ -19,6 +19,7 @@ import java.io.IOException;
 import java.lang.reflect.Field;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
@@ -56,6 +57,15 @@ public class SubsystemChildApplicationContextManager extends DefaultChildApplica
     // duplicated since Alfresco 5.x does not provide a protected getter in base class
     protected Properties encryptedPropertyDefaults;
 
+    /** Flag to start instances of the chain concurrently. */
+    protected boolean parallelStartup;
+
+    /** The maximum number of threads to use for starting instances concurrently. */
+    protected int parallelStartupThreads = 4;
+
+    /** The startup durations (in milliseconds) of the instances of the chain, recorded during the last start. */
+    protected volatile Map<String, Long> instanceStartupDurations = Collections.emptyMap();
+
     /**
      * {@inheritDoc}
      */
@@ -76,6 +86,38 @@ public class SubsystemChildApplicationContextManager extends DefaultChildApplica
         this.defaultChain = defaultChain;
     }
 
+    /**
+     * Sets whether the instances of the chain should be started concurrently instead of sequentially. This must only be enabled if the
+     * instances are independent of each other and do not access this manager during their startup. The order of the chain for any lookups
+     * is not affected by this setting.
+     *
+     * @param parallelStartup
+     *            {@code true} if instances should be started concurrently, {@code false} otherwise
+     */
+    public void setParallelStartup(final boolean parallelStartup)
+    {
+        this.parallelStartup = parallelStartup;
+    }
+
+    /**
+     * @param parallelStartupThreads
+     *            the parallelStartupThreads to set
+     */
+    public void setParallelStartupThreads(final int parallelStartupThreads)
+    {
+        this.parallelStartupThreads = parallelStartupThreads;
+    }
+
+    /**
+     * Retrieves the startup durations of the instances of the chain, recorded during the last start of this subsystem.
+     *
+     * @return the startup durations in milliseconds of all instances started successfully, in the order of the chain
+     */
+    public Map<String, Long> getInstanceStartupDurations()
+    {
+        return this.instanceStartupDurations;
+    }
+
     /**
      *
      * {@inheritDoc}
@@ -290,6 +332,19 @@ public class SubsystemChildApplicationContextManager extends DefaultChildApplica
             }
         }
 
+        /**
+         *
+         * {@inheritDoc}
+         */
+        @Override
+        public void start()
+        {
+            final SubsystemChildApplicationContextManager manager = SubsystemChildApplicationContextManager.this;
+            final int threads = manager.parallelStartup ? manager.parallelStartupThreads : 1;
+            manager.instanceStartupDurations = SubsystemStartupUtilities.startInstances(manager.getCategory(),
+                    new ArrayList<>(this.instanceIds), this::getApplicationContext, threads);
+        }
+
         /**
          *
          * {@inheritDoc}
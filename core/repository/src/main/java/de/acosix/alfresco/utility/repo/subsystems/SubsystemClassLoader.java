@@ -15,29 +15,52 @@
  */
 package de.acosix.alfresco.utility.repo.subsystems;
 
+import java.io.File;
 import java.io.IOException;
+import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Enumeration;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Stream;
 
 import org.alfresco.util.ParameterCheck;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
+ * Instances of this class load classes and resources child-first from the URLs of a subsystem. In order to avoid scanning all subsystem
+ * URLs for classes and resources which are not contained in any of them, e.g. all classes of Alfresco itself, an index of the packages /
+ * folders contained in the URLs is built on construction and any lookup for a package / folder not contained in the index is delegated
+ * directly to the parent class loader.
+ *
  * @author Axel Faust
  */
 public class SubsystemClassLoader extends URLClassLoader
 {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(SubsystemClassLoader.class);
+
     protected final ClassLoader parentLoader;
 
+    // null if the index could not be built for all URLs
+    protected final Set<String> packageIndex;
+
     public SubsystemClassLoader(final ClassLoader parentLoader, final List<URL> urls)
     {
         // parentLoader is not passed to the super class so it does not delegate-first during class loading
         super(urls.toArray(new URL[0]), null);
         this.parentLoader = parentLoader;
+        this.packageIndex = buildPackageIndex(urls);
     }
 
     /**
@@ -46,6 +69,13 @@ public class SubsystemClassLoader extends URLClassLoader
     @Override
     public Class<?> loadClass(final String name) throws ClassNotFoundException
     {
+        final int lastDot = name.lastIndexOf('.');
+        final String packagePath = lastDot != -1 ? name.substring(0, lastDot).replace('.', '/') : "";
+        if (!this.isIndexed(packagePath))
+        {
+            return this.parentLoader.loadClass(name);
+        }
+
         Class<?> c = null;
         try
         {
@@ -64,6 +94,11 @@ public class SubsystemClassLoader extends URLClassLoader
     @Override
     public URL getResource(final String name)
     {
+        if (!this.isIndexed(getFolderPath(name)))
+        {
+            return this.parentLoader.getResource(name);
+        }
+
         URL r = super.getResource(name);
         if (r == null)
         {
@@ -78,11 +113,84 @@ public class SubsystemClassLoader extends URLClassLoader
     @Override
     public Enumeration<URL> getResources(final String name) throws IOException
     {
+        if (!this.isIndexed(getFolderPath(name)))
+        {
+            return this.parentLoader.getResources(name);
+        }
+
         final Enumeration<URL> resourcesActual = super.getResources(name);
         final Enumeration<URL> resourcesParent = this.parentLoader.getResources(name);
         return new CompoundURLEnumeration(Arrays.asList(resourcesParent, resourcesActual));
     }
 
+    protected boolean isIndexed(final String packagePath)
+    {
+        return this.packageIndex == null || this.packageIndex.contains(packagePath);
+    }
+
+    protected static String getFolderPath(final String resourceName)
+    {
+        final String effectiveName = resourceName.startsWith("/") ? resourceName.substring(1) : resourceName;
+        final int lastSlash = effectiveName.lastIndexOf('/');
+        return lastSlash != -1 ? effectiveName.substring(0, lastSlash) : "";
+    }
+
+    protected static Set<String> buildPackageIndex(final List<URL> urls)
+    {
+        final Set<String> packageIndex = new HashSet<>();
+        for (final URL url : urls)
+        {
+            try
+            {
+                final File file = new File(url.toURI());
+                if (file.isDirectory())
+                {
+                    final Path root = file.toPath();
+                    try (Stream<Path> paths = Files.walk(root))
+                    {
+                        paths.filter(Files::isRegularFile).forEach(path -> {
+                            final Path relativeParent = root.relativize(path).getParent();
+                            addToIndex(packageIndex,
+                                    relativeParent != null ? relativeParent.toString().replace(File.separatorChar, '/') : "");
+                        });
+                    }
+                }
+                else if (file.isFile())
+                {
+                    try (JarFile jarFile = new JarFile(file))
+                    {
+                        jarFile.stream().filter(entry -> !entry.isDirectory()).map(JarEntry::getName)
+                                .forEach(name -> addToIndex(packageIndex, getFolderPath(name)));
+                    }
+                }
+                else
+                {
+                    LOGGER.debug("Unable to index {} - delegating all lookups via URLs", url);
+                    return null;
+                }
+            }
+            catch (final IOException | URISyntaxException | IllegalArgumentException ex)
+            {
+                LOGGER.debug("Failed to index {} - delegating all lookups via URLs", url, ex);
+                return null;
+            }
+        }
+
+        LOGGER.debug("Indexed {} packages / folders in {}", packageIndex.size(), urls);
+        return Collections.unmodifiableSet(packageIndex);
+    }
+
+    protected static void addToIndex(final Set<String> packageIndex, final String folderPath)
+    {
+        // ancestor folders need to be indexed as well to support lookups of folders themselves, e.g. in classpath scans
+        String path = folderPath;
+        while (packageIndex.add(path) && !path.isEmpty())
+        {
+            final int lastSlash = path.lastIndexOf('/');
+            path = lastSlash != -1 ? path.substring(0, lastSlash) : "";
+        }
+    }
+
     protected static class CompoundURLEnumeration implements Enumeration<URL>
     {
 
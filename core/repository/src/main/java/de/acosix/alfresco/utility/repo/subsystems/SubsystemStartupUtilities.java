@@ -0,0 +1,214 @@
+/*
+ * Copyright 2016 - 2026 Acosix GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.acosix.alfresco.utility.repo.subsystems;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import org.alfresco.error.AlfrescoRuntimeException;
+import org.alfresco.repo.security.authentication.AuthenticationUtil;
+import org.alfresco.repo.security.authentication.AuthenticationUtil.RunAsWork;
+import org.alfresco.repo.tenant.TenantUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * This class provides utility operations for starting the instances of a multi-instance subsystem in a consistent way, either sequentially
+ * or concurrently.
+ *
+ * @author Axel Faust
+ */
+public final class SubsystemStartupUtilities
+{
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SubsystemStartupUtilities.class);
+
+    private SubsystemStartupUtilities()
+    {
+        // NO-OP
+    }
+
+    /**
+     * Starts the instances of a subsystem. Startup is considered to have failed only if not a single instance could be started. When
+     * started sequentially, the error of the last failed instance in the chain is propagated. When started concurrently, the error of the
+     * first failed instance in the chain is propagated, with the errors of any other failed instances added as suppressed exceptions.
+     *
+     * @param category
+     *            the category of the subsystem - used for logging and naming threads
+     * @param instanceIds
+     *            the IDs of the instances to start in the order of the chain
+     * @param starter
+     *            the callback to start a specific instance
+     * @param parallelThreads
+     *            the maximum number of threads to use for starting instances concurrently - a value of {@code 1} or lower will start all
+     *            instances sequentially in the current thread
+     * @return the startup durations in milliseconds of all instances started successfully, in the order of the chain
+     */
+    public static Map<String, Long> startInstances(final String category, final List<String> instanceIds, final Consumer<String> starter,
+            final int parallelThreads)
+    {
+        final Map<String, Long> startupDurations;
+        if (parallelThreads > 1 && instanceIds.size() > 1)
+        {
+            startupDurations = startInstancesConcurrently(category, instanceIds, starter, Math.min(parallelThreads, instanceIds.size()));
+        }
+        else
+        {
+            startupDurations = startInstancesSequentially(category, instanceIds, starter);
+        }
+        return Collections.unmodifiableMap(startupDurations);
+    }
+
+    private static Map<String, Long> startInstancesSequentially(final String category, final List<String> instanceIds,
+            final Consumer<String> starter)
+    {
+        final Map<String, Long> startupDurations = new LinkedHashMap<>();
+        RuntimeException lastError = null;
+        for (final String instanceId : instanceIds)
+        {
+            try
+            {
+                final long duration = startInstance(category, instanceId, starter);
+                startupDurations.put(instanceId, Long.valueOf(duration));
+            }
+            catch (final RuntimeException e)
+            {
+                LOGGER.debug("Failed to start instance {} of subsystem {}", instanceId, category, e);
+                lastError = e;
+            }
+        }
+
+        if (lastError != null && startupDurations.isEmpty())
+        {
+            throw lastError;
+        }
+        return startupDurations;
+    }
+
+    private static Map<String, Long> startInstancesConcurrently(final String category, final List<String> instanceIds,
+            final Consumer<String> starter, final int threads)
+    {
+        // worker threads need to run with the same context as the calling thread, as instances may access tenant-aware services on startup
+        final ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+        final String fullyAuthenticatedUser = AuthenticationUtil.getFullyAuthenticatedUser();
+        final String runAsUser = AuthenticationUtil.getRunAsUser();
+        final String tenantDomain = TenantUtil.getCurrentDomain();
+        final AtomicInteger threadCounter = new AtomicInteger();
+        final ThreadFactory threadFactory = runnable -> {
+            final Thread thread = new Thread(runnable, category + "-startup-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setContextClassLoader(contextClassLoader);
+            return thread;
+        };
+
+        final ExecutorService executor = Executors.newFixedThreadPool(threads, threadFactory);
+        try
+        {
+            final List<Future<Long>> futures = new ArrayList<>(instanceIds.size());
+            for (final String instanceId : instanceIds)
+            {
+                futures.add(executor.submit(() -> startInstanceInContext(category, instanceId, starter, fullyAuthenticatedUser,
+                        runAsUser, tenantDomain)));
+            }
+
+            // evaluate results in chain order to report errors deterministically, independent of completion order
+            final Map<String, Long> startupDurations = new LinkedHashMap<>();
+            final Map<String, RuntimeException> errors = new LinkedHashMap<>();
+            RuntimeException firstError = null;
+            for (int idx = 0; idx < instanceIds.size(); idx++)
+            {
+                final String instanceId = instanceIds.get(idx);
+                try
+                {
+                    startupDurations.put(instanceId, futures.get(idx).get());
+                }
+                catch (final ExecutionException e)
+                {
+                    final Throwable cause = e.getCause();
+                    final RuntimeException error = cause instanceof RuntimeException ? (RuntimeException) cause
+                            : new AlfrescoRuntimeException("Failed to start instance " + instanceId + " of subsystem " + category, cause);
+                    errors.put(instanceId, error);
+                    if (firstError == null)
+                    {
+                        firstError = error;
+                    }
+                    else
+                    {
+                        firstError.addSuppressed(error);
+                    }
+                }
+                catch (final InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                    throw new AlfrescoRuntimeException("Interrupted while waiting for instances of subsystem " + category + " to start", e);
+                }
+            }
+
+            if (firstError != null && startupDurations.isEmpty())
+            {
+                throw firstError;
+            }
+
+            // errors are not propagated if at least one instance started - make sure they are not lost
+            errors.forEach((instanceId, error) -> LOGGER.error("Failed to start instance {} of subsystem {}", instanceId, category, error));
+            return startupDurations;
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    private static Long startInstanceInContext(final String category, final String instanceId, final Consumer<String> starter,
+            final String fullyAuthenticatedUser, final String runAsUser, final String tenantDomain) throws Exception
+    {
+        try
+        {
+            if (fullyAuthenticatedUser != null)
+            {
+                AuthenticationUtil.setFullyAuthenticatedUser(fullyAuthenticatedUser);
+            }
+
+            final RunAsWork<Long> work = () -> TenantUtil.runAsTenant(() -> Long.valueOf(startInstance(category, instanceId, starter)),
+                    tenantDomain);
+            return runAsUser != null ? AuthenticationUtil.runAs(work, runAsUser) : work.doWork();
+        }
+        finally
+        {
+            // pool threads are re-used for multiple instances - never leak the context into the next task
+            AuthenticationUtil.clearCurrentSecurityContext();
+        }
+    }
+
+    private static long startInstance(final String category, final String instanceId, final Consumer<String> starter)
+    {
+        final long start = System.currentTimeMillis();
+        starter.accept(instanceId);
+        final long duration = System.currentTimeMillis() - start;
+        LOGGER.debug("Started instance {} of subsystem {} in {} ms", instanceId, category, duration);
+        return duration;
+    }
+}
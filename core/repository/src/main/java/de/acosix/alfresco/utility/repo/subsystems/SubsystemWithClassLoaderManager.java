@@ -18,6 +18,7 @@ package de.acosix.alfresco.utility.repo.subsystems;
 import java.io.IOException;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Map;
 import java.util.Properties;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -47,6 +48,10 @@ public class SubsystemWithClassLoaderManager extends AbstractPropertyBackedBean
     // field in super is inaccessible and getter is only introduced in 5.2
     protected Properties encryptedPropertyDefaults;
 
+    protected boolean parallelStartup;
+
+    protected int parallelStartupThreads = 4;
+
     {
         this.setInstancePath(Collections.singletonList("manager"));
     }
@@ -87,6 +92,47 @@ public class SubsystemWithClassLoaderManager extends AbstractPropertyBackedBean
         this.persister = persister;
     }
 
+    /**
+     * Sets whether the instances of the chain should be started concurrently instead of sequentially. This must only be enabled if the
+     * instances are independent of each other and do not access this manager during their startup. The order of the chain for any lookups
+     * is not affected by this setting.
+     *
+     * @param parallelStartup
+     *            {@code true} if instances should be started concurrently, {@code false} otherwise
+     */
+    public void setParallelStartup(final boolean parallelStartup)
+    {
+        this.parallelStartup = parallelStartup;
+    }
+
+    /**
+     * @param parallelStartupThreads
+     *            the parallelStartupThreads to set
+     */
+    public void setParallelStartupThreads(final int parallelStartupThreads)
+    {
+        this.parallelStartupThreads = parallelStartupThreads;
+    }
+
+    /**
+     * Retrieves the startup durations of the instances of the chain, recorded during the last start of this subsystem.
+     *
+     * @return the startup durations in milliseconds of all instances started successfully, in the order of the chain
+     */
+    public Map<String, Long> getInstanceStartupDurations()
+    {
+        this.lock.readLock().lock();
+        try
+        {
+            final SubsystemWithClassLoaderManagerState state = (SubsystemWithClassLoaderManagerState) this.getState(false);
+            return state != null ? state.getInstanceStartupDurations() : Collections.emptyMap();
+        }
+        finally
+        {
+            this.lock.readLock().unlock();
+        }
+    }
+
     /**
      *
      * {@inheritDoc}
@@ -182,6 +228,8 @@ public class SubsystemWithClassLoaderManager extends AbstractPropertyBackedBean
         };
         final SubsystemWithClassLoaderManagerState state = new SubsystemWithClassLoaderManagerState(this.defaultChain, this.defaultTypeName,
                 initialiser);
+        state.setCategory(this.getCategory());
+        state.setStartupThreads(this.parallelStartup ? this.parallelStartupThreads : 1);
         return state;
     }
 
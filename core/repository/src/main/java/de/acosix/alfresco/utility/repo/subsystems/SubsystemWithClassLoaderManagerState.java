@@ -71,6 +71,12 @@ public class SubsystemWithClassLoaderManagerState implements PropertyBackedBeanS
 
     protected final ReentrantReadWriteLock lock = new ReentrantReadWriteLock(true);
 
+    protected String category;
+
+    protected int startupThreads = 1;
+
+    protected volatile Map<String, Long> instanceStartupDurations = Collections.emptyMap();
+
     public SubsystemWithClassLoaderManagerState(final String defaultChain, final String defaultTypeName,
             final SubsystemWithClassLoaderFactoryInitialiser initialiser)
     {
@@ -99,6 +105,39 @@ public class SubsystemWithClassLoaderManagerState implements PropertyBackedBeanS
         }
     }
 
+    /**
+     * Sets the category of the subsystem, used for logging and naming threads.
+     *
+     * @param category
+     *            the category to set
+     */
+    public void setCategory(final String category)
+    {
+        this.category = category;
+    }
+
+    /**
+     * Sets the maximum number of threads to use for starting instances concurrently. A value of {@code 1} or lower will start instances
+     * sequentially.
+     *
+     * @param startupThreads
+     *            the startupThreads to set
+     */
+    public void setStartupThreads(final int startupThreads)
+    {
+        this.startupThreads = startupThreads;
+    }
+
+    /**
+     * Retrieves the startup durations of the instances of the chain, recorded during the last start.
+     *
+     * @return the startup durations in milliseconds of all instances started successfully, in the order of the chain
+     */
+    public Map<String, Long> getInstanceStartupDurations()
+    {
+        return this.instanceStartupDurations;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -189,26 +228,8 @@ public class SubsystemWithClassLoaderManagerState implements PropertyBackedBeanS
         this.lock.writeLock().lock();
         try
         {
-            boolean oneSuccess = false;
-            RuntimeException lastError = null;
-            for (final String instance : this.getInstanceIds())
-            {
-                try
-                {
-                    final SubsystemWithClassLoaderFactory subsystemContextFactory = this.subsystems.get(instance);
-                    subsystemContextFactory.start();
-                    oneSuccess = true;
-                }
-                catch (final RuntimeException e)
-                {
-                    lastError = e;
-                }
-            }
-
-            if (lastError != null && !oneSuccess)
-            {
-                throw lastError;
-            }
+            this.instanceStartupDurations = SubsystemStartupUtilities.startInstances(this.category, new ArrayList<>(this.instanceIds),
+                    instance -> this.subsystems.get(instance).start(), this.startupThreads);
         }
         finally
         {
@@ -17,16 +17,22 @@ package de.acosix.alfresco.utility.repo.subsystems;
 
 import java.io.File;
 import java.io.IOException;
+import java.net.MalformedURLException;
 import java.net.URL;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Pattern;
 
 import org.alfresco.config.JndiPropertiesFactoryBean;
@@ -58,6 +64,9 @@ public class SubsystemWithClassLoaderState implements PropertyBackedBeanState, S
 
     private static final Logger LOGGER = LoggerFactory.getLogger(SubsystemWithClassLoaderState.class);
 
+    // resolution results are shared between instances / restarts of subsystems with the same parent context
+    private static final Map<ApplicationContext, Map<String, ResolvedURLs>> RESOLVED_URLS = new WeakHashMap<>();
+
     protected final ApplicationContext parentContext;
 
     protected final Properties globalProperties;
@@ -504,62 +513,151 @@ public class SubsystemWithClassLoaderState implements PropertyBackedBeanState, S
 
     protected List<URL> resolveClassesDirectoryURLs(final String classpathBase)
     {
-        final Set<URL> urls = new HashSet<>();
-        try
+        return this.resolveURLs(classpathBase + CLASSPATH_DELIMITER + CLASSES_FOLDER_NAME, "classes directory");
+    }
+
+    protected List<URL> resolveJarURLs(final String classpathBase)
+    {
+        return this.resolveURLs(classpathBase + CLASSPATH_DELIMITER + JAR_FILE_LOOKUP_PATTERN, "JAR file");
+    }
+
+    protected List<URL> resolveURLs(final String lookupPattern, final String fileKind)
+    {
+        final Map<String, ResolvedURLs> resolvedURLsByPattern;
+        synchronized (RESOLVED_URLS)
         {
-            final Resource[] simpleLookupResources = this.parentContext
-                    .getResources(classpathBase + CLASSPATH_DELIMITER + CLASSES_FOLDER_NAME);
-            for (final Resource resource : simpleLookupResources)
+            resolvedURLsByPattern = RESOLVED_URLS.computeIfAbsent(this.parentContext, ctxt -> new ConcurrentHashMap<>());
+        }
+
+        ResolvedURLs resolvedURLs = resolvedURLsByPattern.get(lookupPattern);
+        if (resolvedURLs == null || !resolvedURLs.isValid())
+        {
+            final List<File> rootDirectories = new ArrayList<>();
+            final List<File> files = new ArrayList<>();
+            try
             {
-                try
+                // root directories of the lookup pattern are validated as well to detect added / removed files in any of them
+                // (wildcard in classpath*: prefix needs to be skipped)
+                final int prefixEnd = lookupPattern.indexOf(':') + 1;
+                final int firstWildcard = lookupPattern.indexOf('*', prefixEnd);
+                String rootPattern = lookupPattern.substring(0,
+                        lookupPattern.lastIndexOf(CLASSPATH_DELIMITER, firstWildcard != -1 ? firstWildcard : lookupPattern.length()) + 1);
+                // if root does not exist, the closest existing ancestors are validated instead to detect its creation
+                while (rootDirectories.isEmpty() && rootPattern.length() > prefixEnd)
                 {
-                    final File file = resource.getFile();
-                    urls.add(file.toURI().toURL());
+                    this.collectRootDirectories(rootPattern, fileKind, rootDirectories);
+                    rootPattern = rootPattern.substring(0, rootPattern.lastIndexOf(CLASSPATH_DELIMITER, rootPattern.length() - 2) + 1);
                 }
-                catch (final IOException fileEx)
+
+                final Resource[] simpleLookupResources = this.parentContext.getResources(lookupPattern);
+                if (simpleLookupResources != null)
                 {
-                    LOGGER.debug("Failed to resolve resource {} to file for '{}' subsystem, ID: {}", resource.getDescription(),
-                            this.category, this.id);
+                    for (final Resource resource : simpleLookupResources)
+                    {
+                        try
+                        {
+                            files.add(resource.getFile());
+                        }
+                        catch (final IOException fileEx)
+                        {
+                            LOGGER.debug("Failed to resolve resource {} to {} for '{}' subsystem, ID: {}", resource.getDescription(),
+                                    fileKind, this.category, this.id);
+                        }
+                    }
                 }
             }
+            catch (final IOException ex)
+            {
+                throw new AlfrescoRuntimeException("Failed to resolve subsystem " + fileKind + " URL(s)");
+            }
+
+            resolvedURLs = new ResolvedURLs(rootDirectories, files);
+            resolvedURLsByPattern.put(lookupPattern, resolvedURLs);
         }
-        catch (final IOException ex)
+        else
         {
-            throw new AlfrescoRuntimeException("Failed to resolve subsystem classes directory URL(s)");
+            LOGGER.trace("Using cached resolution of {} for '{}' subsystem, ID: {}", lookupPattern, this.category, this.id);
         }
 
-        return new ArrayList<>(urls);
+        return new ArrayList<>(resolvedURLs.getUrls());
     }
 
-    protected List<URL> resolveJarURLs(final String classpathBase)
+    protected void collectRootDirectories(final String rootPattern, final String fileKind, final List<File> rootDirectories)
+            throws IOException
     {
-        final Set<URL> urls = new HashSet<>();
-        try
+        final Resource[] rootResources = this.parentContext.getResources(rootPattern);
+        if (rootResources != null)
         {
-            final Resource[] simpleLookupResources = this.parentContext
-                    .getResources(classpathBase + CLASSPATH_DELIMITER + JAR_FILE_LOOKUP_PATTERN);
-            if (simpleLookupResources != null)
+            for (final Resource resource : rootResources)
             {
-                for (final Resource resource : simpleLookupResources)
+                if (resource.exists())
                 {
                     try
                     {
-                        final File file = resource.getFile();
-                        urls.add(file.toURI().toURL());
+                        rootDirectories.add(resource.getFile());
                     }
                     catch (final IOException fileEx)
                     {
-                        LOGGER.debug("Failed to resolve resource {} to JAR file for '{}' subsystem, ID: {}", resource.getDescription(),
-                                this.category, this.id);
+                        LOGGER.trace("Root {} of {} lookup is not a directory for '{}' subsystem, ID: {}", resource.getDescription(),
+                                fileKind, this.category, this.id);
                     }
                 }
             }
         }
-        catch (final IOException ex)
+    }
+
+    /**
+     * Instances of this class hold the result of a classpath lookup for subsystem class loader URLs. A result is considered valid as long
+     * as the root directories of the lookup and the directories containing the resolved files remain unmodified. This includes empty
+     * results, which are validated against the root directories (or their closest existing ancestors) alone.
+     *
+     * @author Axel Faust
+     */
+    protected static class ResolvedURLs
+    {
+
+        private final List<URL> urls;
+
+        private final Map<File, Long> directoryTimestamps = new HashMap<>();
+
+        protected ResolvedURLs(final List<File> rootDirectories, final List<File> files)
         {
-            throw new AlfrescoRuntimeException("Failed to resolve subsystem JAR file URL(s)");
+            for (final File rootDirectory : rootDirectories)
+            {
+                this.directoryTimestamps.put(rootDirectory, Long.valueOf(rootDirectory.lastModified()));
+            }
+
+            final Set<URL> urls = new LinkedHashSet<>();
+            for (final File file : files)
+            {
+                try
+                {
+                    urls.add(file.toURI().toURL());
+                }
+                catch (final MalformedURLException ex)
+                {
+                    LOGGER.debug("Failed to convert file {} to URL", file);
+                }
+
+                final File directory = file.getParentFile();
+                if (directory != null)
+                {
+                    this.directoryTimestamps.put(directory, Long.valueOf(directory.lastModified()));
+                }
+            }
+            this.urls = Collections.unmodifiableList(new ArrayList<>(urls));
+        }
+
+        protected List<URL> getUrls()
+        {
+            return this.urls;
         }
 
-        return new ArrayList<>(urls);
+        protected boolean isValid()
+        {
+            final boolean valid = this.directoryTimestamps.entrySet().stream()
+                    .allMatch(e -> e.getKey().exists() && e.getKey().lastModified() == e.getValue().longValue());
+            return valid;
+        }
     }
 }
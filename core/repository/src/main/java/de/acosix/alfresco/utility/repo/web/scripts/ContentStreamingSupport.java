@@ -0,0 +1,499 @@
+/*
+ * Copyright 2016 - 2026 Acosix GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.acosix.alfresco.utility.repo.web.scripts;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.alfresco.model.ContentModel;
+import org.alfresco.repo.content.filestore.FileContentReader;
+import org.alfresco.repo.web.scripts.content.ContentStreamer;
+import org.alfresco.service.cmr.repository.ContentData;
+import org.alfresco.service.cmr.repository.ContentReader;
+import org.alfresco.service.cmr.repository.ContentService;
+import org.alfresco.service.cmr.repository.NodeRef;
+import org.alfresco.service.cmr.repository.NodeService;
+import org.alfresco.service.cmr.repository.datatype.DefaultTypeConverter;
+import org.alfresco.service.namespace.QName;
+import org.alfresco.util.PropertyCheck;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.extensions.webscripts.Cache;
+import org.springframework.extensions.webscripts.Status;
+import org.springframework.extensions.webscripts.WebScriptRequest;
+import org.springframework.extensions.webscripts.WebScriptResponse;
+import org.springframework.extensions.webscripts.WrappingWebScriptResponse;
+import org.springframework.util.FileCopyUtils;
+
+/**
+ * Instances of this class add HTTP caching semantics on top of the default {@link ContentStreamer content streamer} for content retrieval
+ * web scripts. Since content URLs in Alfresco are immutable, a strong entity tag is derived from the content URL and size of the
+ * {@link ContentData content data}, which allows conditional requests to be answered without ever opening a {@link ContentReader content
+ * reader}. Single byte range requests for content in a file-based content store are served directly from the backing file, and small
+ * content (e.g. icons, avatars) can optionally be held in an in-memory LRU cache.
+ *
+ * @author Axel Faust
+ */
+public class ContentStreamingSupport implements InitializingBean
+{
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ContentStreamingSupport.class);
+
+    private static final String HEADER_ETAG = "ETag";
+
+    private static final String HEADER_IF_NONE_MATCH = "If-None-Match";
+
+    private static final String HEADER_IF_MODIFIED_SINCE = "If-Modified-Since";
+
+    private static final String HEADER_RANGE = "Range";
+
+    private static final String HEADER_IF_RANGE = "If-Range";
+
+    private static final String HEADER_ACCEPT_RANGES = "Accept-Ranges";
+
+    private static final String HEADER_CONTENT_RANGE = "Content-Range";
+
+    private static final String HEADER_CONTENT_LENGTH = "Content-Length";
+
+    private static final Pattern SINGLE_BYTE_RANGE = Pattern.compile("^bytes=(\\d*)-(\\d*)$");
+
+    protected NodeService nodeService;
+
+    protected ContentService contentService;
+
+    protected ContentStreamer delegate;
+
+    protected boolean fileRangeStreamingEnabled = true;
+
+    protected boolean smallContentCacheEnabled = false;
+
+    protected int smallContentCacheMaxEntries = 256;
+
+    protected int smallContentCacheMaxEntrySize = 64 * 1024;
+
+    protected Map<String, byte[]> smallContentCache;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void afterPropertiesSet()
+    {
+        PropertyCheck.mandatory(this, "nodeService", this.nodeService);
+        PropertyCheck.mandatory(this, "contentService", this.contentService);
+        PropertyCheck.mandatory(this, "delegate", this.delegate);
+
+        if (this.smallContentCacheEnabled && this.smallContentCacheMaxEntries > 0 && this.smallContentCacheMaxEntrySize > 0)
+        {
+            final int maxEntries = this.smallContentCacheMaxEntries;
+            this.smallContentCache = Collections.synchronizedMap(new LinkedHashMap<String, byte[]>(16, 0.75f, true)
+            {
+
+                private static final long serialVersionUID = 1L;
+
+                /**
+                 * {@inheritDoc}
+                 */
+                @Override
+                protected boolean removeEldestEntry(final Map.Entry<String, byte[]> eldest)
+                {
+                    return this.size() > maxEntries;
+                }
+            });
+        }
+    }
+
+    /**
+     * @param nodeService
+     *            the nodeService to set
+     */
+    public void setNodeService(final NodeService nodeService)
+    {
+        this.nodeService = nodeService;
+    }
+
+    /**
+     * @param contentService
+     *            the contentService to set
+     */
+    public void setContentService(final ContentService contentService)
+    {
+        this.contentService = contentService;
+    }
+
+    /**
+     * @param delegate
+     *            the delegate to set
+     */
+    public void setDelegate(final ContentStreamer delegate)
+    {
+        this.delegate = delegate;
+    }
+
+    /**
+     * @param fileRangeStreamingEnabled
+     *            the fileRangeStreamingEnabled to set
+     */
+    public void setFileRangeStreamingEnabled(final boolean fileRangeStreamingEnabled)
+    {
+        this.fileRangeStreamingEnabled = fileRangeStreamingEnabled;
+    }
+
+    /**
+     * @param smallContentCacheEnabled
+     *            the smallContentCacheEnabled to set
+     */
+    public void setSmallContentCacheEnabled(final boolean smallContentCacheEnabled)
+    {
+        this.smallContentCacheEnabled = smallContentCacheEnabled;
+    }
+
+    /**
+     * @param smallContentCacheMaxEntries
+     *            the smallContentCacheMaxEntries to set
+     */
+    public void setSmallContentCacheMaxEntries(final int smallContentCacheMaxEntries)
+    {
+        this.smallContentCacheMaxEntries = smallContentCacheMaxEntries;
+    }
+
+    /**
+     * @param smallContentCacheMaxEntrySize
+     *            the smallContentCacheMaxEntrySize to set
+     */
+    public void setSmallContentCacheMaxEntrySize(final int smallContentCacheMaxEntrySize)
+    {
+        this.smallContentCacheMaxEntrySize = smallContentCacheMaxEntrySize;
+    }
+
+    /**
+     * Streams the content of a node, answering conditional requests and - if possible - byte range requests or requests for small cached
+     * content without involving the {@link #setDelegate(ContentStreamer) delegate content streamer}.
+     *
+     * @param req
+     *            the web script request
+     * @param res
+     *            the web script response
+     * @param nodeRef
+     *            the node from which to stream content
+     * @param propertyQName
+     *            the content property to stream
+     * @param attach
+     *            whether the content should be streamed with the attachment disposition or not
+     * @param attachFileName
+     *            the file name to use when streaming with attachment disposition
+     * @param model
+     *            the web script response model
+     * @throws IOException
+     *             if an error occurs streaming the content
+     */
+    public void streamContent(final WebScriptRequest req, final WebScriptResponse res, final NodeRef nodeRef, final QName propertyQName,
+            final boolean attach, final String attachFileName, final Map<String, Object> model) throws IOException
+    {
+        final ContentData contentData = DefaultTypeConverter.INSTANCE.convert(ContentData.class,
+                this.nodeService.getProperty(nodeRef, propertyQName));
+        if (!ContentData.hasContent(contentData))
+        {
+            // let delegate handle error reporting consistently
+            this.delegate.streamContent(req, res, nodeRef, propertyQName, attach, attachFileName, model);
+        }
+        else
+        {
+            final String eTag = buildETag(contentData);
+            final Date modified = DefaultTypeConverter.INSTANCE.convert(Date.class,
+                    this.nodeService.getProperty(nodeRef, ContentModel.PROP_MODIFIED));
+
+            if (isNotModified(req, eTag, modified))
+            {
+                LOGGER.trace("Content {} of {} has not been modified - responding with status 304", propertyQName, nodeRef);
+                res.setStatus(Status.STATUS_NOT_MODIFIED);
+                // same caching headers (Cache-Control, ETag, Last-Modified) as for full / partial content responses
+                res.setCache(this.buildCache(modified, eTag));
+            }
+            else
+            {
+                final WebScriptResponse eTagRes = new StrongETagWebScriptResponse(res, eTag);
+
+                boolean streamed = false;
+                final String range = req.getHeader(HEADER_RANGE);
+                if (range != null)
+                {
+                    final String ifRange = req.getHeader(HEADER_IF_RANGE);
+                    if (this.fileRangeStreamingEnabled && (ifRange == null || ifRange.trim().equals(quote(eTag))))
+                    {
+                        streamed = this.streamFileRange(req, eTagRes, nodeRef, propertyQName, contentData, range, attach, attachFileName,
+                                modified, eTag);
+                    }
+                }
+                else if (this.smallContentCache != null && contentData.getSize() <= this.smallContentCacheMaxEntrySize)
+                {
+                    streamed = this.streamSmallContent(req, eTagRes, nodeRef, propertyQName, contentData, attach, attachFileName, modified,
+                            eTag);
+                }
+
+                if (!streamed)
+                {
+                    this.delegate.streamContent(req, eTagRes, nodeRef, propertyQName, attach, attachFileName, model);
+                }
+            }
+        }
+    }
+
+    protected boolean streamFileRange(final WebScriptRequest req, final WebScriptResponse res, final NodeRef nodeRef,
+            final QName propertyQName, final ContentData contentData, final String range, final boolean attach, final String attachFileName,
+            final Date modified, final String eTag) throws IOException
+    {
+        final Matcher matcher = SINGLE_BYTE_RANGE.matcher(range.trim());
+        // multiple / unparseable ranges are left for the delegate
+        if (!matcher.matches() || (matcher.group(1).isEmpty() && matcher.group(2).isEmpty()))
+        {
+            return false;
+        }
+
+        final ContentReader reader = this.contentService.getReader(nodeRef, propertyQName);
+        // only plain file readers allow direct access to the backing file - everything else is left for the delegate
+        if (!(reader instanceof FileContentReader) || !reader.exists())
+        {
+            return false;
+        }
+
+        final File file = ((FileContentReader) reader).getFile();
+        final long size = file.length();
+
+        long start;
+        long end;
+        try
+        {
+            if (matcher.group(1).isEmpty())
+            {
+                // suffix range
+                start = Math.max(0, size - Long.parseLong(matcher.group(2)));
+                end = size - 1;
+            }
+            else
+            {
+                start = Long.parseLong(matcher.group(1));
+                end = matcher.group(2).isEmpty() ? size - 1 : Math.min(size - 1, Long.parseLong(matcher.group(2)));
+            }
+        }
+        catch (final NumberFormatException nfe)
+        {
+            return false;
+        }
+
+        if (start >= size || start > end)
+        {
+            res.setStatus(Status.STATUS_REQUESTED_RANGE_NOT_SATISFIABLE);
+            res.setHeader(HEADER_CONTENT_RANGE, "bytes */" + size);
+            return true;
+        }
+
+        final long length = end - start + 1;
+        LOGGER.trace("Streaming range {}-{} of content {} of {} directly from {}", start, end, propertyQName, nodeRef, file);
+
+        this.delegate.setAttachment(req, res, attach, attachFileName);
+        res.setContentType(contentData.getMimetype());
+        res.setContentEncoding(contentData.getEncoding());
+        res.setCache(this.buildCache(modified, eTag));
+        res.setStatus(Status.STATUS_PARTIAL_CONTENT);
+        res.setHeader(HEADER_ACCEPT_RANGES, "bytes");
+        res.setHeader(HEADER_CONTENT_RANGE, "bytes " + start + "-" + end + "/" + size);
+        res.setHeader(HEADER_CONTENT_LENGTH, String.valueOf(length));
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ))
+        {
+            final OutputStream os = res.getOutputStream();
+            final WritableByteChannel target = Channels.newChannel(os);
+            long position = start;
+            long remaining = length;
+            while (remaining > 0)
+            {
+                final long transferred = channel.transferTo(position, remaining, target);
+                if (transferred <= 0)
+                {
+                    break;
+                }
+                position += transferred;
+                remaining -= transferred;
+            }
+            os.flush();
+        }
+
+        return true;
+    }
+
+    protected boolean streamSmallContent(final WebScriptRequest req, final WebScriptResponse res, final NodeRef nodeRef,
+            final QName propertyQName, final ContentData contentData, final boolean attach, final String attachFileName, final Date modified,
+            final String eTag) throws IOException
+    {
+        // content URLs are immutable so they make for a safe cache key
+        final String contentUrl = contentData.getContentUrl();
+        byte[] bytes = this.smallContentCache.get(contentUrl);
+        if (bytes == null)
+        {
+            final ContentReader reader = this.contentService.getReader(nodeRef, propertyQName);
+            if (reader == null || !reader.exists() || reader.getSize() > this.smallContentCacheMaxEntrySize)
+            {
+                return false;
+            }
+
+            try (InputStream is = reader.getContentInputStream())
+            {
+                bytes = FileCopyUtils.copyToByteArray(is);
+            }
+            this.smallContentCache.put(contentUrl, bytes);
+            LOGGER.trace("Cached {} bytes of content {}", bytes.length, contentUrl);
+        }
+
+        this.delegate.setAttachment(req, res, attach, attachFileName);
+        res.setContentType(contentData.getMimetype());
+        res.setContentEncoding(contentData.getEncoding());
+        res.setCache(this.buildCache(modified, eTag));
+        res.setHeader(HEADER_CONTENT_LENGTH, String.valueOf(bytes.length));
+
+        final OutputStream os = res.getOutputStream();
+        os.write(bytes);
+        os.flush();
+
+        return true;
+    }
+
+    protected Cache buildCache(final Date modified, final String eTag)
+    {
+        // same semantics as default content streamer
+        final Cache cache = new Cache();
+        cache.setNeverCache(false);
+        cache.setMustRevalidate(true);
+        cache.setMaxAge(0L);
+        cache.setLastModified(modified);
+        cache.setETag(eTag);
+        return cache;
+    }
+
+    protected static String buildETag(final ContentData contentData)
+    {
+        final String urlHash = UUID.nameUUIDFromBytes(contentData.getContentUrl().getBytes(StandardCharsets.UTF_8)).toString()
+                .replace("-", "");
+        return urlHash + "-" + Long.toHexString(contentData.getSize());
+    }
+
+    protected static String quote(final String eTag)
+    {
+        return "\"" + eTag + "\"";
+    }
+
+    protected static boolean isNotModified(final WebScriptRequest req, final String eTag, final Date modified)
+    {
+        boolean notModified = false;
+
+        final String ifNoneMatch = req.getHeader(HEADER_IF_NONE_MATCH);
+        if (ifNoneMatch != null)
+        {
+            // If-None-Match takes precedence over If-Modified-Since (RFC 7232, section 6)
+            for (final String candidate : ifNoneMatch.split(","))
+            {
+                String effectiveCandidate = candidate.trim();
+                // weak comparison is mandated for If-None-Match
+                if (effectiveCandidate.startsWith("W/"))
+                {
+                    effectiveCandidate = effectiveCandidate.substring(2);
+                }
+                if ("*".equals(effectiveCandidate) || quote(eTag).equals(effectiveCandidate))
+                {
+                    notModified = true;
+                    break;
+                }
+            }
+        }
+        else if (modified != null)
+        {
+            final String ifModifiedSince = req.getHeader(HEADER_IF_MODIFIED_SINCE);
+            if (ifModifiedSince != null)
+            {
+                try
+                {
+                    final long sinceSeconds = ZonedDateTime.parse(ifModifiedSince.trim(), DateTimeFormatter.RFC_1123_DATE_TIME)
+                            .toEpochSecond();
+                    notModified = modified.getTime() / 1000 <= sinceSeconds;
+                }
+                catch (final DateTimeParseException dtpe)
+                {
+                    LOGGER.debug("Ignoring unparseable {} header value {}", HEADER_IF_MODIFIED_SINCE, ifModifiedSince);
+                }
+            }
+        }
+
+        return notModified;
+    }
+
+    /**
+     * Instances of this class ensure that the strong entity tag of a content is used in place of the weak, modification-based entity tag
+     * set by the default content streamer.
+     *
+     * @author Axel Faust
+     */
+    protected static class StrongETagWebScriptResponse extends WrappingWebScriptResponse
+    {
+
+        private final String eTag;
+
+        protected StrongETagWebScriptResponse(final WebScriptResponse res, final String eTag)
+        {
+            super(res);
+            this.eTag = eTag;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void setCache(final Cache cache)
+        {
+            if (cache != null)
+            {
+                cache.setETag(this.eTag);
+            }
+            super.setCache(cache);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void setHeader(final String name, final String value)
+        {
+            super.setHeader(name, HEADER_ETAG.equalsIgnoreCase(name) ? quote(this.eTag) : value);
+        }
+    }
+}
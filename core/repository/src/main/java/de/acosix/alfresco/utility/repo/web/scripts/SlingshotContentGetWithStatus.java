@@ -36,6 +36,17 @@ public class SlingshotContentGetWithStatus extends SlingshotContentGet
 
     protected final ThreadLocal<Boolean> streamCalled = new ThreadLocal<>();
 
+    protected ContentStreamingSupport contentStreamingSupport;
+
+    /**
+     * @param contentStreamingSupport
+     *            the contentStreamingSupport to set
+     */
+    public void setContentStreamingSupport(final ContentStreamingSupport contentStreamingSupport)
+    {
+        this.contentStreamingSupport = contentStreamingSupport;
+    }
+
     /**
      *
      * {@inheritDoc}
@@ -104,6 +115,13 @@ public class SlingshotContentGetWithStatus extends SlingshotContentGet
         final Map<String, String> templateArgs = req.getServiceMatch().getTemplateVars();
         // in case web script is ever mapped to a URL with an explicit file name token, that should override the regular node name
         final String effectiveFileName = templateArgs.getOrDefault("filename", attachFileName);
-        this.delegate.streamContent(req, res, nodeRef, propertyQName, attach, effectiveFileName, model);
+        if (this.contentStreamingSupport != null)
+        {
+            this.contentStreamingSupport.streamContent(req, res, nodeRef, propertyQName, attach, effectiveFileName, model);
+        }
+        else
+        {
+            this.delegate.streamContent(req, res, nodeRef, propertyQName, attach, effectiveFileName, model);
+        }
     }
 }
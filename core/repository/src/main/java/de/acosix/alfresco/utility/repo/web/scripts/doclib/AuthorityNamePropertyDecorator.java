@@ -16,7 +16,6 @@
 package de.acosix.alfresco.utility.repo.web.scripts.doclib;
 
 import java.io.Serializable;
-import java.util.Collection;
 
 import org.alfresco.repo.security.authority.AuthorityDAO;
 import org.alfresco.service.cmr.repository.NodeRef;
@@ -24,7 +23,6 @@ import org.alfresco.service.cmr.repository.datatype.DefaultTypeConverter;
 import org.alfresco.service.cmr.security.AuthorityType;
 import org.alfresco.service.namespace.QName;
 import org.alfresco.util.PropertyCheck;
-import org.json.simple.JSONArray;
 import org.json.simple.JSONAware;
 import org.json.simple.JSONObject;
 import org.springframework.beans.factory.InitializingBean;
@@ -66,46 +64,35 @@ public class AuthorityNamePropertyDecorator extends UserNamePropertyDecorator im
      */
     @SuppressWarnings("unchecked")
     @Override
-    public JSONAware decorate(final QName propertyName, final NodeRef nodeRef, final Serializable value)
+    protected JSONAware decorateAuthority(final QName propertyName, final NodeRef nodeRef, final Serializable value)
     {
         final JSONAware result;
-        if (value instanceof Collection<?>)
+        final String strValue = DefaultTypeConverter.INSTANCE.convert(String.class, value);
+        switch (AuthorityType.getAuthorityType(strValue))
         {
-            result = new JSONArray();
-            ((Collection<?>) value).stream().map(Serializable.class::cast).forEach(v -> {
-                final JSONAware decoratedEl = this.decorate(propertyName, nodeRef, v);
-                ((JSONArray) result).add(decoratedEl);
-            });
-        }
-        else
-        {
-            final String strValue = DefaultTypeConverter.INSTANCE.convert(String.class, value);
-            switch (AuthorityType.getAuthorityType(strValue))
+            case GROUP:
             {
-                case GROUP:
-                {
-                    final JSONObject obj = new JSONObject();
-                    final String shortName = this.authorityDAO.getShortName(strValue);
-                    obj.put("value", strValue);
-                    obj.put("name", shortName);
+                final JSONObject obj = new JSONObject();
+                final String shortName = this.authorityDAO.getShortName(strValue);
+                obj.put("value", strValue);
+                obj.put("name", shortName);
 
-                    final String displayName = this.authorityDAO.getAuthorityDisplayName(strValue);
-                    if (displayName != null)
-                    {
-                        obj.put("displayName", displayName);
-                    }
-                    result = obj;
-                }
-                    break;
-                case USER:
-                    result = super.decorate(propertyName, nodeRef, value);
-                    break;
-                default:
+                final String displayName = this.authorityDAO.getAuthorityDisplayName(strValue);
+                if (displayName != null)
                 {
-                    final JSONObject obj = new JSONObject();
-                    obj.put("name", strValue);
-                    result = obj;
+                    obj.put("displayName", displayName);
                 }
+                result = obj;
+            }
+                break;
+            case USER:
+                result = super.decorateAuthority(propertyName, nodeRef, value);
+                break;
+            default:
+            {
+                final JSONObject obj = new JSONObject();
+                obj.put("name", strValue);
+                result = obj;
             }
         }
 
@@ -16,15 +16,32 @@
 package de.acosix.alfresco.utility.repo.web.scripts.doclib;
 
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
+import org.alfresco.repo.dictionary.DictionaryDAO;
+import org.alfresco.repo.dictionary.DictionaryListener;
 import org.alfresco.repo.dictionary.constraint.ListOfValuesConstraint;
 import org.alfresco.repo.dictionary.constraint.RegisteredConstraint;
+import org.alfresco.repo.i18n.MessageDeployer;
+import org.alfresco.repo.i18n.MessageService;
 import org.alfresco.repo.jscript.app.BasePropertyDecorator;
+import org.alfresco.repo.tenant.TenantUtil;
+import org.alfresco.repo.transaction.AlfrescoTransactionSupport;
+import org.alfresco.repo.transaction.AlfrescoTransactionSupport.TxnReadState;
+import org.alfresco.repo.transaction.TransactionalResourceHelper;
 import org.alfresco.service.cmr.dictionary.AspectDefinition;
 import org.alfresco.service.cmr.dictionary.ClassDefinition;
 import org.alfresco.service.cmr.dictionary.Constraint;
@@ -40,18 +57,34 @@ import org.json.simple.JSONArray;
 import org.json.simple.JSONAware;
 import org.json.simple.JSONObject;
 import org.springframework.beans.factory.InitializingBean;
+import org.springframework.extensions.surf.util.I18NUtil;
 
 /**
  * This implementation of a property decorator processes {@link ListOfValuesConstraint list-of-values constrained} properties and provides a
- * complex object composed of the raw value and display label.
+ * complex object composed of the raw value and display label. Resolved property constraints and display labels are cached per distinct
+ * combination of node type and aspects, so that no anonymous type needs to be constructed for each decorated value. This cache is
+ * shared across requests and invalidated whenever the dictionary - tracked via the mandatory {@link #setDictionaryDAO(DictionaryDAO)
+ * dictionary DAO} - or, if a {@link #setMessageService(MessageService) message service} is set, the message bundles are reloaded.
  *
  * @author Axel Faust
  */
-public class LoVPropertyDecorator extends BasePropertyDecorator implements InitializingBean
+public class LoVPropertyDecorator extends BasePropertyDecorator implements InitializingBean, DictionaryListener, MessageDeployer
 {
 
     protected DictionaryService dictionaryService;
 
+    protected DictionaryDAO dictionaryDAO;
+
+    protected MessageService messageService;
+
+    protected final ConcurrentMap<ClassSetKey, Map<QName, PropertyLabels>> resolvedClassSets = new ConcurrentHashMap<>();
+
+    // definitions are immutable and re-created on dictionary reload, so instances themselves identify a specific state of a property
+    protected final ConcurrentMap<PropertyDefinition, PropertyLabels> resolvedProperties = new ConcurrentHashMap<>();
+
+    // part of cache keys so that resolutions racing with an invalidation can never be served afterwards
+    protected final AtomicLong resolvedClassSetsGeneration = new AtomicLong();
+
     /**
      *
      * {@inheritDoc}
@@ -64,6 +97,14 @@ public class LoVPropertyDecorator extends BasePropertyDecorator implements Initi
         PropertyCheck.mandatory(this, "nodeService", this.nodeService);
         PropertyCheck.mandatory(this, "permissionService", this.permissionService);
         PropertyCheck.mandatory(this, "jsonConversionComponent", this.jsonConversionComponent);
+        // required to invalidate cached labels - use the base bean definition as parent to have it set
+        PropertyCheck.mandatory(this, "dictionaryDAO", this.dictionaryDAO);
+
+        this.dictionaryDAO.registerListener(this);
+        if (this.messageService != null)
+        {
+            this.messageService.register(this);
+        }
 
         this.init();
     }
@@ -77,23 +118,74 @@ public class LoVPropertyDecorator extends BasePropertyDecorator implements Initi
         this.dictionaryService = dictionaryService;
     }
 
+    /**
+     * @param dictionaryDAO
+     *            the dictionaryDAO to set
+     */
+    public void setDictionaryDAO(final DictionaryDAO dictionaryDAO)
+    {
+        this.dictionaryDAO = dictionaryDAO;
+    }
+
+    /**
+     * @param messageService
+     *            the messageService to set
+     */
+    public void setMessageService(final MessageService messageService)
+    {
+        this.messageService = messageService;
+    }
+
     /**
      * {@inheritDoc}
      */
     @Override
-    public JSONAware decorate(final QName propertyName, final NodeRef nodeRef, final Serializable value)
+    public void onDictionaryInit()
     {
-        final QName type = this.nodeService.getType(nodeRef);
-        final Set<QName> allAspects = this.nodeService.getAspects(nodeRef);
-        final Set<QName> aspects = this.filterAspectParentClasses(allAspects);
+        // NO-OP
+    }
 
-        final TypeDefinition typeDefinition = this.dictionaryService.getAnonymousType(type, aspects);
-        final PropertyDefinition propertyDefinition = typeDefinition.getProperties().get(propertyName);
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void afterDictionaryInit()
+    {
+        this.invalidateResolvedClassSets();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void afterDictionaryDestroy()
+    {
+        this.invalidateResolvedClassSets();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void initMessages()
+    {
+        // display labels of constraints may be defined in (reloaded) message bundles
+        this.invalidateResolvedClassSets();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public JSONAware decorate(final QName propertyName, final NodeRef nodeRef, final Serializable value)
+    {
+        final PropertyLabels propertyLabels = this.getPropertyLabels(nodeRef).get(propertyName);
 
         final JSONAware result;
 
-        if (propertyDefinition != null)
+        if (propertyLabels != null)
         {
+            final Locale locale = I18NUtil.getLocale();
             if (value instanceof Collection<?>)
             {
                 @SuppressWarnings("unchecked")
@@ -106,7 +198,7 @@ public class LoVPropertyDecorator extends BasePropertyDecorator implements Initi
                     @SuppressWarnings("unchecked")
                     final Map<String, String> map = new JSONObject();
                     map.put("value", valueText);
-                    this.retrieveDisplayLabel(valueText, propertyDefinition, map);
+                    propertyLabels.getDisplayLabel(valueText, locale).ifPresent(label -> map.put("displayName", label));
                     list.add(map);
                 }
 
@@ -120,7 +212,7 @@ public class LoVPropertyDecorator extends BasePropertyDecorator implements Initi
                 map.put("value", valueText);
                 result = (JSONObject) map;
 
-                this.retrieveDisplayLabel(valueText, propertyDefinition, map);
+                propertyLabels.getDisplayLabel(valueText, locale).ifPresent(label -> map.put("displayName", label));
             }
         }
         else
@@ -131,6 +223,53 @@ public class LoVPropertyDecorator extends BasePropertyDecorator implements Initi
         return result;
     }
 
+    protected Map<QName, PropertyLabels> getPropertyLabels(final NodeRef nodeRef)
+    {
+        // multiple LoV-constrained properties of the same node are typically decorated within the same request / transaction
+        final Map<NodeRef, Map<QName, PropertyLabels>> nodePropertyLabels = AlfrescoTransactionSupport
+                .getTransactionReadState() != TxnReadState.TXN_NONE
+                        ? TransactionalResourceHelper.getMap(LoVPropertyDecorator.class.getName() + ".propertyLabels")
+                        : null;
+
+        Map<QName, PropertyLabels> propertyLabels = nodePropertyLabels != null ? nodePropertyLabels.get(nodeRef) : null;
+        if (propertyLabels == null)
+        {
+            final QName type = this.nodeService.getType(nodeRef);
+            final Set<QName> aspects = this.nodeService.getAspects(nodeRef);
+
+            // dictionary is tenant-specific
+            final ClassSetKey key = new ClassSetKey(this.resolvedClassSetsGeneration.get(), TenantUtil.getCurrentDomain(), type, aspects);
+            propertyLabels = this.resolvedClassSets.computeIfAbsent(key, k -> this.resolvePropertyLabels(type, aspects));
+
+            if (nodePropertyLabels != null)
+            {
+                nodePropertyLabels.put(nodeRef, propertyLabels);
+            }
+        }
+        return propertyLabels;
+    }
+
+    protected void invalidateResolvedClassSets()
+    {
+        // generation must be incremented first so entries added concurrently become unreachable
+        this.resolvedClassSetsGeneration.incrementAndGet();
+        this.resolvedClassSets.clear();
+        this.resolvedProperties.clear();
+    }
+
+    protected Map<QName, PropertyLabels> resolvePropertyLabels(final QName type, final Set<QName> allAspects)
+    {
+        final Set<QName> aspects = this.filterAspectParentClasses(allAspects);
+        final TypeDefinition typeDefinition = this.dictionaryService.getAnonymousType(type, aspects);
+
+        final Map<QName, PropertyDefinition> propertyDefinitions = typeDefinition.getProperties();
+        final Map<QName, PropertyLabels> propertyLabels = new HashMap<>(propertyDefinitions.size() * 4 / 3 + 1);
+        propertyDefinitions.forEach((propertyName, propertyDefinition) -> {
+            propertyLabels.put(propertyName, new PropertyLabels(this.dictionaryService, this.collectLoVConstraints(propertyDefinition)));
+        });
+        return Collections.unmodifiableMap(propertyLabels);
+    }
+
     protected Set<QName> filterAspectParentClasses(final Set<QName> aspects)
     {
         final Set<QName> result = new HashSet<>(aspects);
@@ -149,13 +288,12 @@ public class LoVPropertyDecorator extends BasePropertyDecorator implements Initi
         return result;
     }
 
-    protected void retrieveDisplayLabel(final String value, final PropertyDefinition propertyDefinition, final Map<String, String> map)
+    protected List<ListOfValuesConstraint> collectLoVConstraints(final PropertyDefinition propertyDefinition)
     {
+        final List<ListOfValuesConstraint> lovConstraints = new ArrayList<>();
         final List<ConstraintDefinition> constraints = propertyDefinition.getConstraints();
         if (constraints != null)
         {
-            String label = null;
-
             for (final ConstraintDefinition constraint : constraints)
             {
                 Constraint actualConstraint = constraint.getConstraint();
@@ -166,19 +304,122 @@ public class LoVPropertyDecorator extends BasePropertyDecorator implements Initi
 
                 if (actualConstraint instanceof ListOfValuesConstraint)
                 {
-                    label = ((ListOfValuesConstraint) actualConstraint).getDisplayLabel(value, this.dictionaryService);
+                    lovConstraints.add((ListOfValuesConstraint) actualConstraint);
+                }
+            }
+        }
+        return lovConstraints;
+    }
 
-                    if (label != null)
-                    {
-                        break;
-                    }
+    protected void retrieveDisplayLabel(final String value, final PropertyDefinition propertyDefinition, final Map<String, String> map)
+    {
+        final PropertyLabels propertyLabels = this.resolvedProperties.computeIfAbsent(propertyDefinition,
+                pd -> new PropertyLabels(this.dictionaryService, this.collectLoVConstraints(pd)));
+        propertyLabels.getDisplayLabel(value, I18NUtil.getLocale()).ifPresent(label -> map.put("displayName", label));
+    }
+
+    /**
+     * Instances of this class hold the list-of-values constraints of a single property and lazily cache the display labels of its values
+     * per locale.
+     *
+     * @author Axel Faust
+     */
+    protected static class PropertyLabels
+    {
+
+        private final DictionaryService dictionaryService;
+
+        private final List<ListOfValuesConstraint> constraints;
+
+        private final ConcurrentMap<Locale, ConcurrentMap<String, Optional<String>>> displayLabels = new ConcurrentHashMap<>();
+
+        protected PropertyLabels(final DictionaryService dictionaryService, final List<ListOfValuesConstraint> constraints)
+        {
+            this.dictionaryService = dictionaryService;
+            this.constraints = Collections.unmodifiableList(constraints);
+        }
+
+        protected Optional<String> getDisplayLabel(final String value, final Locale locale)
+        {
+            Optional<String> displayLabel;
+            if (this.constraints.isEmpty() || value == null)
+            {
+                displayLabel = Optional.empty();
+            }
+            else
+            {
+                displayLabel = this.displayLabels.computeIfAbsent(locale, l -> new ConcurrentHashMap<>()).computeIfAbsent(value,
+                        this::resolveDisplayLabel);
+            }
+            return displayLabel;
+        }
+
+        private Optional<String> resolveDisplayLabel(final String value)
+        {
+            String label = null;
+            for (final ListOfValuesConstraint constraint : this.constraints)
+            {
+                label = constraint.getDisplayLabel(value, this.dictionaryService);
+                if (label != null)
+                {
+                    break;
                 }
             }
+            return Optional.ofNullable(label);
+        }
+    }
+
+    /**
+     * Instances of this class represent the cache key of a distinct combination of node type and aspects within a tenant and cache
+     * generation.
+     *
+     * @author Axel Faust
+     */
+    protected static class ClassSetKey
+    {
+
+        private final long generation;
+
+        private final String tenantDomain;
 
-            if (label != null)
+        private final QName type;
+
+        private final Set<QName> aspects;
+
+        protected ClassSetKey(final long generation, final String tenantDomain, final QName type, final Set<QName> aspects)
+        {
+            this.generation = generation;
+            this.tenantDomain = tenantDomain;
+            this.type = type;
+            this.aspects = new HashSet<>(aspects);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(Long.valueOf(this.generation), this.tenantDomain, this.type, this.aspects);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean equals(final Object obj)
+        {
+            if (this == obj)
+            {
+                return true;
+            }
+            if (!(obj instanceof ClassSetKey))
             {
-                map.put("displayName", label);
+                return false;
             }
+            final ClassSetKey other = (ClassSetKey) obj;
+            return this.generation == other.generation && Objects.equals(this.tenantDomain, other.tenantDomain)
+                    && Objects.equals(this.type, other.type) && Objects.equals(this.aspects, other.aspects);
         }
     }
 }
@@ -17,18 +17,26 @@ package de.acosix.alfresco.utility.repo.web.scripts.doclib;
 
 import java.io.Serializable;
 import java.util.Collection;
+import java.util.Map;
 
 import org.alfresco.repo.jscript.app.UsernamePropertyDecorator;
+import org.alfresco.repo.transaction.AlfrescoTransactionSupport;
+import org.alfresco.repo.transaction.AlfrescoTransactionSupport.TxnReadState;
+import org.alfresco.repo.transaction.TransactionalResourceHelper;
 import org.alfresco.service.cmr.repository.NodeRef;
+import org.alfresco.service.cmr.repository.datatype.DefaultTypeConverter;
 import org.alfresco.service.namespace.QName;
 import org.alfresco.util.PropertyCheck;
 import org.json.simple.JSONArray;
 import org.json.simple.JSONAware;
+import org.json.simple.JSONObject;
 import org.springframework.beans.factory.InitializingBean;
 
 /**
  * This implementation of a property decorator builds upon the default user name decorator of Alfresco and adds support of multi-valued
- * properties holding names of Alfresco users.
+ * properties holding names of Alfresco users. Decorations are cached per authority name for the duration of the current transaction, which
+ * for document library listings effectively means per request, so that the same handful of users referenced by many nodes are only
+ * resolved once.
  *
  * @author Axel Faust
  */
@@ -64,15 +72,76 @@ public class UserNamePropertyDecorator extends UsernamePropertyDecorator impleme
         {
             result = new JSONArray();
             ((Collection<?>) value).stream().map(Serializable.class::cast).forEach(v -> {
-                final JSONAware decoratedEl = super.decorate(propertyName, nodeRef, v);
+                final JSONAware decoratedEl = this.decorateCached(propertyName, nodeRef, v);
                 ((JSONArray) result).add(decoratedEl);
             });
         }
         else
         {
-            result = super.decorate(propertyName, nodeRef, value);
+            result = this.decorateCached(propertyName, nodeRef, value);
         }
 
         return result;
     }
+
+    /**
+     * Decorates a single authority name value without any caching.
+     *
+     * @param propertyName
+     *            the name of the property being decorated
+     * @param nodeRef
+     *            the node of the property being decorated
+     * @param value
+     *            the single authority name value
+     * @return the decoration result
+     */
+    protected JSONAware decorateAuthority(final QName propertyName, final NodeRef nodeRef, final Serializable value)
+    {
+        return super.decorate(propertyName, nodeRef, value);
+    }
+
+    protected JSONAware decorateCached(final QName propertyName, final NodeRef nodeRef, final Serializable value)
+    {
+        final String authorityName = DefaultTypeConverter.INSTANCE.convert(String.class, value);
+        final Map<String, JSONAware> decorationCache = authorityName != null ? this.getDecorationCache() : null;
+
+        JSONAware result;
+        if (decorationCache != null)
+        {
+            if (decorationCache.containsKey(authorityName))
+            {
+                result = decorationCache.get(authorityName);
+            }
+            else
+            {
+                result = this.decorateAuthority(propertyName, nodeRef, value);
+                decorationCache.put(authorityName, result);
+            }
+
+            // callers may alter decorations, so cached instances must never be handed out
+            if (result instanceof JSONObject)
+            {
+                @SuppressWarnings("unchecked")
+                final JSONObject copy = new JSONObject((JSONObject) result);
+                result = copy;
+            }
+        }
+        else
+        {
+            result = this.decorateAuthority(propertyName, nodeRef, value);
+        }
+
+        return result;
+    }
+
+    protected Map<String, JSONAware> getDecorationCache()
+    {
+        Map<String, JSONAware> decorationCache = null;
+        if (AlfrescoTransactionSupport.getTransactionReadState() != TxnReadState.TXN_NONE)
+        {
+            // keyed by class as sub-classes may decorate the same authority names differently
+            decorationCache = TransactionalResourceHelper.getMap(this.getClass().getName() + ".decorationCache");
+        }
+        return decorationCache;
+    }
 }
@@ -15,6 +15,11 @@
  */
 package de.acosix.alfresco.utility.core.share.jakarta.connector;
 
+import java.io.Serializable;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
 import org.alfresco.util.PropertyCheck;
 import org.alfresco.web.site.servlet.MTAuthenticationFilter;
 import org.springframework.beans.factory.InitializingBean;
@@ -22,12 +27,16 @@ import org.springframework.extensions.surf.ServletUtil;
 import org.springframework.extensions.surf.WebFrameworkConnectorProvider;
 import org.springframework.extensions.surf.exception.ConnectorProviderException;
 import org.springframework.extensions.surf.exception.ConnectorServiceException;
+import org.springframework.extensions.surf.exception.CredentialVaultProviderException;
 import org.springframework.extensions.surf.site.AuthenticationUtil;
 import org.springframework.extensions.surf.support.ThreadLocalRequestContext;
 import org.springframework.extensions.webscripts.connector.Connector;
 import org.springframework.extensions.webscripts.connector.ConnectorProvider;
 import org.springframework.extensions.webscripts.connector.ConnectorProviderImpl;
 import org.springframework.extensions.webscripts.connector.ConnectorService;
+import org.springframework.extensions.webscripts.connector.ConnectorSession;
+import org.springframework.extensions.webscripts.connector.CredentialVault;
+import org.springframework.extensions.webscripts.connector.Credentials;
 
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpSession;
@@ -43,13 +52,22 @@ import jakarta.servlet.http.HttpSession;
  * {@link ThreadLocalRequestContext#getRequestContent() request context}, the state of the credential vault in the context, and instead
  * aware of alternative Share utilities to get access to the current {@link HttpServletRequest servlet request}.
  *
+ * Connectors provided for a session are cached in that session per endpoint, and reused as long as they were created for the same user and
+ * still use the credentials currently stored in the credential vault and the connector session currently stored in the HTTP session.
+ * Logging out (invalidating the session), switching the user, changing the credentials or removing the connector session (e.g. to reset
+ * authentication tickets / cookies) for an endpoint thus implicitly invalidates a cached connector.
+ *
  * @author Axel Faust
  */
 public class SessionAwareConnectorProviderImpl implements ConnectorProvider, InitializingBean
 {
 
+    protected static final String CONNECTOR_CACHE_SESSION_ATTRIBUTE = SessionAwareConnectorProviderImpl.class.getName() + ".connectorCache";
+
     protected ConnectorService connectorService;
 
+    protected boolean connectorCacheEnabled = true;
+
     /**
      *
      * {@inheritDoc}
@@ -69,6 +87,15 @@ public class SessionAwareConnectorProviderImpl implements ConnectorProvider, Ini
         this.connectorService = connectorService;
     }
 
+    /**
+     * @param connectorCacheEnabled
+     *            the connectorCacheEnabled to set
+     */
+    public void setConnectorCacheEnabled(final boolean connectorCacheEnabled)
+    {
+        this.connectorCacheEnabled = connectorCacheEnabled;
+    }
+
     /**
      *
      * {@inheritDoc}
@@ -91,7 +118,8 @@ public class SessionAwareConnectorProviderImpl implements ConnectorProvider, Ini
             {
                 final String userId = AuthenticationUtil.getUserId(rq);
                 final HttpSession session = rq.getSession();
-                conn = this.connectorService.getConnector(endpoint, userId, session);
+                conn = this.connectorCacheEnabled ? this.getSessionConnector(endpoint, userId, session)
+                        : this.connectorService.getConnector(endpoint, userId, session);
             }
             else
             {
@@ -105,4 +133,105 @@ public class SessionAwareConnectorProviderImpl implements ConnectorProvider, Ini
 
         return conn;
     }
+
+    /**
+     * Retrieves a connector for a specific endpoint, user and session, reusing a connector cached in the session if it is still valid.
+     *
+     * @param endpoint
+     *            the ID of the endpoint
+     * @param userId
+     *            the ID of the current user
+     * @param session
+     *            the current session
+     * @return the connector
+     * @throws ConnectorServiceException
+     *             if the connector cannot be created
+     */
+    protected Connector getSessionConnector(final String endpoint, final String userId, final HttpSession session)
+            throws ConnectorServiceException
+    {
+        Credentials credentials = null;
+        if (userId != null)
+        {
+            try
+            {
+                final CredentialVault vault = this.connectorService.getCredentialVault(session, userId);
+                credentials = vault != null ? vault.retrieve(endpoint) : null;
+            }
+            catch (final CredentialVaultProviderException cvpe)
+            {
+                throw new ConnectorServiceException("Unable to access credential vault for endpoint: " + endpoint, cvpe);
+            }
+        }
+
+        ConnectorCache connectorCache = (ConnectorCache) session.getAttribute(CONNECTOR_CACHE_SESSION_ATTRIBUTE);
+        if (connectorCache == null)
+        {
+            // concurrent requests of the same session may each set a new cache - at worst a few connectors are created redundantly
+            connectorCache = new ConnectorCache();
+            session.setAttribute(CONNECTOR_CACHE_SESSION_ATTRIBUTE, connectorCache);
+        }
+
+        // connector session may have been removed / replaced, e.g. by ConnectorService.removeConnectorSessions on logout / ticket reset
+        final ConnectorSession connectorSession = this.connectorService.getConnectorSession(session, endpoint);
+
+        final Map<String, CachedConnector> connectors = connectorCache.getConnectors();
+        final CachedConnector cachedConnector = connectors.get(endpoint);
+
+        final Connector conn;
+        if (cachedConnector != null && Objects.equals(cachedConnector.userId, userId)
+                && cachedConnector.connector.getCredentials() == credentials
+                && cachedConnector.connector.getConnectorSession() == connectorSession)
+        {
+            conn = cachedConnector.connector;
+        }
+        else
+        {
+            conn = this.connectorService.getConnector(endpoint, userId, session);
+            connectors.put(endpoint, new CachedConnector(userId, conn));
+        }
+        return conn;
+    }
+
+    /**
+     * Instances of this class hold the connectors cached for a single session. Connectors are not serialisable, so replicated / persisted
+     * sessions will simply start with an empty cache.
+     *
+     * @author Axel Faust
+     */
+    protected static class ConnectorCache implements Serializable
+    {
+
+        private static final long serialVersionUID = 1L;
+
+        private transient Map<String, CachedConnector> connectors;
+
+        protected synchronized Map<String, CachedConnector> getConnectors()
+        {
+            if (this.connectors == null)
+            {
+                this.connectors = new ConcurrentHashMap<>();
+            }
+            return this.connectors;
+        }
+    }
+
+    /**
+     * Instances of this class hold a cached connector and the user for which it has been created.
+     *
+     * @author Axel Faust
+     */
+    protected static class CachedConnector
+    {
+
+        protected final String userId;
+
+        protected final Connector connector;
+
+        protected CachedConnector(final String userId, final Connector connector)
+        {
+            this.userId = userId;
+            this.connector = connector;
+        }
+    }
 }
@@ -37,6 +37,8 @@ import org.springframework.core.io.Resource;
 import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
 import org.springframework.core.io.support.ResourcePatternResolver;
 
+import de.acosix.alfresco.utility.share.spring.StartupResourceIndex;
+
 /**
  * Initialises Log4j's logger repository. The actual implementation uses introspection to avoid any hard-coded references to Log4J classes.
  * If Log4J is not present, this class will do nothing.
@@ -160,7 +162,8 @@ public class Log4jHierarchyInit implements InitializingBean, ApplicationContextA
 
         try
         {
-            resources = this.resolver.getResources(springUrl);
+            // answered from shared index instead of scanning all libraries for each URL
+            resources = StartupResourceIndex.getResources(this.resolver, springUrl);
         }
         catch (final Exception e)
         {
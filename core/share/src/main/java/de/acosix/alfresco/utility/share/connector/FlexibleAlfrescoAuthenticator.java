@@ -15,10 +15,14 @@
  */
 package de.acosix.alfresco.utility.share.connector;
 
-import java.util.Arrays;
-import java.util.List;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Set;
 
 import org.alfresco.web.site.servlet.SlingshotAlfrescoConnector;
+import org.springframework.extensions.surf.RequestContext;
+import org.springframework.extensions.surf.support.ThreadLocalRequestContext;
 import org.springframework.extensions.webscripts.connector.AlfrescoAuthenticator;
 import org.springframework.extensions.webscripts.connector.ConnectorSession;
 
@@ -34,6 +38,10 @@ import de.acosix.alfresco.utility.share.servlet.ServletHelper;
  * <li>presence of a backend session cookie in the connector session (indicating session-based SSO mechanisms)</li>
  * </ul>
  *
+ * Since this authenticator is instantiated per reflection, the names of the backend session cookies can only be configured via the system
+ * property {@value #SESSION_COOKIE_NAMES_PROPERTY} as a comma-separated list, defaulting to {@code JSESSIONID}. A positive authentication
+ * decision based on either a remote user header or a backend session cookie is remembered for the remainder of the current request.
+ *
  * Instances of this class continue to only support ad-hoc authentication / handshake when the user has authenticated using the Share login
  * form.
  *
@@ -42,6 +50,28 @@ import de.acosix.alfresco.utility.share.servlet.ServletHelper;
 public class FlexibleAlfrescoAuthenticator extends AlfrescoAuthenticator
 {
 
+    public static final String SESSION_COOKIE_NAMES_PROPERTY = "acosix-utility.share.connector.sessionCookieNames";
+
+    protected static final String DEFAULT_SESSION_COOKIE_NAMES = "JSESSIONID";
+
+    protected static final Set<String> SESSION_COOKIE_NAMES;
+    static
+    {
+        final String[] cookieNames = System.getProperty(SESSION_COOKIE_NAMES_PROPERTY, DEFAULT_SESSION_COOKIE_NAMES).split(",");
+        // pre-sized to avoid rehashing (default load factor 0.75)
+        final Set<String> sessionCookieNames = new HashSet<>(cookieNames.length * 4 / 3 + 1);
+        for (final String cookieName : cookieNames)
+        {
+            if (!cookieName.trim().isEmpty())
+            {
+                sessionCookieNames.add(cookieName.trim());
+            }
+        }
+        SESSION_COOKIE_NAMES = Collections.unmodifiableSet(sessionCookieNames);
+    }
+
+    protected static final String AUTHENTICATED_MEMO_KEY = FlexibleAlfrescoAuthenticator.class.getName() + ".authenticated";
+
     /**
      *
      * {@inheritDoc}
@@ -51,22 +81,45 @@ public class FlexibleAlfrescoAuthenticator extends AlfrescoAuthenticator
     {
         boolean authenticated = super.isAuthenticated(endpoint, connectorSession);
 
-        if (!authenticated)
-        {
-            authenticated = this.isRemoteUserAuthenticated(connectorSession);
-        }
-
         if (!authenticated && connectorSession != null)
         {
-            final List<String> cookieNames = Arrays.asList(connectorSession.getCookieNames());
-            // TODO make cookie name to check configurable
-            // authenticator is unfortunately instantiated per reflection
-            authenticated = cookieNames.contains("JSESSIONID");
+            final RequestContext requestContext = ThreadLocalRequestContext.getRequestContext();
+            final IdentityHashMap<ConnectorSession, Set<String>> authenticatedEndpoints = this.getAuthenticatedEndpoints(requestContext);
+            // connector session is specific to endpoint and user session - session instance itself as key to avoid any hash collisions
+            final Set<String> endpoints = authenticatedEndpoints != null ? authenticatedEndpoints.get(connectorSession) : null;
+            authenticated = endpoints != null && endpoints.contains(endpoint);
+
+            if (!authenticated)
+            {
+                authenticated = this.isRemoteUserAuthenticated(connectorSession) || this.isSessionCookieAuthenticated(connectorSession);
+
+                // only positive decision may be remembered - a negative decision will be followed by a handshake within the same request
+                if (authenticated && authenticatedEndpoints != null)
+                {
+                    authenticatedEndpoints.computeIfAbsent(connectorSession, cs -> new HashSet<>()).add(endpoint);
+                }
+            }
         }
 
         return authenticated;
     }
 
+    @SuppressWarnings("unchecked")
+    protected IdentityHashMap<ConnectorSession, Set<String>> getAuthenticatedEndpoints(final RequestContext requestContext)
+    {
+        IdentityHashMap<ConnectorSession, Set<String>> authenticatedEndpoints = null;
+        if (requestContext != null)
+        {
+            authenticatedEndpoints = (IdentityHashMap<ConnectorSession, Set<String>>) requestContext.getValue(AUTHENTICATED_MEMO_KEY);
+            if (authenticatedEndpoints == null)
+            {
+                authenticatedEndpoints = new IdentityHashMap<>();
+                requestContext.setValue(AUTHENTICATED_MEMO_KEY, authenticatedEndpoints);
+            }
+        }
+        return authenticatedEndpoints;
+    }
+
     protected boolean isRemoteUserAuthenticated(final ConnectorSession connectorSession)
     {
         boolean authenticated = false;
@@ -82,4 +135,15 @@ public class FlexibleAlfrescoAuthenticator extends AlfrescoAuthenticator
         }
         return authenticated;
     }
+
+    protected boolean isSessionCookieAuthenticated(final ConnectorSession connectorSession)
+    {
+        boolean authenticated = false;
+        final String[] cookieNames = connectorSession.getCookieNames();
+        for (int idx = 0; !authenticated && idx < cookieNames.length; idx++)
+        {
+            authenticated = SESSION_COOKIE_NAMES.contains(cookieNames[idx]);
+        }
+        return authenticated;
+    }
 }
@@ -15,35 +15,64 @@
  */
 package de.acosix.alfresco.utility.share.connector;
 
+import java.net.URL;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
 
 import org.alfresco.web.scripts.SlingshotRemoteClient;
+import org.apache.http.client.HttpClient;
+import org.apache.http.pool.PoolStats;
 
 /**
  * Instances of this class allow for simpler modification of complex request settings in order to dynamically adapt the behaviour depending
  * on the authentication state. Since remote client instances are handled via a prototype bean, it is safe to modify the state of these
  * objects in concurrent requests / threads, as each context uses its own, isolated instance.
  *
+ * The configured sets / maps of headers, properties and cookies are held as immutable snapshots, which are shared between the prototype
+ * and its clones, and only copied when a clone layers its own modifications on top. Header rules are compiled into case-insensitive
+ * snapshots, so that each header of a request / response is matched with a single lookup regardless of the case used in the configuration
+ * or by the client / server.
+ *
+ * Optionally, calls can be made using an injected {@link PooledHttpTransport pooled HTTP transport}, which is shared by all remote clients
+ * and keeps connections to the backend alive between calls.
+ *
  * @author Axel Faust
  */
 public class MutableSlingshotRemoteClient extends SlingshotRemoteClient
 {
 
-    protected Set<String> removeRequestHeaders = new HashSet<>();
+    protected Set<String> removeRequestHeaders = Collections.emptySet();
 
-    protected Set<String> removeResponseHeaders = new HashSet<>();
+    protected Set<String> removeResponseHeaders = Collections.emptySet();
 
-    protected Map<String, String> requestProperties = new HashMap<>();
+    protected Map<String, String> requestProperties = Collections.emptyMap();
 
-    protected Map<String, String> requestHeaders = new HashMap<>();
+    protected Map<String, String> requestHeaders = Collections.emptyMap();
 
-    protected Map<String, String> cookies = new HashMap<>();
+    protected Map<String, String> cookies = Collections.emptyMap();
 
     protected boolean swfEnabled;
 
+    protected int configuredConnectTimeout = -1;
+
+    protected int configuredReadTimeout = -1;
+
+    protected PooledHttpTransport pooledTransport;
+
+    /**
+     * @param pooledTransport
+     *            the pooledTransport to set
+     */
+    public void setPooledTransport(final PooledHttpTransport pooledTransport)
+    {
+        this.pooledTransport = pooledTransport;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -54,6 +83,55 @@ public class MutableSlingshotRemoteClient extends SlingshotRemoteClient
         this.swfEnabled = swfEnabled;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setConnectTimeout(final int connectTimeout)
+    {
+        super.setConnectTimeout(connectTimeout);
+        this.configuredConnectTimeout = connectTimeout;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setReadTimeout(final int readTimeout)
+    {
+        super.setReadTimeout(readTimeout);
+        this.configuredReadTimeout = readTimeout;
+    }
+
+    /**
+     * Retrieves the statistics of the pooled HTTP transport.
+     *
+     * @return the statistics of the connections in the pool - will be empty if no pooled HTTP transport is used
+     * @see PooledHttpTransport#getPoolStats()
+     */
+    public Map<String, PoolStats> getPooledTransportStats()
+    {
+        return this.pooledTransport != null ? this.pooledTransport.getPoolStats() : Collections.emptyMap();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected HttpClient createHttpClient(final URL url)
+    {
+        final HttpClient httpClient;
+        if (this.pooledTransport != null && this.pooledTransport.isEnabled())
+        {
+            httpClient = this.pooledTransport.getHttpClient(this.configuredConnectTimeout, this.configuredReadTimeout);
+        }
+        else
+        {
+            httpClient = super.createHttpClient(url);
+        }
+        return httpClient;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -64,17 +142,9 @@ public class MutableSlingshotRemoteClient extends SlingshotRemoteClient
         // not handled by base class
         clone.setSwfEnabled(this.swfEnabled);
 
-        // our custom state
-        clone.removeRequestHeaders = new HashSet<>();
-        clone.removeResponseHeaders = new HashSet<>();
-        clone.requestHeaders = new HashMap<>();
-        clone.requestProperties = new HashMap<>();
-        clone.cookies = new HashMap<>();
-        clone.setRemoveRequestHeaders(this.removeRequestHeaders);
-        clone.setRemoveResponseHeaders(this.removeResponseHeaders);
-        clone.setRequestHeaders(this.requestHeaders);
-        clone.setRequestProperties(this.requestProperties);
-        clone.setCookies(this.cookies);
+        // our custom state consists of immutable snapshots already shared with the base class via the shallow clone
+        // cookies are the only state the base class may modify itself while processing responses
+        clone.applyCookies();
 
         return clone;
     }
@@ -85,12 +155,8 @@ public class MutableSlingshotRemoteClient extends SlingshotRemoteClient
     @Override
     public void setRemoveRequestHeaders(final Set<String> removeRequestHeaders)
     {
-        this.removeRequestHeaders.clear();
-        if (removeRequestHeaders != null)
-        {
-            this.removeRequestHeaders.addAll(removeRequestHeaders);
-        }
-        super.setRemoveRequestHeaders(removeRequestHeaders);
+        this.removeRequestHeaders = headerNamesSnapshot(removeRequestHeaders);
+        super.setRemoveRequestHeaders(this.removeRequestHeaders);
     }
 
     /**
@@ -101,8 +167,9 @@ public class MutableSlingshotRemoteClient extends SlingshotRemoteClient
      */
     public void addRemoveRequestHeader(final String removeRequestHeader)
     {
-        this.removeRequestHeaders.add(removeRequestHeader);
-        super.setRemoveRequestHeaders(this.removeRequestHeaders);
+        final Set<String> removeRequestHeaders = new HashSet<>(this.removeRequestHeaders);
+        removeRequestHeaders.add(removeRequestHeader);
+        this.setRemoveRequestHeaders(removeRequestHeaders);
     }
 
     /**
@@ -111,12 +178,8 @@ public class MutableSlingshotRemoteClient extends SlingshotRemoteClient
     @Override
     public void setRemoveResponseHeaders(final Set<String> removeResponseHeaders)
     {
-        this.removeResponseHeaders.clear();
-        if (removeResponseHeaders != null)
-        {
-            this.removeResponseHeaders.addAll(removeResponseHeaders);
-        }
-        super.setRemoveResponseHeaders(removeResponseHeaders);
+        this.removeResponseHeaders = headerNamesSnapshot(removeResponseHeaders);
+        super.setRemoveResponseHeaders(this.removeResponseHeaders);
     }
 
     /**
@@ -127,8 +190,9 @@ public class MutableSlingshotRemoteClient extends SlingshotRemoteClient
      */
     public void addRemoveResponseHeader(final String removeResponseHeader)
     {
-        this.removeResponseHeaders.add(removeResponseHeader);
-        super.setRemoveResponseHeaders(this.removeResponseHeaders);
+        final Set<String> removeResponseHeaders = new HashSet<>(this.removeResponseHeaders);
+        removeResponseHeaders.add(removeResponseHeader);
+        this.setRemoveResponseHeaders(removeResponseHeaders);
     }
 
     /**
@@ -137,12 +201,8 @@ public class MutableSlingshotRemoteClient extends SlingshotRemoteClient
     @Override
     public void setRequestProperties(final Map<String, String> requestProperties)
     {
-        this.requestProperties.clear();
-        if (requestProperties != null)
-        {
-            this.requestProperties.putAll(requestProperties);
-        }
-        super.setRequestProperties(requestProperties);
+        this.requestProperties = snapshot(requestProperties);
+        super.setRequestProperties(this.requestProperties);
     }
 
     /**
@@ -155,8 +215,9 @@ public class MutableSlingshotRemoteClient extends SlingshotRemoteClient
      */
     public void addRequestProperty(final String name, final String value)
     {
-        this.requestProperties.put(name, value);
-        super.setRequestProperties(this.requestProperties);
+        final Map<String, String> requestProperties = new HashMap<>(this.requestProperties);
+        requestProperties.put(name, value);
+        this.setRequestProperties(requestProperties);
     }
 
     /**
@@ -165,12 +226,13 @@ public class MutableSlingshotRemoteClient extends SlingshotRemoteClient
     @Override
     public void setRequestHeaders(final Map<String, String> requestHeaders)
     {
-        this.requestHeaders.clear();
-        if (requestHeaders != null)
+        // connectors / authenticators may set the same headers for every call - only rebuild the snapshot when headers actually change
+        final Map<String, String> effectiveRequestHeaders = requestHeaders != null ? requestHeaders : Collections.emptyMap();
+        if (effectiveRequestHeaders != this.requestHeaders && !this.requestHeaders.equals(effectiveRequestHeaders))
         {
-            this.requestHeaders.putAll(requestHeaders);
+            this.requestHeaders = headersSnapshot(requestHeaders);
         }
-        super.setRequestHeaders(requestHeaders);
+        super.setRequestHeaders(this.requestHeaders);
     }
 
     /**
@@ -183,8 +245,9 @@ public class MutableSlingshotRemoteClient extends SlingshotRemoteClient
      */
     public void addRequestHeader(final String name, final String value)
     {
-        this.requestHeaders.put(name, value);
-        super.setRequestHeaders(this.requestHeaders);
+        final Map<String, String> requestHeaders = new HashMap<>(this.requestHeaders);
+        requestHeaders.put(name, value);
+        this.setRequestHeaders(requestHeaders);
     }
 
     /**
@@ -193,12 +256,8 @@ public class MutableSlingshotRemoteClient extends SlingshotRemoteClient
     @Override
     public void setCookies(final Map<String, String> cookies)
     {
-        this.cookies.clear();
-        if (cookies != null)
-        {
-            this.cookies.putAll(cookies);
-        }
-        super.setCookies(cookies);
+        this.cookies = snapshot(cookies);
+        this.applyCookies();
     }
 
     /**
@@ -211,8 +270,68 @@ public class MutableSlingshotRemoteClient extends SlingshotRemoteClient
      */
     public void addCookie(final String name, final String value)
     {
-        this.cookies.put(name, value);
-        super.setCookies(this.cookies);
+        final Map<String, String> cookies = new HashMap<>(this.cookies);
+        cookies.put(name, value);
+        this.setCookies(cookies);
+    }
+
+    /**
+     * Applies the configured cookies to the base class, using a mutable copy since the base class may store cookies set by the remote
+     * server in the map.
+     */
+    protected void applyCookies()
+    {
+        super.setCookies(new HashMap<>(this.cookies));
+    }
+
+    /**
+     * Creates an immutable, case-insensitive snapshot of a set of header names.
+     *
+     * @param headerNames
+     *            the header names to snapshot - may be {@code null}
+     * @return the immutable snapshot
+     */
+    protected static Set<String> headerNamesSnapshot(final Set<String> headerNames)
+    {
+        Set<String> snapshot = Collections.emptySet();
+        if (headerNames != null && !headerNames.isEmpty())
+        {
+            final Set<String> caseInsensitiveHeaderNames = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+            caseInsensitiveHeaderNames.addAll(headerNames);
+            snapshot = Collections.unmodifiableSet(caseInsensitiveHeaderNames);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Creates an immutable, case-insensitive snapshot of a map of headers.
+     *
+     * @param headers
+     *            the headers to snapshot - may be {@code null}
+     * @return the immutable snapshot
+     */
+    protected static Map<String, String> headersSnapshot(final Map<String, String> headers)
+    {
+        Map<String, String> snapshot = Collections.emptyMap();
+        if (headers != null && !headers.isEmpty())
+        {
+            final Map<String, String> caseInsensitiveHeaders = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+            caseInsensitiveHeaders.putAll(headers);
+            snapshot = Collections.unmodifiableMap(caseInsensitiveHeaders);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Creates an immutable snapshot of a map of values.
+     *
+     * @param values
+     *            the values to snapshot - may be {@code null}
+     * @return the immutable snapshot
+     */
+    protected static <K, V> Map<K, V> snapshot(final Map<K, V> values)
+    {
+        return values != null && !values.isEmpty() ? Collections.unmodifiableMap(new HashMap<>(values)) : Collections.emptyMap();
     }
 
 }
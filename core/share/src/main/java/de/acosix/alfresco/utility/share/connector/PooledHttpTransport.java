@@ -0,0 +1,314 @@
+/*
+ * Copyright 2016 - 2026 Acosix GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.acosix.alfresco.utility.share.connector;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.client.IdleConnectionEvictor;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+
+/**
+ * Instances of this class provide a pooled HTTP transport for {@link MutableSlingshotRemoteClient remote clients}, keeping connections
+ * to the backend alive between calls to avoid repeated TCP / TLS handshakes. Instances are meant to be defined as singleton beans which
+ * are injected into remote client prototypes, so that a single connection pool is shared by all remote clients, and are shut down when
+ * their application context is closed.
+ *
+ * The provided clients do not manage cookies, authentication state or redirects, as all of these are handled by the remote client for
+ * the specific user on whose behalf a call is made. Clients are provided per combination of connect / read timeout, all using the same
+ * connection pool.
+ *
+ * @author Axel Faust
+ */
+public class PooledHttpTransport implements DisposableBean
+{
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PooledHttpTransport.class);
+
+    protected boolean enabled = false;
+
+    protected int maxConnections = 200;
+
+    protected int maxConnectionsPerRoute = 50;
+
+    protected long keepAliveTimeout = 60000;
+
+    protected long idleConnectionTimeout = 30000;
+
+    protected boolean contentCompressionEnabled = true;
+
+    protected int connectTimeout = -1;
+
+    protected int readTimeout = -1;
+
+    protected volatile PoolingHttpClientConnectionManager connectionManager;
+
+    protected volatile IdleConnectionEvictor idleConnectionEvictor;
+
+    protected final ConcurrentMap<Long, HttpClient> httpClients = new ConcurrentHashMap<>();
+
+    protected volatile boolean destroyed;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void destroy()
+    {
+        synchronized (this)
+        {
+            this.destroyed = true;
+            this.httpClients.clear();
+
+            final IdleConnectionEvictor idleConnectionEvictor = this.idleConnectionEvictor;
+            this.idleConnectionEvictor = null;
+            if (idleConnectionEvictor != null)
+            {
+                idleConnectionEvictor.shutdown();
+            }
+
+            final PoolingHttpClientConnectionManager connectionManager = this.connectionManager;
+            this.connectionManager = null;
+            if (connectionManager != null)
+            {
+                LOGGER.debug("Shutting down pooled HTTP transport");
+                connectionManager.shutdown();
+            }
+        }
+    }
+
+    /**
+     * @return {@code true} if the pooled transport is enabled, {@code false} otherwise
+     */
+    public boolean isEnabled()
+    {
+        return this.enabled;
+    }
+
+    /**
+     * @param enabled
+     *            the enabled to set
+     */
+    public void setEnabled(final boolean enabled)
+    {
+        this.enabled = enabled;
+    }
+
+    /**
+     * @param maxConnections
+     *            the maxConnections to set
+     */
+    public void setMaxConnections(final int maxConnections)
+    {
+        this.maxConnections = maxConnections;
+    }
+
+    /**
+     * @param maxConnectionsPerRoute
+     *            the maxConnectionsPerRoute to set
+     */
+    public void setMaxConnectionsPerRoute(final int maxConnectionsPerRoute)
+    {
+        this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+    }
+
+    /**
+     * Sets the maximum time in milliseconds to keep an idle connection alive if the server does not specify a shorter timeout itself.
+     *
+     * @param keepAliveTimeout
+     *            the keepAliveTimeout to set
+     */
+    public void setKeepAliveTimeout(final long keepAliveTimeout)
+    {
+        this.keepAliveTimeout = keepAliveTimeout;
+    }
+
+    /**
+     * Sets the time in milliseconds after which idle connections are evicted from the pool.
+     *
+     * @param idleConnectionTimeout
+     *            the idleConnectionTimeout to set
+     */
+    public void setIdleConnectionTimeout(final long idleConnectionTimeout)
+    {
+        this.idleConnectionTimeout = idleConnectionTimeout;
+    }
+
+    /**
+     * @param contentCompressionEnabled
+     *            the contentCompressionEnabled to set
+     */
+    public void setContentCompressionEnabled(final boolean contentCompressionEnabled)
+    {
+        this.contentCompressionEnabled = contentCompressionEnabled;
+    }
+
+    /**
+     * Sets the default connect timeout in milliseconds for clients which do not specify their own timeout.
+     *
+     * @param connectTimeout
+     *            the connectTimeout to set
+     */
+    public void setConnectTimeout(final int connectTimeout)
+    {
+        this.connectTimeout = connectTimeout;
+    }
+
+    /**
+     * Sets the default read timeout in milliseconds for clients which do not specify their own timeout.
+     *
+     * @param readTimeout
+     *            the readTimeout to set
+     */
+    public void setReadTimeout(final int readTimeout)
+    {
+        this.readTimeout = readTimeout;
+    }
+
+    /**
+     * Retrieves a pooled HTTP client using the default timeouts, initialising the connection pool on first use.
+     *
+     * @return the pooled HTTP client
+     */
+    public HttpClient getHttpClient()
+    {
+        return this.getHttpClient(-1, -1);
+    }
+
+    /**
+     * Retrieves a pooled HTTP client using specific timeouts, initialising the connection pool on first use.
+     *
+     * @param connectTimeout
+     *            the connect timeout in milliseconds, or a negative value to use the default timeout of this transport
+     * @param readTimeout
+     *            the read timeout in milliseconds, or a negative value to use the default timeout of this transport
+     * @return the pooled HTTP client
+     */
+    public HttpClient getHttpClient(final int connectTimeout, final int readTimeout)
+    {
+        final int effectiveConnectTimeout = connectTimeout >= 0 ? connectTimeout : this.connectTimeout;
+        final int effectiveReadTimeout = readTimeout >= 0 ? readTimeout : this.readTimeout;
+        final Long key = Long.valueOf(((long) effectiveConnectTimeout << 32) | (effectiveReadTimeout & 0xffffffffL));
+
+        HttpClient httpClient = this.httpClients.get(key);
+        if (httpClient == null)
+        {
+            synchronized (this)
+            {
+                if (this.destroyed)
+                {
+                    throw new IllegalStateException("Pooled HTTP transport has already been destroyed");
+                }
+
+                httpClient = this.httpClients.get(key);
+                if (httpClient == null)
+                {
+                    if (this.connectionManager == null)
+                    {
+                        this.initConnectionPool();
+                    }
+                    httpClient = this.createHttpClient(effectiveConnectTimeout, effectiveReadTimeout);
+                    this.httpClients.put(key, httpClient);
+                }
+            }
+        }
+        return httpClient;
+    }
+
+    /**
+     * Retrieves the statistics of the connection pool.
+     *
+     * @return the statistics of the connections in the pool, mapped by the route to the backend, with the totals of the pool mapped to
+     *         the key {@code total} - will be empty if the pool has not yet been initialised
+     */
+    public Map<String, PoolStats> getPoolStats()
+    {
+        final Map<String, PoolStats> poolStats = new LinkedHashMap<>();
+        final PoolingHttpClientConnectionManager connectionManager = this.connectionManager;
+        if (connectionManager != null)
+        {
+            poolStats.put("total", connectionManager.getTotalStats());
+            for (final HttpRoute route : connectionManager.getRoutes())
+            {
+                poolStats.put(route.toString(), connectionManager.getStats(route));
+            }
+        }
+        return poolStats;
+    }
+
+    protected void initConnectionPool()
+    {
+        LOGGER.debug("Initialising pooled HTTP transport with up to {} connections ({} per route)", this.maxConnections,
+                this.maxConnectionsPerRoute);
+
+        final Registry<ConnectionSocketFactory> socketFactoryRegistry = RegistryBuilder.<ConnectionSocketFactory> create()
+                .register("http", PlainConnectionSocketFactory.getSocketFactory())
+                .register("https", SSLConnectionSocketFactory.getSystemSocketFactory()).build();
+        final PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager(socketFactoryRegistry);
+        connectionManager.setMaxTotal(this.maxConnections);
+        connectionManager.setDefaultMaxPerRoute(this.maxConnectionsPerRoute);
+        this.connectionManager = connectionManager;
+
+        if (this.idleConnectionTimeout > 0)
+        {
+            // evictor runs as daemon thread
+            final IdleConnectionEvictor idleConnectionEvictor = new IdleConnectionEvictor(connectionManager, this.idleConnectionTimeout,
+                    TimeUnit.MILLISECONDS);
+            idleConnectionEvictor.start();
+            this.idleConnectionEvictor = idleConnectionEvictor;
+        }
+    }
+
+    protected HttpClient createHttpClient(final int connectTimeout, final int readTimeout)
+    {
+        final long keepAliveTimeout = this.keepAliveTimeout;
+        final ConnectionKeepAliveStrategy keepAliveStrategy = (response, context) -> {
+            final long serverKeepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+            return serverKeepAlive > 0 && serverKeepAlive < keepAliveTimeout ? serverKeepAlive : keepAliveTimeout;
+        };
+
+        final HttpClientBuilder builder = HttpClientBuilder.create().useSystemProperties().setConnectionManager(this.connectionManager)
+                // pool outlives any client closed by remote client
+                .setConnectionManagerShared(true).setKeepAliveStrategy(keepAliveStrategy)
+                // all handled per user by the remote client - must never be shared between calls
+                .disableCookieManagement().disableAuthCaching().disableRedirectHandling()
+                .setDefaultRequestConfig(RequestConfig.custom().setConnectTimeout(connectTimeout).setSocketTimeout(readTimeout).build());
+        if (!this.contentCompressionEnabled)
+        {
+            builder.disableContentCompression();
+        }
+
+        return builder.build();
+    }
+}
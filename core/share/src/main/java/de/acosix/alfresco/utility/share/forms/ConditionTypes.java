@@ -0,0 +1,53 @@
+/*
+ * Copyright 2016 - 2026 Acosix GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.acosix.alfresco.utility.share.forms;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This class provides the parsed sets of types from conditions of config sections, listing types separated by semi-colons. Conditions
+ * are taken from the static Share configuration, so the parsed sets are cached for the lifetime of the application.
+ *
+ * @author Axel Faust
+ */
+final class ConditionTypes
+{
+
+    private static final Map<String, Set<String>> TYPES_BY_CONDITION = new ConcurrentHashMap<>();
+
+    private ConditionTypes()
+    {
+        // NO-OP
+    }
+
+    /**
+     * Retrieves the types listed in a condition.
+     *
+     * @param condition
+     *     the condition to parse
+     * @return the set of types in the order they are listed in the condition
+     */
+    static Set<String> getTypes(final String condition)
+    {
+        return TYPES_BY_CONDITION.computeIfAbsent(condition,
+                c -> Collections.unmodifiableSet(new LinkedHashSet<>(Arrays.asList(c.split(";")))));
+    }
+}
@@ -1,7 +1,5 @@
 package de.acosix.alfresco.utility.share.forms;
 
-import java.util.Arrays;
-
 import org.alfresco.web.config.forms.ModelTypeEvaluator;
 
 /**
@@ -20,8 +18,7 @@ public class MultiModelTypeEvaluator extends ModelTypeEvaluator
     @Override
     public boolean applies(final Object obj, final String condition)
     {
-        final String[] conditionFragments = condition.split(";");
-        final boolean result = Arrays.asList(conditionFragments).stream().anyMatch(c -> super.applies(obj, c));
+        final boolean result = ConditionTypes.getTypes(condition).stream().anyMatch(c -> super.applies(obj, c));
         return result;
     }
 }
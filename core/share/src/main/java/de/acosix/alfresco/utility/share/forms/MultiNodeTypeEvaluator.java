@@ -15,8 +15,8 @@
  */
 package de.acosix.alfresco.utility.share.forms;
 
-import java.util.Arrays;
-import java.util.List;
+import java.util.HashMap;
+import java.util.regex.Pattern;
 
 import org.alfresco.web.config.forms.NodeMetadataBasedEvaluator;
 import org.apache.commons.logging.Log;
@@ -24,11 +24,16 @@ import org.apache.commons.logging.LogFactory;
 import org.json.JSONException;
 import org.json.JSONObject;
 import org.json.JSONTokener;
+import org.springframework.extensions.surf.RequestContext;
+import org.springframework.extensions.surf.exception.ConnectorServiceException;
+import org.springframework.extensions.surf.support.ThreadLocalRequestContext;
 
 /**
  * This evaluator implementation supports the evaluation of a node's type against a list of node types (separated by semi-colons) in the
  * condition of a config section.
  *
+ * The type of a node is only looked up once per request, no matter how many config sections are evaluated against it.
+ *
  * @author Axel Faust
  */
 public class MultiNodeTypeEvaluator extends NodeMetadataBasedEvaluator
@@ -39,6 +44,13 @@ public class MultiNodeTypeEvaluator extends NodeMetadataBasedEvaluator
 
     protected static final String JSON_TYPE = "type";
 
+    protected static final String NODE_TYPES_KEY = MultiNodeTypeEvaluator.class.getName() + ".nodeTypes";
+
+    // marker for nodes whose type could not be determined
+    protected static final String UNKNOWN_TYPE = "";
+
+    protected static final Pattern NODE_REF_PATTERN = Pattern.compile(".+://.+/.+");
+
     /**
      *
      * {@inheritDoc}
@@ -49,6 +61,23 @@ public class MultiNodeTypeEvaluator extends NodeMetadataBasedEvaluator
         return LEGACY_LOGGER;
     }
 
+    /**
+     *
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean applies(final Object obj, final String condition)
+    {
+        boolean result = false;
+        // quick test before running slower regex based test
+        if (obj instanceof String && ((String) obj).indexOf(':') != -1 && NODE_REF_PATTERN.matcher((String) obj).matches())
+        {
+            final String nodeType = this.getNodeType((String) obj);
+            result = !UNKNOWN_TYPE.equals(nodeType) && ConditionTypes.getTypes(condition).contains(nodeType);
+        }
+        return result;
+    }
+
     /**
      * This method checks if the specified condition is matched by the node type
      * within the specified jsonResponse String.
@@ -58,21 +87,97 @@ public class MultiNodeTypeEvaluator extends NodeMetadataBasedEvaluator
     @Override
     protected boolean checkJsonAgainstCondition(final String condition, final String jsonResponseString)
     {
-        boolean result = false;
+        final String nodeType = this.extractNodeType(jsonResponseString);
+        final boolean result = !UNKNOWN_TYPE.equals(nodeType) && ConditionTypes.getTypes(condition).contains(nodeType);
+        return result;
+    }
+
+    /**
+     * Retrieves the type of a node, using the types already looked up in the current request where possible.
+     *
+     * @param nodeRef
+     *            the node reference
+     * @return the short type name of the node or {@link #UNKNOWN_TYPE} if the type could not be determined
+     */
+    protected String getNodeType(final String nodeRef)
+    {
+        final RequestContext requestContext = ThreadLocalRequestContext.getRequestContext();
+
+        String nodeType;
+        if (requestContext != null)
+        {
+            @SuppressWarnings("unchecked")
+            HashMap<String, String> nodeTypes = (HashMap<String, String>) requestContext.getValue(NODE_TYPES_KEY);
+            if (nodeTypes == null)
+            {
+                nodeTypes = new HashMap<>();
+                requestContext.setValue(NODE_TYPES_KEY, nodeTypes);
+            }
+
+            nodeType = nodeTypes.get(nodeRef);
+            if (nodeType == null)
+            {
+                nodeType = this.lookupNodeType(nodeRef);
+                nodeTypes.put(nodeRef, nodeType);
+            }
+        }
+        else
+        {
+            nodeType = this.lookupNodeType(nodeRef);
+        }
+
+        return nodeType;
+    }
+
+    /**
+     * Looks up the type of a single node via the metadata service.
+     *
+     * @param nodeRef
+     *            the node reference
+     * @return the short type name of the node or {@link #UNKNOWN_TYPE} if the type could not be determined
+     */
+    protected String lookupNodeType(final String nodeRef)
+    {
+        String nodeType = UNKNOWN_TYPE;
         try
         {
-            final JSONObject json = new JSONObject(new JSONTokener(jsonResponseString));
-            Object typeObj = null;
-            if (json.has(JSON_TYPE))
+            final String jsonResponseString = this.callMetadataService(nodeRef);
+            if (jsonResponseString != null)
             {
-                typeObj = json.get(JSON_TYPE);
+                nodeType = this.extractNodeType(jsonResponseString);
             }
+            else if (this.getLogger().isWarnEnabled())
+            {
+                this.getLogger().warn("Metadata service response appears to have been null!");
+            }
+        }
+        catch (final ConnectorServiceException e)
+        {
+            if (this.getLogger().isWarnEnabled())
+            {
+                this.getLogger().warn("Failed to connect to metadata service.", e);
+            }
+        }
+        return nodeType;
+    }
 
+    /**
+     * Extracts the type of a node from the JSON response of the metadata service.
+     *
+     * @param jsonResponseString
+     *            the JSON response
+     * @return the short type name of the node or {@link #UNKNOWN_TYPE} if the response does not contain a type
+     */
+    protected String extractNodeType(final String jsonResponseString)
+    {
+        String nodeType = UNKNOWN_TYPE;
+        try
+        {
+            final JSONObject json = new JSONObject(new JSONTokener(jsonResponseString));
+            final Object typeObj = json.opt(JSON_TYPE);
             if (typeObj instanceof String)
             {
-                final String typeString = (String) typeObj;
-                final List<String> conditionTypes = Arrays.asList(condition.split(";"));
-                result = conditionTypes.contains(typeString);
+                nodeType = (String) typeObj;
             }
         }
         catch (final JSONException e)
@@ -82,6 +187,6 @@ public class MultiNodeTypeEvaluator extends NodeMetadataBasedEvaluator
                 this.getLogger().warn("Failed to find node type in JSON response from metadata service: " + e.getMessage(), e);
             }
         }
-        return result;
+        return nodeType;
     }
 }
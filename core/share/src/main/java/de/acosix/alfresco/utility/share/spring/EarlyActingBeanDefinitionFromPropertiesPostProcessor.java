@@ -42,6 +42,9 @@ public class EarlyActingBeanDefinitionFromPropertiesPostProcessor extends BeanDe
     @Override
     public void afterPropertiesSet()
     {
+        // as the earliest acting component, start building the index in parallel to the remaining Spring startup
+        StartupResourceIndex.prepare(this.applicationContext != null ? this.applicationContext.getClassLoader() : null);
+
         super.afterPropertiesSet();
 
         if (this.beanFactory instanceof BeanDefinitionRegistry)
@@ -0,0 +1,566 @@
+/*
+ * Copyright 2016 - 2026 Acosix GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.acosix.alfresco.utility.share.spring;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.JarURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.UrlResource;
+import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.PathMatcher;
+import org.springframework.util.ResourceUtils;
+
+/**
+ * Instances of this class provide an in-memory index of the classpath resources relevant during the startup of Share, allowing
+ * {@code classpath*:} location patterns to be resolved without scanning all the libraries of the web application for every single pattern.
+ * The index covers the entries of all classpath roots (libraries / directories) within the {@link #ROOTS_PROPERTY configured root
+ * directories} up to a {@link #MAX_DEPTH_PROPERTY maximum depth}, and is built once per class loader, scanning the roots in parallel.
+ * Location patterns not covered by the index, e.g. using {@code **} or exceeding the maximum depth, are resolved using the regular resource
+ * pattern resolver.
+ *
+ * Since this index is shared by components instantiated early in the Spring lifecycle, it can only be configured via system properties. If
+ * the system property {@value #FILE_PROPERTY} specifies a file path, the index entries of all libraries are persisted to that file and
+ * reused on subsequent startups for all libraries which have not changed in size or modification date.
+ *
+ * @author Axel Faust
+ */
+public final class StartupResourceIndex
+{
+
+    public static final String ENABLED_PROPERTY = "acosix-utility.share.startupResourceIndex.enabled";
+
+    public static final String ROOTS_PROPERTY = "acosix-utility.share.startupResourceIndex.roots";
+
+    public static final String MAX_DEPTH_PROPERTY = "acosix-utility.share.startupResourceIndex.maxDepth";
+
+    public static final String FILE_PROPERTY = "acosix-utility.share.startupResourceIndex.file";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(StartupResourceIndex.class);
+
+    private static final String DEFAULT_ROOTS = "alfresco/";
+
+    // enough for alfresco/module/{module.id}/{file}
+    private static final int DEFAULT_MAX_DEPTH = 4;
+
+    private static final int PERSISTED_FORMAT_VERSION = 1;
+
+    private static final PathMatcher PATH_MATCHER = new AntPathMatcher();
+
+    // class loaders are only weakly referenced to not prevent web application undeployment
+    private static final Map<ClassLoader, CompletableFuture<StartupResourceIndex>> INDICES = new WeakHashMap<>();
+
+    private final List<String> roots;
+
+    private final int maxDepth;
+
+    private final Map<String, List<String>> pathsByContainer;
+
+    StartupResourceIndex(final List<String> roots, final int maxDepth, final Map<String, List<String>> pathsByContainer)
+    {
+        this.roots = roots;
+        this.maxDepth = maxDepth;
+        this.pathsByContainer = pathsByContainer;
+    }
+
+    /**
+     * Triggers the asynchronous build of the index for a class loader, unless the index has already been built or is currently being built.
+     *
+     * @param classLoader
+     *            the class loader for which to build the index, or {@code null} to use the default class loader
+     */
+    public static void prepare(final ClassLoader classLoader)
+    {
+        getIndex(classLoader);
+    }
+
+    /**
+     * Resolves a location pattern into matching resources, using the index for {@code classpath*:} patterns covered by it.
+     *
+     * @param resolver
+     *            the resolver to use for location patterns not covered by the index
+     * @param locationPattern
+     *            the location pattern to resolve
+     * @return the matching resources
+     * @throws IOException
+     *             if an error occurs resolving the location pattern
+     */
+    public static Resource[] getResources(final ResourcePatternResolver resolver, final String locationPattern) throws IOException
+    {
+        if (locationPattern.startsWith(ResourcePatternResolver.CLASSPATH_ALL_URL_PREFIX))
+        {
+            final String pathPattern = locationPattern.substring(ResourcePatternResolver.CLASSPATH_ALL_URL_PREFIX.length());
+            final StartupResourceIndex index = PATH_MATCHER.isPattern(pathPattern) ? getIndex(resolver.getClassLoader()).join() : null;
+            if (index != null && index.covers(pathPattern))
+            {
+                return index.resolveResources(resolver, pathPattern);
+            }
+        }
+        return resolver.getResources(locationPattern);
+    }
+
+    private static CompletableFuture<StartupResourceIndex> getIndex(final ClassLoader classLoader)
+    {
+        final ClassLoader effectiveClassLoader = classLoader != null ? classLoader : ClassUtils.getDefaultClassLoader();
+        if (!Boolean.parseBoolean(System.getProperty(ENABLED_PROPERTY, "true")) || effectiveClassLoader == null)
+        {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        synchronized (INDICES)
+        {
+            return INDICES.computeIfAbsent(effectiveClassLoader, cl -> {
+                final List<String> roots = Arrays.stream(System.getProperty(ROOTS_PROPERTY, DEFAULT_ROOTS).split(",")).map(String::trim)
+                        .filter(root -> !root.isEmpty()).map(root -> root.endsWith("/") ? root : (root + "/"))
+                        .collect(Collectors.toList());
+                final int maxDepth = getMaxDepth();
+                final String file = System.getProperty(FILE_PROPERTY, "").trim();
+
+                return CompletableFuture.supplyAsync(() -> build(cl, roots, maxDepth, file.isEmpty() ? null : new File(file)))
+                        .exceptionally(ex -> {
+                            LOGGER.warn("Failed to build startup resource index - falling back to regular resource resolution", ex);
+                            return null;
+                        });
+            });
+        }
+    }
+
+    private static int getMaxDepth()
+    {
+        final String maxDepthValue = System.getProperty(MAX_DEPTH_PROPERTY, "").trim();
+        int maxDepth = DEFAULT_MAX_DEPTH;
+        if (!maxDepthValue.isEmpty())
+        {
+            try
+            {
+                maxDepth = Integer.parseInt(maxDepthValue);
+            }
+            catch (final NumberFormatException nfex)
+            {
+                maxDepth = -1;
+            }
+
+            if (maxDepth < 1)
+            {
+                LOGGER.warn("Invalid value {} for {} - using default of {}", maxDepthValue, MAX_DEPTH_PROPERTY, DEFAULT_MAX_DEPTH);
+                maxDepth = DEFAULT_MAX_DEPTH;
+            }
+        }
+        return maxDepth;
+    }
+
+    static StartupResourceIndex build(final ClassLoader classLoader, final List<String> roots, final int maxDepth,
+            final File persistedIndexFile)
+    {
+        final long start = System.currentTimeMillis();
+
+        final Set<String> containers = new LinkedHashSet<>();
+        for (final String root : roots)
+        {
+            try
+            {
+                final Enumeration<URL> rootUrls = classLoader.getResources(root);
+                while (rootUrls.hasMoreElements())
+                {
+                    final String rootUrl = rootUrls.nextElement().toExternalForm();
+                    if (rootUrl.endsWith(root))
+                    {
+                        containers.add(rootUrl.substring(0, rootUrl.length() - root.length()));
+                    }
+                }
+            }
+            catch (final IOException ioex)
+            {
+                throw new IllegalStateException("Failed to determine classpath roots for " + root, ioex);
+            }
+        }
+
+        final Map<String, PersistedContainer> persistedContainers = persistedIndexFile != null
+                ? readPersistedContainers(persistedIndexFile, roots, maxDepth)
+                : Collections.emptyMap();
+
+        final List<PersistedContainer> scannedContainers = containers.parallelStream()
+                .map(container -> scanContainer(container, roots, maxDepth, persistedContainers.get(container)))
+                .collect(Collectors.toList());
+
+        final Map<String, List<String>> pathsByContainer = new HashMap<>();
+        final List<PersistedContainer> persistableContainers = new ArrayList<>();
+        boolean persistedIndexChanged = false;
+        for (final PersistedContainer scannedContainer : scannedContainers)
+        {
+            // null if container could not be scanned - will be resolved using regular resolver
+            if (scannedContainer.paths != null)
+            {
+                pathsByContainer.put(scannedContainer.container, scannedContainer.paths);
+
+                // only JAR libraries can be validated on subsequent startups
+                if (scannedContainer.length != -1)
+                {
+                    persistableContainers.add(scannedContainer);
+                    // scan reuses persisted instance if library is unchanged
+                    persistedIndexChanged |= persistedContainers.get(scannedContainer.container) != scannedContainer;
+                }
+            }
+        }
+
+        if (persistedIndexFile != null && (persistedIndexChanged || persistableContainers.size() != persistedContainers.size()))
+        {
+            writePersistedContainers(persistedIndexFile, roots, maxDepth, persistableContainers);
+        }
+
+        LOGGER.debug("Built startup resource index for {} classpath roots in {} ms", pathsByContainer.size(),
+                System.currentTimeMillis() - start);
+
+        return new StartupResourceIndex(roots, maxDepth, pathsByContainer);
+    }
+
+    private static PersistedContainer scanContainer(final String container, final List<String> roots, final int maxDepth,
+            final PersistedContainer persistedContainer)
+    {
+        try
+        {
+            final URL containerUrl = new URL(container);
+            PersistedContainer scannedContainer;
+            if (ResourceUtils.isJarURL(containerUrl))
+            {
+                final URL jarFileUrl = ResourceUtils.extractJarFileURL(containerUrl);
+                final File jarFile = ResourceUtils.isFileURL(jarFileUrl) ? ResourceUtils.getFile(jarFileUrl) : null;
+                final long length = jarFile != null ? jarFile.length() : -1;
+                final long lastModified = jarFile != null ? jarFile.lastModified() : -1;
+
+                if (persistedContainer != null && jarFile != null && persistedContainer.length == length
+                        && persistedContainer.lastModified == lastModified)
+                {
+                    scannedContainer = persistedContainer;
+                }
+                else
+                {
+                    final List<String> paths = scanJar(containerUrl, roots, maxDepth);
+                    scannedContainer = new PersistedContainer(container, length, lastModified, paths);
+                }
+            }
+            else if (ResourceUtils.isFileURL(containerUrl))
+            {
+                // directories are always scanned as modification dates of directories do not reflect nested changes
+                final List<String> paths = scanDirectory(ResourceUtils.getFile(containerUrl), roots, maxDepth);
+                scannedContainer = new PersistedContainer(container, -1, -1, paths);
+            }
+            else
+            {
+                LOGGER.debug("Unsupported classpath root {} - not indexing", container);
+                scannedContainer = new PersistedContainer(container, -1, -1, null);
+            }
+            return scannedContainer;
+        }
+        catch (final IOException ioex)
+        {
+            LOGGER.debug("Failed to index classpath root {}", container, ioex);
+            return new PersistedContainer(container, -1, -1, null);
+        }
+    }
+
+    private static List<String> scanJar(final URL containerUrl, final List<String> roots, final int maxDepth) throws IOException
+    {
+        final URLConnection con = containerUrl.openConnection();
+        if (!(con instanceof JarURLConnection))
+        {
+            throw new IOException("Not a JAR connection: " + containerUrl);
+        }
+
+        final JarURLConnection jarCon = (JarURLConnection) con;
+        ResourceUtils.useCachesIfNecessary(jarCon);
+        final JarFile jarFile = jarCon.getJarFile();
+        try
+        {
+            final List<String> paths = new ArrayList<>();
+            final Enumeration<JarEntry> entries = jarFile.entries();
+            while (entries.hasMoreElements())
+            {
+                final String path = entries.nextElement().getName();
+                if (isIndexedPath(path, roots, maxDepth))
+                {
+                    paths.add(path);
+                }
+            }
+            return paths;
+        }
+        finally
+        {
+            if (!jarCon.getUseCaches())
+            {
+                jarFile.close();
+            }
+        }
+    }
+
+    private static List<String> scanDirectory(final File containerDir, final List<String> roots, final int maxDepth)
+    {
+        final List<String> paths = new ArrayList<>();
+        for (final String root : roots)
+        {
+            final File rootDir = new File(containerDir, root);
+            final int rootDepth = getDepth(root);
+            if (rootDepth < maxDepth && rootDir.isDirectory())
+            {
+                scanDirectory(rootDir, root, rootDepth + 1, maxDepth, paths);
+            }
+        }
+        return paths;
+    }
+
+    private static void scanDirectory(final File dir, final String dirPath, final int depth, final int maxDepth, final List<String> paths)
+    {
+        final File[] files = dir.listFiles();
+        if (files != null)
+        {
+            // consistent with PathMatchingResourcePatternResolver - sorted by name per directory, nested files before their directory
+            Arrays.sort(files, Comparator.comparing(File::getName));
+            for (final File file : files)
+            {
+                final String path = dirPath + file.getName();
+                if (depth < maxDepth && file.isDirectory() && file.canRead())
+                {
+                    scanDirectory(file, path + "/", depth + 1, maxDepth, paths);
+                }
+                paths.add(path);
+            }
+        }
+    }
+
+    private static boolean isIndexedPath(final String path, final List<String> roots, final int maxDepth)
+    {
+        boolean indexed = false;
+        for (final String root : roots)
+        {
+            indexed = indexed || (path.startsWith(root) && path.length() > root.length() && getDepth(path) <= maxDepth);
+        }
+        return indexed;
+    }
+
+    private static int getDepth(final String path)
+    {
+        int depth = 0;
+        int idx = 0;
+        while (idx < path.length())
+        {
+            final int nextSlash = path.indexOf('/', idx);
+            final int segmentEnd = nextSlash != -1 ? nextSlash : path.length();
+            if (segmentEnd > idx)
+            {
+                depth++;
+            }
+            idx = segmentEnd + 1;
+        }
+        return depth;
+    }
+
+    static Map<String, PersistedContainer> readPersistedContainers(final File persistedIndexFile, final List<String> roots,
+            final int maxDepth)
+    {
+        final Map<String, PersistedContainer> persistedContainers = new HashMap<>();
+        if (persistedIndexFile.isFile())
+        {
+            try (InputStream is = new BufferedInputStream(Files.newInputStream(persistedIndexFile.toPath()));
+                    DataInputStream dis = new DataInputStream(is))
+            {
+                // index persisted with different settings must be ignored
+                if (dis.readInt() == PERSISTED_FORMAT_VERSION && dis.readUTF().equals(String.join(",", roots)) && dis.readInt() == maxDepth)
+                {
+                    final int containerCount = dis.readInt();
+                    for (int containerIdx = 0; containerIdx < containerCount; containerIdx++)
+                    {
+                        final String container = dis.readUTF();
+                        final long length = dis.readLong();
+                        final long lastModified = dis.readLong();
+                        final int pathCount = dis.readInt();
+                        final List<String> paths = new ArrayList<>(pathCount);
+                        for (int pathIdx = 0; pathIdx < pathCount; pathIdx++)
+                        {
+                            paths.add(dis.readUTF());
+                        }
+                        persistedContainers.put(container, new PersistedContainer(container, length, lastModified, paths));
+                    }
+                }
+            }
+            catch (final IOException ioex)
+            {
+                LOGGER.warn("Failed to read persisted startup resource index {}", persistedIndexFile, ioex);
+                persistedContainers.clear();
+            }
+        }
+        return persistedContainers;
+    }
+
+    private static void writePersistedContainers(final File persistedIndexFile, final List<String> roots, final int maxDepth,
+            final List<PersistedContainer> containers)
+    {
+        try
+        {
+            final Path persistedIndexPath = persistedIndexFile.getAbsoluteFile().toPath();
+            final Path tempPath = Files.createTempFile(persistedIndexPath.getParent(), persistedIndexPath.getFileName().toString(), ".tmp");
+            try
+            {
+                try (OutputStream os = new BufferedOutputStream(Files.newOutputStream(tempPath));
+                        DataOutputStream dos = new DataOutputStream(os))
+                {
+                    dos.writeInt(PERSISTED_FORMAT_VERSION);
+                    dos.writeUTF(String.join(",", roots));
+                    dos.writeInt(maxDepth);
+                    dos.writeInt(containers.size());
+                    for (final PersistedContainer container : containers)
+                    {
+                        dos.writeUTF(container.container);
+                        dos.writeLong(container.length);
+                        dos.writeLong(container.lastModified);
+                        dos.writeInt(container.paths.size());
+                        for (final String path : container.paths)
+                        {
+                            dos.writeUTF(path);
+                        }
+                    }
+                }
+                Files.move(tempPath, persistedIndexPath, StandardCopyOption.REPLACE_EXISTING);
+            }
+            finally
+            {
+                Files.deleteIfExists(tempPath);
+            }
+        }
+        catch (final IOException ioex)
+        {
+            LOGGER.warn("Failed to persist startup resource index {}", persistedIndexFile, ioex);
+        }
+    }
+
+    boolean covers(final String pathPattern)
+    {
+        boolean covered = false;
+        if (!pathPattern.contains("**") && getDepth(pathPattern) <= this.maxDepth)
+        {
+            final String rootDir = getRootDir(pathPattern);
+            for (final String root : this.roots)
+            {
+                covered = covered || rootDir.startsWith(root);
+            }
+        }
+        return covered;
+    }
+
+    Resource[] resolveResources(final ResourcePatternResolver resolver, final String pathPattern) throws IOException
+    {
+        final ClassLoader classLoader = resolver.getClassLoader() != null ? resolver.getClassLoader() : ClassUtils.getDefaultClassLoader();
+        final String rootDir = getRootDir(pathPattern);
+
+        // resolving the roots is cheap and retains the exact classpath order of the regular resolver
+        final Set<Resource> resources = new LinkedHashSet<>();
+        final Enumeration<URL> rootUrls = classLoader.getResources(rootDir);
+        while (rootUrls.hasMoreElements())
+        {
+            final URL rootUrl = rootUrls.nextElement();
+            final String rootUrlStr = rootUrl.toExternalForm();
+            final List<String> paths = rootUrlStr.endsWith(rootDir)
+                    ? this.pathsByContainer.get(rootUrlStr.substring(0, rootUrlStr.length() - rootDir.length()))
+                    : null;
+
+            if (paths != null)
+            {
+                // same resource types as created by PathMatchingResourcePatternResolver
+                final File rootFile = ResourceUtils.isFileURL(rootUrl) ? ResourceUtils.getFile(rootUrl) : null;
+                final Resource rootResource = rootFile == null ? new UrlResource(rootUrl) : null;
+                for (final String path : paths)
+                {
+                    // root directory entry itself is never matched by regular resolver (but might be by path matcher)
+                    if (path.length() > rootDir.length() && path.startsWith(rootDir) && PATH_MATCHER.match(pathPattern, path))
+                    {
+                        final String relativePath = path.substring(rootDir.length());
+                        resources.add(rootFile != null ? new FileSystemResource(new File(rootFile, relativePath))
+                                : rootResource.createRelative(relativePath));
+                    }
+                }
+            }
+            else
+            {
+                resources.addAll(Arrays.asList(resolver.getResources(rootUrlStr + pathPattern.substring(rootDir.length()))));
+            }
+        }
+
+        LOGGER.trace("Resolved {} resources for {} from startup resource index", resources.size(), pathPattern);
+        return resources.toArray(new Resource[0]);
+    }
+
+    static String getRootDir(final String pathPattern)
+    {
+        // same logic as in PathMatchingResourcePatternResolver
+        int rootDirEnd = pathPattern.length();
+        while (rootDirEnd > 0 && PATH_MATCHER.isPattern(pathPattern.substring(0, rootDirEnd)))
+        {
+            rootDirEnd = pathPattern.lastIndexOf('/', rootDirEnd - 2) + 1;
+        }
+        return pathPattern.substring(0, rootDirEnd);
+    }
+
+    static class PersistedContainer
+    {
+
+        final String container;
+
+        final long length;
+
+        final long lastModified;
+
+        final List<String> paths;
+
+        PersistedContainer(final String container, final long length, final long lastModified, final List<String> paths)
+        {
+            this.container = container;
+            this.length = length;
+            this.lastModified = lastModified;
+            this.paths = paths;
+        }
+    }
+}
@@ -102,6 +102,9 @@ public class WebFrameworkConfigSourceInserter implements BeanDefinitionRegistryP
     {
         PropertyCheck.mandatory(this, "configSources", this.configSources);
 
+        // no-op if already triggered by an earlier component - ensures index is built in parallel to the Spring startup
+        StartupResourceIndex.prepare(null);
+
         final BeanDefinition configSourceBean = registry.getBeanDefinition("webframework.configsource");
         final ConstructorArgumentValues ctorArguments = configSourceBean.getConstructorArgumentValues();
         final ValueHolder ctorArgumentValue = ctorArguments.getGenericArgumentValue(null);
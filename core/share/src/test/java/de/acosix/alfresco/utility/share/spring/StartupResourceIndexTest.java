@@ -0,0 +1,190 @@
+/*
+ * Copyright 2016 - 2026 Acosix GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.acosix.alfresco.utility.share.spring;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.core.io.support.ResourcePatternResolver;
+
+/**
+ * @author Axel Faust
+ */
+public class StartupResourceIndexTest
+{
+
+    private static final List<String> ROOTS = Collections.singletonList("alfresco/");
+
+    private static final int MAX_DEPTH = 4;
+
+    // names chosen so that sorting per directory level differs from sorting full paths ('-' sorts before '/')
+    private static final String[] DIRECTORY_FILES = { "alfresco/module/a-b/module-context.xml", "alfresco/module/a/module-context.xml",
+            "alfresco/module/a/log4j.properties", "alfresco/module/b/module-context.xml", "alfresco/web-extension/share-config-custom.xml",
+            "alfresco/web-extension/a-log4j.properties", "alfresco/share-config.xml", "alfresco/module/a/deep/nested/too-deep.xml" };
+
+    // deliberately not in alphabetical order - order of entries in JAR is retained
+    private static final String[] JAR_FILES = { "alfresco/module/z/module-context.xml", "alfresco/module/c/module-context.xml",
+            "alfresco/web-extension/b-log4j.properties", "META-INF/MANIFEST.MF" };
+
+    private static final String[] PATTERNS = { "alfresco/module/*/module-context.xml", "alfresco/module/*/*", "alfresco/module/*",
+            "alfresco/web-extension/*-log4j.properties", "alfresco/*.xml", "alfresco/*" };
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void rootDir()
+    {
+        Assert.assertEquals("alfresco/module/", StartupResourceIndex.getRootDir("alfresco/module/*/module-context.xml"));
+        Assert.assertEquals("alfresco/", StartupResourceIndex.getRootDir("alfresco/*.xml"));
+        Assert.assertEquals("alfresco/web-extension/", StartupResourceIndex.getRootDir("alfresco/web-extension/*-log4j.properties"));
+        Assert.assertEquals("alfresco/", StartupResourceIndex.getRootDir("alfresco/mod?le/module-context.xml"));
+        Assert.assertEquals("", StartupResourceIndex.getRootDir("*/module-context.xml"));
+    }
+
+    @Test
+    public void covers()
+    {
+        final StartupResourceIndex index = new StartupResourceIndex(ROOTS, MAX_DEPTH, Collections.emptyMap());
+
+        Assert.assertTrue(index.covers("alfresco/module/*/module-context.xml"));
+        Assert.assertTrue(index.covers("alfresco/*.xml"));
+        Assert.assertFalse(index.covers("alfresco/module/**/module-context.xml"));
+        Assert.assertFalse(index.covers("alfresco/module/*/deep/too-deep.xml"));
+        Assert.assertFalse(index.covers("META-INF/*.xml"));
+        Assert.assertFalse(index.covers("alfres*/module-context.xml"));
+    }
+
+    @Test
+    public void persistedIndexRoundTrip() throws IOException
+    {
+        final ClassLoader classLoader = this.createClassLoader();
+        final File persistedIndexFile = new File(this.folder.getRoot(), "index.bin");
+
+        StartupResourceIndex.build(classLoader, ROOTS, MAX_DEPTH, persistedIndexFile);
+        Assert.assertTrue(persistedIndexFile.isFile());
+
+        final Map<String, StartupResourceIndex.PersistedContainer> persistedContainers = StartupResourceIndex
+                .readPersistedContainers(persistedIndexFile, ROOTS, MAX_DEPTH);
+        // only JAR libraries are persisted
+        Assert.assertEquals(1, persistedContainers.size());
+
+        final StartupResourceIndex.PersistedContainer persistedContainer = persistedContainers.values().iterator().next();
+        Assert.assertTrue(persistedContainer.container.startsWith("jar:"));
+        Assert.assertEquals(new File(this.folder.getRoot(), "lib.jar").length(), persistedContainer.length);
+        Assert.assertEquals(Arrays.asList("alfresco/module/", "alfresco/module/z/", "alfresco/module/z/module-context.xml",
+                "alfresco/module/c/", "alfresco/module/c/module-context.xml", "alfresco/web-extension/",
+                "alfresco/web-extension/b-log4j.properties"), persistedContainer.paths);
+
+        // index persisted with different settings must be ignored
+        Assert.assertTrue(StartupResourceIndex.readPersistedContainers(persistedIndexFile, ROOTS, MAX_DEPTH + 1).isEmpty());
+        final List<String> otherRoots = Arrays.asList("alfresco/", "META-INF/");
+        Assert.assertTrue(StartupResourceIndex.readPersistedContainers(persistedIndexFile, otherRoots, MAX_DEPTH).isEmpty());
+
+        // rebuild reuses persisted index and yields identical results
+        final StartupResourceIndex index = StartupResourceIndex.build(classLoader, ROOTS, MAX_DEPTH, persistedIndexFile);
+        final PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver(classLoader);
+        for (final String pattern : PATTERNS)
+        {
+            Assert.assertEquals(pattern, toUrls(resolver.getResources(ResourcePatternResolver.CLASSPATH_ALL_URL_PREFIX + pattern)),
+                    toUrls(index.resolveResources(resolver, pattern)));
+        }
+    }
+
+    @Test
+    public void resolverParity() throws IOException
+    {
+        final ClassLoader classLoader = this.createClassLoader();
+        final StartupResourceIndex index = StartupResourceIndex.build(classLoader, ROOTS, MAX_DEPTH, null);
+        final PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver(classLoader);
+
+        for (final String pattern : PATTERNS)
+        {
+            Assert.assertTrue(pattern, index.covers(pattern));
+
+            final List<String> expectedUrls = toUrls(resolver.getResources(ResourcePatternResolver.CLASSPATH_ALL_URL_PREFIX + pattern));
+            Assert.assertFalse(pattern, expectedUrls.isEmpty());
+            Assert.assertEquals(pattern, expectedUrls, toUrls(index.resolveResources(resolver, pattern)));
+        }
+    }
+
+    private ClassLoader createClassLoader() throws IOException
+    {
+        final File classesDir = this.folder.newFolder("classes");
+        for (final String path : DIRECTORY_FILES)
+        {
+            final File file = new File(classesDir, path);
+            file.getParentFile().mkdirs();
+            Files.write(file.toPath(), path.getBytes(StandardCharsets.UTF_8));
+        }
+
+        final File jarFile = new File(this.folder.getRoot(), "lib.jar");
+        try (OutputStream os = Files.newOutputStream(jarFile.toPath()); JarOutputStream jos = new JarOutputStream(os))
+        {
+            final List<String> writtenDirectories = new ArrayList<>();
+            for (final String path : JAR_FILES)
+            {
+                // directory entries as created by regular build tools
+                int slash = path.indexOf('/');
+                while (slash != -1)
+                {
+                    final String directory = path.substring(0, slash + 1);
+                    if (!writtenDirectories.contains(directory))
+                    {
+                        jos.putNextEntry(new JarEntry(directory));
+                        jos.closeEntry();
+                        writtenDirectories.add(directory);
+                    }
+                    slash = path.indexOf('/', slash + 1);
+                }
+
+                jos.putNextEntry(new JarEntry(path));
+                jos.write(path.getBytes(StandardCharsets.UTF_8));
+                jos.closeEntry();
+            }
+        }
+
+        return new URLClassLoader(new URL[] { classesDir.toURI().toURL(), jarFile.toURI().toURL() }, null);
+    }
+
+    private static List<String> toUrls(final Resource[] resources) throws IOException
+    {
+        final List<String> urls = new ArrayList<>(resources.length);
+        for (final Resource resource : resources)
+        {
+            urls.add(resource.getURL().toExternalForm());
+        }
+        return urls;
+    }
+}
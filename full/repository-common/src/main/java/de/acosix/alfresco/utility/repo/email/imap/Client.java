@@ -32,6 +32,14 @@ import de.acosix.alfresco.utility.repo.email.server.ImprovedEmailMessage;
 public interface Client extends Closeable
 {
 
+    /**
+     * Checks whether the connection to the IMAP account is still alive, so that this client can be reused. Any folders which have been
+     * closed in the meantime, e.g. by the server, are discarded and will be re-opened when next accessed.
+     *
+     * @return {@code true} if the client is still connected, {@code false} otherwise
+     */
+    boolean isConnected();
+
     /**
      * Count the messages stored in a specific folder.
      *
@@ -131,6 +131,21 @@ public class JavaMailClient extends BaseClient
         this.store = store;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isConnected()
+    {
+        // IMAP store actively checks the connection via a NOOP command
+        final boolean connected = this.store.isConnected();
+        if (connected)
+        {
+            this.openFoldersByPath.values().removeIf(folder -> !folder.isOpen());
+        }
+        return connected;
+    }
+
     /**
      * {@inheritDoc}
      */
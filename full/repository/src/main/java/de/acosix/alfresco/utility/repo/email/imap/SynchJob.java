@@ -36,6 +36,7 @@ import java.util.Set;
 import java.util.stream.Collectors;
 
 import javax.net.SocketFactory;
+import javax.net.ssl.SSLContext;
 
 import org.alfresco.encryption.AlfrescoKeyStore;
 import org.alfresco.error.AlfrescoRuntimeException;
@@ -43,13 +44,11 @@ import org.alfresco.repo.batch.BatchProcessWorkProvider;
 import org.alfresco.repo.batch.BatchProcessor;
 import org.alfresco.repo.batch.BatchProcessor.BatchProcessWorker;
 import org.alfresco.repo.lock.LockAcquisitionException;
-import org.alfresco.repo.security.authentication.AlfrescoSSLSocketFactory;
 import org.alfresco.repo.security.authentication.AuthenticationUtil;
 import org.alfresco.repo.transaction.RetryingTransactionHelper;
 import org.alfresco.service.cmr.email.EmailDelivery;
 import org.alfresco.service.cmr.email.EmailMessageException;
 import org.alfresco.service.cmr.email.EmailService;
-import org.alfresco.service.cmr.repository.datatype.DefaultTypeConverter;
 import org.alfresco.service.namespace.QName;
 import org.alfresco.service.transaction.TransactionService;
 import org.alfresco.util.transaction.TransactionListenerAdapter;
@@ -59,20 +58,24 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.extensions.surf.util.I18NUtil;
 
+import de.acosix.alfresco.utility.common.security.ThreadSafeSSLSocketFactory;
 import de.acosix.alfresco.utility.repo.email.server.ImprovedEmailMessage;
-import de.acosix.alfresco.utility.repo.job.GenericJob;
+import de.acosix.alfresco.utility.repo.job.DisposableGenericJob;
 import de.acosix.alfresco.utility.repo.job.JobUtilities;
 import de.acosix.alfresco.utility.repo.job.JobUtilities.LockReleasedCheck;
+import de.acosix.alfresco.utility.repo.job.JobUtilities.PartitionedOperationWithJobLock;
 import de.acosix.alfresco.utility.repo.job.JobUtilities.RefreshAwareOperationWithJobLock;
 import de.acosix.alfresco.utility.repo.subetha3.email.imap.JavaMailClient;
 import de.acosix.alfresco.utility.repo.subetha6.email.imap.JakartaMailClient;
 
 /**
- * Instances of this job class handle the synchronisation of emails from an IMAP account to Alfresco.
+ * Instances of this job class handle the synchronisation of emails from an IMAP account to Alfresco. If instances are reused across
+ * executions, the connection to the IMAP account is kept open between executions and only re-established if it is no longer alive or the
+ * configuration of the job has changed.
  *
  * @author Axel Faust
  */
-public class SynchJob implements GenericJob, BatchProcessWorkProvider<SynchWork>, BatchProcessWorker<SynchWork>
+public class SynchJob implements DisposableGenericJob, BatchProcessWorkProvider<SynchWork>, BatchProcessWorker<SynchWork>
 {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(SynchJob.class);
@@ -81,6 +84,12 @@ public class SynchJob implements GenericJob, BatchProcessWorkProvider<SynchWork>
 
     private Client imapClient;
 
+    private Config imapClientConfig;
+
+    private SSLContext imapClientSslContext;
+
+    private int imapClientConnections;
+
     private String configName;
 
     private Config imapConfig;
@@ -95,6 +104,8 @@ public class SynchJob implements GenericJob, BatchProcessWorkProvider<SynchWork>
 
     private int previouslyEstimatedWorkSize = -1;
 
+    private Collection<String> folders;
+
     private Iterator<String> folderIter;
 
     /**
@@ -103,86 +114,89 @@ public class SynchJob implements GenericJob, BatchProcessWorkProvider<SynchWork>
     @Override
     public void execute(final Object jobExecutionContext)
     {
-        this.configName = JobUtilities.getJobDataValue(jobExecutionContext, "configName", String.class);
-        final String localeStr = JobUtilities.getJobDataValue(jobExecutionContext, "locale", String.class, false);
-        if (localeStr != null && !localeStr.trim().isEmpty())
+        // instance may be reused across executions if relay instance caching is enabled
+        this.previouslyEstimatedWorkSize = -1;
+        this.folders = null;
+        this.folderIter = null;
+        this.messageFilter = null;
+        this.lockReleasedCheck = null;
+
+        final SynchJobSettings settings = JobUtilities.getJobDataBinding(jobExecutionContext, SynchJobSettings.class,
+                SynchJobSettings::new);
+        this.configName = settings.getConfigName();
+        this.importLocale = settings.getImportLocale();
+
+        final TransactionService transactionService = settings.getTransactionService();
+        this.emailService = settings.getEmailService();
+        this.imapConfig = settings.getImapConfig();
+
+        final AlfrescoKeyStore sslTruststore = settings.getSslTruststore();
+        final String truststorePath = settings.getTruststorePath();
+        final String truststoreType = settings.getTruststoreType();
+        final String truststorePassphrase = settings.getTruststorePassphrase();
+
+        final KeyStore trustStore;
+        if (truststorePath != null && !truststorePath.isEmpty() && truststoreType != null && !truststoreType.isEmpty())
         {
-            this.importLocale = DefaultTypeConverter.INSTANCE.convert(Locale.class, localeStr);
+            trustStore = this.initTrustStore(truststorePath, truststoreType, truststorePassphrase);
         }
-
-        final TransactionService transactionService = JobUtilities.getJobDataValue(jobExecutionContext, "transactionService",
-                TransactionService.class);
-        this.emailService = JobUtilities.getJobDataValue(jobExecutionContext, "emailService", EmailService.class);
-        this.imapConfig = JobUtilities.getJobDataValue(jobExecutionContext, "imapConfig", Config.class);
-
-        final AlfrescoKeyStore sslTruststore = JobUtilities.getJobDataValue(jobExecutionContext, "ssl.truststore", AlfrescoKeyStore.class);
-        final String truststorePath = JobUtilities.getJobDataValue(jobExecutionContext, "truststorePath", String.class, false);
-        final String truststoreType = JobUtilities.getJobDataValue(jobExecutionContext, "truststoreType", String.class, false);
-        final String truststorePassphrase = JobUtilities.getJobDataValue(jobExecutionContext, "truststorePassphrase", String.class, false);
-
-        SocketFactory socketFactory = null;
-        synchronized (AlfrescoSSLSocketFactory.class)
+        else
         {
-            if (truststorePath != null && !truststorePath.isEmpty() && truststoreType != null && !truststoreType.isEmpty())
-            {
-                final KeyStore trustStore = this.initTrustStore(truststorePath, truststoreType, truststorePassphrase);
-                AlfrescoSSLSocketFactory.initTrustedSSLSocketFactory(trustStore);
-            }
-            else
+            try
             {
-                try
+                trustStore = KeyStore.getInstance("JKS");
+                trustStore.load(null, null);
+                for (final String alias : sslTruststore.getKeyAliases())
                 {
-                    final KeyStore trustStore = KeyStore.getInstance("JKS");
-                    for (final String alias : sslTruststore.getKeyAliases())
-                    {
-                        final Key key = sslTruststore.getKey(alias);
-                        trustStore.setKeyEntry(alias, key, null, null);
-                    }
-                    AlfrescoSSLSocketFactory.initTrustedSSLSocketFactory(trustStore);
-                }
-                catch (final KeyStoreException e)
-                {
-                    throw new AlfrescoRuntimeException("Failed to initialise truststore", e);
+                    final Key key = sslTruststore.getKey(alias);
+                    trustStore.setKeyEntry(alias, key, null, null);
                 }
             }
-            socketFactory = AlfrescoSSLSocketFactory.getDefault();
+            catch (final KeyStoreException | IOException | NoSuchAlgorithmException | CertificateException e)
+            {
+                throw new AlfrescoRuntimeException("Failed to initialise truststore", e);
+            }
         }
-
-        final String threadCountStr = JobUtilities.getJobDataValue(jobExecutionContext, "threadCount", String.class, false);
-        final int threadCount = threadCountStr != null ? Math.max(1, Integer.parseInt(threadCountStr)) : 4;
+        // SSL contexts are registered per trust store so TLS sessions can be resumed across job executions
+        final SSLContext sslContext = ThreadSafeSSLSocketFactory.getTrustedSSLContext(trustStore, settings.getSslSessionCacheSize(),
+                settings.getSslSessionTimeout());
+        final int threadCount = settings.getThreadCount();
 
         this.prepareFilter();
 
-        try
-        {
-            Class.forName("javax.mail.Message");
-            this.imapClient = JavaMailClient.open(this.imapConfig, threadCount + 1, socketFactory);
-        }
-        catch (final ClassNotFoundException e)
-        {
-            this.imapClient = JakartaMailClient.open(this.imapConfig, threadCount + 1, socketFactory);
-        }
-        try
-        {
-
-            final String lockTTLStr = JobUtilities.getJobDataValue(jobExecutionContext, "lockTTL", String.class, false);
-            final String retryWaitStr = JobUtilities.getJobDataValue(jobExecutionContext, "lockRetryWait", String.class, false);
+        // client is only closed in dispose() - relay instances not cached for reuse are disposed after each execution
+        this.openClient(sslContext, threadCount + 1);
 
-            final long lockTTL = lockTTLStr != null ? Long.parseLong(lockTTLStr) : 30000;
-            final long retryWait = retryWaitStr != null ? Long.parseLong(retryWaitStr) : 5000;
+        final long lockTTL = settings.getLockTTL();
+        final long retryWait = settings.getLockRetryWait();
 
-            final QName lockQName = QName.createQName(SynchJob.class.getName(), this.configName);
-            final RefreshAwareOperationWithJobLock op = check -> {
-                this.lockReleasedCheck = check;
-                final String logIntervalStr = JobUtilities.getJobDataValue(jobExecutionContext, "logInterval", String.class, false);
+        final int logInterval = settings.getLogInterval();
+        final int partitionCount = settings.getPartitionCount();
 
-                final int logInterval = logIntervalStr != null ? Integer.parseInt(logIntervalStr) : 100;
+        final QName lockQName = QName.createQName(SynchJob.class.getName(), this.configName);
+        if (partitionCount > 1)
+        {
+            final PartitionedOperationWithJobLock op = (partition, check) -> {
+                final List<String> partitionFolders = this.imapConfig.getFolders().stream()
+                        .filter(folder -> Math.floorMod(folder.hashCode(), partitionCount) == partition).collect(Collectors.toList());
+                if (!partitionFolders.isEmpty())
+                {
+                    this.processFolders(partitionFolders, String.valueOf(partition), check, transactionService, threadCount,
+                            logInterval);
+                }
+            };
 
-                final BatchProcessor<SynchWork> processor = new BatchProcessor<>(
-                        String.format(Locale.ENGLISH, "%s(%s)", SynchJob.class.getSimpleName(), this.configName),
-                        transactionService.getRetryingTransactionHelper(), this, threadCount, 1, null, LogFactory.getLog(SynchJob.class),
-                        logInterval);
-                processor.process(this, true);
+            final int processedPartitions = JobUtilities.runWithPartitionedJobLocks(jobExecutionContext, lockQName, partitionCount,
+                    lockTTL, op);
+            if (processedPartitions == 0)
+            {
+                LOGGER.info("All partition locks unavailable for {} - job potentially running on different servers", this.configName);
+            }
+        }
+        else
+        {
+            final RefreshAwareOperationWithJobLock op = check -> {
+                this.processFolders(this.imapConfig.getFolders(), null, check, transactionService, threadCount, logInterval);
             };
 
             try
@@ -194,7 +208,60 @@ public class SynchJob implements GenericJob, BatchProcessWorkProvider<SynchWork>
                 LOGGER.info("Job lock unavailable for {} - job potentially running on different server", this.configName);
             }
         }
-        finally
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void dispose()
+    {
+        this.closeClient();
+    }
+
+    private void openClient(final SSLContext sslContext, final int connections)
+    {
+        if (this.imapClient != null)
+        {
+            final boolean reusable = this.imapClientConfig == this.imapConfig && this.imapClientSslContext == sslContext
+                    && this.imapClientConnections == connections;
+            if (!reusable)
+            {
+                LOGGER.debug("Configuration for {} changed since IMAP client was opened - re-opening client", this.configName);
+                this.closeClient();
+            }
+            else if (!this.imapClient.isConnected())
+            {
+                LOGGER.debug("IMAP client for {} is no longer connected - re-opening client", this.configName);
+                this.closeClient();
+            }
+            else
+            {
+                LOGGER.debug("Reusing IMAP client for {}", this.configName);
+            }
+        }
+
+        if (this.imapClient == null)
+        {
+            final SocketFactory socketFactory = new ThreadSafeSSLSocketFactory(sslContext);
+            try
+            {
+                Class.forName("javax.mail.Message");
+                this.imapClient = JavaMailClient.open(this.imapConfig, connections, socketFactory);
+            }
+            catch (final ClassNotFoundException e)
+            {
+                this.imapClient = JakartaMailClient.open(this.imapConfig, connections, socketFactory);
+            }
+            this.imapClientConfig = this.imapConfig;
+            this.imapClientSslContext = sslContext;
+            this.imapClientConnections = connections;
+        }
+    }
+
+    private void closeClient()
+    {
+        if (this.imapClient != null)
         {
             try
             {
@@ -204,9 +271,31 @@ public class SynchJob implements GenericJob, BatchProcessWorkProvider<SynchWork>
             {
                 LOGGER.warn("Error closing IMAP client", e);
             }
+            finally
+            {
+                this.imapClient = null;
+                this.imapClientConfig = null;
+                this.imapClientSslContext = null;
+            }
         }
     }
 
+    private void processFolders(final Collection<String> folders, final String partition, final LockReleasedCheck check,
+            final TransactionService transactionService, final int threadCount, final int logInterval)
+    {
+        this.folders = folders;
+        this.folderIter = null;
+        this.previouslyEstimatedWorkSize = -1;
+        this.lockReleasedCheck = check;
+
+        final String processName = partition != null
+                ? String.format(Locale.ENGLISH, "%s(%s-%s)", SynchJob.class.getSimpleName(), this.configName, partition)
+                : String.format(Locale.ENGLISH, "%s(%s)", SynchJob.class.getSimpleName(), this.configName);
+        final BatchProcessor<SynchWork> processor = new BatchProcessor<>(processName, transactionService.getRetryingTransactionHelper(),
+                this, threadCount, 1, null, LogFactory.getLog(SynchJob.class), logInterval);
+        processor.process(this, true);
+    }
+
     /**
      * Get an estimate of the total number of objects that will be provided by this instance.
      * Instances can provide accurate answers on each call, but only if the answer can be
@@ -246,7 +335,7 @@ public class SynchJob implements GenericJob, BatchProcessWorkProvider<SynchWork>
         Collection<SynchWork> nextWork = Collections.emptyList();
         if (this.folderIter == null)
         {
-            this.folderIter = this.imapConfig.getFolders().iterator();
+            this.folderIter = this.folders.iterator();
         }
 
         if (this.folderIter.hasNext())
@@ -477,7 +566,7 @@ public class SynchJob implements GenericJob, BatchProcessWorkProvider<SynchWork>
     private void estimateTotalWorkSize()
     {
         final Map<String, String> pathByFolder = this.imapConfig.getPathByFolder();
-        final Collection<String> folders = this.imapConfig.getFolders();
+        final Collection<String> folders = this.folders;
 
         int workSize = 0;
         for (final String folder : folders)
@@ -0,0 +1,244 @@
+/*
+ * Copyright 2016 - 2026 Acosix GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.acosix.alfresco.utility.repo.email.imap;
+
+import java.util.Locale;
+
+import org.alfresco.encryption.AlfrescoKeyStore;
+import org.alfresco.service.cmr.email.EmailService;
+import org.alfresco.service.cmr.repository.datatype.DefaultTypeConverter;
+import org.alfresco.service.transaction.TransactionService;
+
+import de.acosix.alfresco.utility.repo.job.JobUtilities;
+
+/**
+ * Instances of this class encapsulate the pre-parsed job data of a {@link SynchJob IMAP synchronisation job}, so that job data values only
+ * need to be looked up and parsed once per job instead of on every execution.
+ *
+ * @author Axel Faust
+ */
+public class SynchJobSettings
+{
+
+    private final String configName;
+
+    private final Locale importLocale;
+
+    private final TransactionService transactionService;
+
+    private final EmailService emailService;
+
+    private final Config imapConfig;
+
+    private final AlfrescoKeyStore sslTruststore;
+
+    private final String truststorePath;
+
+    private final String truststoreType;
+
+    private final String truststorePassphrase;
+
+    private final int sslSessionCacheSize;
+
+    private final int sslSessionTimeout;
+
+    private final int threadCount;
+
+    private final long lockTTL;
+
+    private final long lockRetryWait;
+
+    private final int logInterval;
+
+    private final int partitionCount;
+
+    /**
+     * Creates a new instance of this class from the job data of a job execution context.
+     *
+     * @param jobExecutionContext
+     *     the execution context of the job
+     */
+    public SynchJobSettings(final Object jobExecutionContext)
+    {
+        this.configName = JobUtilities.getJobDataValue(jobExecutionContext, "configName", String.class);
+        final String localeStr = JobUtilities.getJobDataValue(jobExecutionContext, "locale", String.class, false);
+        this.importLocale = localeStr != null && !localeStr.trim().isEmpty()
+                ? DefaultTypeConverter.INSTANCE.convert(Locale.class, localeStr)
+                : null;
+
+        this.transactionService = JobUtilities.getJobDataValue(jobExecutionContext, "transactionService", TransactionService.class);
+        this.emailService = JobUtilities.getJobDataValue(jobExecutionContext, "emailService", EmailService.class);
+        this.imapConfig = JobUtilities.getJobDataValue(jobExecutionContext, "imapConfig", Config.class);
+
+        this.sslTruststore = JobUtilities.getJobDataValue(jobExecutionContext, "ssl.truststore", AlfrescoKeyStore.class);
+        this.truststorePath = JobUtilities.getJobDataValue(jobExecutionContext, "truststorePath", String.class, false);
+        this.truststoreType = JobUtilities.getJobDataValue(jobExecutionContext, "truststoreType", String.class, false);
+        this.truststorePassphrase = JobUtilities.getJobDataValue(jobExecutionContext, "truststorePassphrase", String.class, false);
+
+        final String sslSessionCacheSizeStr = JobUtilities.getJobDataValue(jobExecutionContext, "sslSessionCacheSize", String.class, false);
+        this.sslSessionCacheSize = sslSessionCacheSizeStr != null && !sslSessionCacheSizeStr.trim().isEmpty()
+                ? Math.max(0, Integer.parseInt(sslSessionCacheSizeStr.trim()))
+                : 0;
+        final String sslSessionTimeoutStr = JobUtilities.getJobDataValue(jobExecutionContext, "sslSessionTimeout", String.class, false);
+        this.sslSessionTimeout = sslSessionTimeoutStr != null && !sslSessionTimeoutStr.trim().isEmpty()
+                ? Math.max(0, Integer.parseInt(sslSessionTimeoutStr.trim()))
+                : 0;
+
+        final String threadCountStr = JobUtilities.getJobDataValue(jobExecutionContext, "threadCount", String.class, false);
+        this.threadCount = threadCountStr != null ? Math.max(1, Integer.parseInt(threadCountStr)) : 4;
+
+        final String lockTTLStr = JobUtilities.getJobDataValue(jobExecutionContext, "lockTTL", String.class, false);
+        final String retryWaitStr = JobUtilities.getJobDataValue(jobExecutionContext, "lockRetryWait", String.class, false);
+        this.lockTTL = lockTTLStr != null ? Long.parseLong(lockTTLStr) : 30000;
+        this.lockRetryWait = retryWaitStr != null ? Long.parseLong(retryWaitStr) : 5000;
+
+        final String logIntervalStr = JobUtilities.getJobDataValue(jobExecutionContext, "logInterval", String.class, false);
+        this.logInterval = logIntervalStr != null ? Integer.parseInt(logIntervalStr) : 100;
+
+        final String partitionCountStr = JobUtilities.getJobDataValue(jobExecutionContext, "partitionCount", String.class, false);
+        this.partitionCount = partitionCountStr != null && !partitionCountStr.trim().isEmpty()
+                ? Math.max(1, Integer.parseInt(partitionCountStr.trim()))
+                : 1;
+    }
+
+    /**
+     * @return the configName
+     */
+    public String getConfigName()
+    {
+        return this.configName;
+    }
+
+    /**
+     * @return the importLocale
+     */
+    public Locale getImportLocale()
+    {
+        return this.importLocale;
+    }
+
+    /**
+     * @return the transactionService
+     */
+    public TransactionService getTransactionService()
+    {
+        return this.transactionService;
+    }
+
+    /**
+     * @return the emailService
+     */
+    public EmailService getEmailService()
+    {
+        return this.emailService;
+    }
+
+    /**
+     * @return the imapConfig
+     */
+    public Config getImapConfig()
+    {
+        return this.imapConfig;
+    }
+
+    /**
+     * @return the sslTruststore
+     */
+    public AlfrescoKeyStore getSslTruststore()
+    {
+        return this.sslTruststore;
+    }
+
+    /**
+     * @return the truststorePath
+     */
+    public String getTruststorePath()
+    {
+        return this.truststorePath;
+    }
+
+    /**
+     * @return the truststoreType
+     */
+    public String getTruststoreType()
+    {
+        return this.truststoreType;
+    }
+
+    /**
+     * @return the truststorePassphrase
+     */
+    public String getTruststorePassphrase()
+    {
+        return this.truststorePassphrase;
+    }
+
+    /**
+     * @return the sslSessionCacheSize
+     */
+    public int getSslSessionCacheSize()
+    {
+        return this.sslSessionCacheSize;
+    }
+
+    /**
+     * @return the sslSessionTimeout
+     */
+    public int getSslSessionTimeout()
+    {
+        return this.sslSessionTimeout;
+    }
+
+    /**
+     * @return the threadCount
+     */
+    public int getThreadCount()
+    {
+        return this.threadCount;
+    }
+
+    /**
+     * @return the lockTTL
+     */
+    public long getLockTTL()
+    {
+        return this.lockTTL;
+    }
+
+    /**
+     * @return the lockRetryWait
+     */
+    public long getLockRetryWait()
+    {
+        return this.lockRetryWait;
+    }
+
+    /**
+     * @return the logInterval
+     */
+    public int getLogInterval()
+    {
+        return this.logInterval;
+    }
+
+    /**
+     * @return the partitionCount
+     */
+    public int getPartitionCount()
+    {
+        return this.partitionCount;
+    }
+}
@@ -22,23 +22,51 @@ import static org.alfresco.repo.nodelocator.XPathNodeLocator.STORE_TYPE_KEY;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Pattern;
 
+import org.alfresco.model.ContentModel;
 import org.alfresco.repo.action.ParameterDefinitionImpl;
+import org.alfresco.repo.node.NodeServicePolicies.BeforeDeleteNodePolicy;
+import org.alfresco.repo.node.NodeServicePolicies.OnCreateChildAssociationPolicy;
+import org.alfresco.repo.node.NodeServicePolicies.OnDeleteChildAssociationPolicy;
+import org.alfresco.repo.node.NodeServicePolicies.OnMoveNodePolicy;
 import org.alfresco.repo.nodelocator.AbstractNodeLocator;
 import org.alfresco.repo.nodelocator.NodeLocator;
+import org.alfresco.repo.policy.Behaviour.NotificationFrequency;
+import org.alfresco.repo.policy.JavaBehaviour;
+import org.alfresco.repo.policy.PolicyComponent;
+import org.alfresco.repo.security.authentication.AuthenticationUtil;
+import org.alfresco.repo.tenant.TenantUtil;
 import org.alfresco.service.cmr.action.ParameterDefinition;
 import org.alfresco.service.cmr.dictionary.DataTypeDefinition;
+import org.alfresco.service.cmr.repository.ChildAssociationRef;
 import org.alfresco.service.cmr.repository.NodeRef;
 import org.alfresco.service.cmr.repository.NodeService;
 import org.alfresco.service.cmr.repository.StoreRef;
 import org.alfresco.service.cmr.repository.datatype.DefaultTypeConverter;
 import org.alfresco.service.cmr.search.QueryParameterDefinition;
 import org.alfresco.service.cmr.search.SearchService;
+import org.alfresco.service.cmr.security.AccessStatus;
+import org.alfresco.service.cmr.security.PermissionService;
+import org.alfresco.service.namespace.NamespaceException;
 import org.alfresco.service.namespace.NamespaceService;
+import org.alfresco.service.namespace.QName;
+import org.alfresco.service.namespace.RegexQNamePattern;
+import org.alfresco.util.Pair;
 import org.alfresco.util.ParameterCheck;
 import org.alfresco.util.PropertyCheck;
+import org.alfresco.util.transaction.TransactionListenerAdapter;
+import org.alfresco.util.transaction.TransactionSupportUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.InitializingBean;
 
 /**
@@ -47,19 +75,51 @@ import org.springframework.beans.factory.InitializingBean;
  * selectNodes} API instead of the index-based, partial {@link SearchService#LANGUAGE_XPATH XPath search language} used by the
  * {@link org.alfresco.repo.nodelocator.XPathNodeLocator default implementation}.
  *
+ * Simple absolute path queries only consisting of qualified child association name steps (e.g.
+ * {@code /app:company_home/app:dictionary/cm:templates}) are evaluated step-by-step, stopping at the first match, without a full XPath
+ * evaluation. If {@link #setCacheEnabled(boolean) enabled}, nodes located by such simple path queries are cached per tenant, user,
+ * store and query, and the read permission of the user is re-checked on every cache hit. These cache entries are invalidated whenever a
+ * node on the matched path is moved / renamed, deleted or unlinked, or whenever a child association is created / moved with the name of
+ * any step of the query, as that may result in an earlier match. Since this invalidation relies on policies, which only fire on the
+ * server node performing a change, this cache is not enabled by default. The cache is limited to a {@link #setCacheMaxEntries(int)
+ * configurable number} of entries, evicting the least recently used entries first.
+ *
  * @author Axel Faust
  */
-public class XPathNodeLocator extends AbstractNodeLocator implements InitializingBean
+public class XPathNodeLocator extends AbstractNodeLocator
+        implements InitializingBean, OnMoveNodePolicy, BeforeDeleteNodePolicy, OnCreateChildAssociationPolicy,
+        OnDeleteChildAssociationPolicy
 {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(XPathNodeLocator.class);
+
+    private static final Pattern SIMPLE_PATH_QUERY = Pattern.compile("^(?:/[\\p{L}_][\\p{L}\\d_.-]*:[\\p{L}_][\\p{L}\\d_.-]*)+$");
+
     protected NamespaceService namespaceService;
 
     protected NodeService nodeService;
 
     protected SearchService searchService;
 
+    protected PermissionService permissionService;
+
+    protected PolicyComponent policyComponent;
+
     protected StoreRef defaultStore;
 
+    protected boolean cacheEnabled = false;
+
+    protected int cacheMaxEntries = 1000;
+
+    protected final ConcurrentMap<Pair<String, StoreRef>, NodeRef> rootNodes = new ConcurrentHashMap<>();
+
+    protected Map<LocatedNodeKey, LocatedNode> locatedNodes;
+
+    // keyed by node ID as node references in policies may be tenant-qualified while located node references are not
+    protected final ConcurrentMap<String, Set<LocatedNodeKey>> locatedNodeDependents = new ConcurrentHashMap<>();
+
+    protected final ConcurrentMap<QName, Set<LocatedNodeKey>> locatedNodeStepDependents = new ConcurrentHashMap<>();
+
     /**
      *
      * {@inheritDoc}
@@ -71,6 +131,42 @@ public class XPathNodeLocator extends AbstractNodeLocator implements Initializin
         PropertyCheck.mandatory(this, "nodeService", this.nodeService);
         PropertyCheck.mandatory(this, "searchService", this.searchService);
         PropertyCheck.mandatory(this, "defaultStore", this.defaultStore);
+
+        if (this.cacheEnabled)
+        {
+            PropertyCheck.mandatory(this, "permissionService", this.permissionService);
+            PropertyCheck.mandatory(this, "policyComponent", this.policyComponent);
+
+            final int maxEntries = this.cacheMaxEntries;
+            this.locatedNodes = Collections.synchronizedMap(new LinkedHashMap<LocatedNodeKey, LocatedNode>(16, 0.75f, true)
+            {
+
+                private static final long serialVersionUID = 1L;
+
+                /**
+                 * {@inheritDoc}
+                 */
+                @Override
+                protected boolean removeEldestEntry(final Map.Entry<LocatedNodeKey, LocatedNode> eldest)
+                {
+                    final boolean evict = this.size() > maxEntries;
+                    if (evict)
+                    {
+                        XPathNodeLocator.this.unregisterDependents(eldest.getKey(), eldest.getValue());
+                    }
+                    return evict;
+                }
+            });
+
+            this.policyComponent.bindClassBehaviour(OnMoveNodePolicy.QNAME, ContentModel.TYPE_BASE,
+                    new JavaBehaviour(this, "onMoveNode", NotificationFrequency.EVERY_EVENT));
+            this.policyComponent.bindClassBehaviour(BeforeDeleteNodePolicy.QNAME, ContentModel.TYPE_BASE,
+                    new JavaBehaviour(this, "beforeDeleteNode", NotificationFrequency.EVERY_EVENT));
+            this.policyComponent.bindAssociationBehaviour(OnCreateChildAssociationPolicy.QNAME, ContentModel.TYPE_BASE,
+                    new JavaBehaviour(this, "onCreateChildAssociation", NotificationFrequency.EVERY_EVENT));
+            this.policyComponent.bindAssociationBehaviour(OnDeleteChildAssociationPolicy.QNAME, ContentModel.TYPE_BASE,
+                    new JavaBehaviour(this, "onDeleteChildAssociation", NotificationFrequency.EVERY_EVENT));
+        }
     }
 
     /**
@@ -100,14 +196,85 @@ public class XPathNodeLocator extends AbstractNodeLocator implements Initializin
             }
         }
 
-        final NodeRef rootNode = this.nodeService.getRootNode(store);
-        final List<NodeRef> nodes = this.searchService.selectNodes(rootNode, query, new QueryParameterDefinition[0], this.namespaceService,
-                true);
-        if (nodes.size() > 0)
+        // root nodes and located nodes differ between tenants even for the same store reference
+        final String tenantDomain = TenantUtil.getCurrentDomain();
+
+        // only simple path queries can be reliably invalidated - predicates / other axes may depend on any node / property
+        final QName[] stepQNames = this.resolveSimplePathSteps(query);
+
+        NodeRef node;
+        if (this.locatedNodes != null && stepQNames != null)
         {
-            return nodes.get(0);
+            // results are subject to the permissions of the current user
+            final LocatedNodeKey cacheKey = new LocatedNodeKey(tenantDomain, AuthenticationUtil.getRunAsUser(), store, query);
+            final LocatedNode locatedNode = this.locatedNodes.get(cacheKey);
+            node = locatedNode != null ? locatedNode.getNode() : null;
+            if (node != null && (!this.nodeService.exists(node) || this.permissionService.hasReadPermission(node) != AccessStatus.ALLOWED))
+            {
+                if (this.locatedNodes.remove(cacheKey, locatedNode))
+                {
+                    this.unregisterDependents(cacheKey, locatedNode);
+                }
+                node = null;
+            }
+
+            if (node == null)
+            {
+                final NodeRef rootNode = this.getRootNode(tenantDomain, store);
+                final List<NodeRef> path = new ArrayList<>(stepQNames.length + 1);
+                path.add(rootNode);
+                node = this.locateFirstMatch(rootNode, stepQNames, 0, path);
+                if (node != null)
+                {
+                    this.registerLocatedNode(cacheKey, node, path, stepQNames);
+                }
+            }
         }
-        return null;
+        else
+        {
+            node = this.locateNode(tenantDomain, store, query, stepQNames);
+        }
+        return node;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onMoveNode(final ChildAssociationRef oldChildAssocRef, final ChildAssociationRef newChildAssocRef)
+    {
+        this.invalidateLocatedNodes(oldChildAssocRef.getChildRef());
+        // moved / renamed node may now be an earlier match
+        this.invalidateLocatedNodes(newChildAssocRef.getQName());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void beforeDeleteNode(final NodeRef nodeRef)
+    {
+        this.invalidateLocatedNodes(nodeRef);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onCreateChildAssociation(final ChildAssociationRef childAssocRef, final boolean isNewNode)
+    {
+        // new (primary or secondary) child may be an earlier match in association order
+        this.invalidateLocatedNodes(childAssocRef.getQName());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onDeleteChildAssociation(final ChildAssociationRef childAssocRef)
+    {
+        // located node may have been matched via a (now removed) secondary child association
+        this.invalidateLocatedNodes(childAssocRef.getChildRef());
     }
 
     /**
@@ -159,6 +326,42 @@ public class XPathNodeLocator extends AbstractNodeLocator implements Initializin
         this.searchService = searchService;
     }
 
+    /**
+     * @param permissionService
+     *            the permissionService to set
+     */
+    public void setPermissionService(final PermissionService permissionService)
+    {
+        this.permissionService = permissionService;
+    }
+
+    /**
+     * @param policyComponent
+     *            the policyComponent to set
+     */
+    public void setPolicyComponent(final PolicyComponent policyComponent)
+    {
+        this.policyComponent = policyComponent;
+    }
+
+    /**
+     * @param cacheEnabled
+     *            the cacheEnabled to set
+     */
+    public void setCacheEnabled(final boolean cacheEnabled)
+    {
+        this.cacheEnabled = cacheEnabled;
+    }
+
+    /**
+     * @param cacheMaxEntries
+     *            the cacheMaxEntries to set
+     */
+    public void setCacheMaxEntries(final int cacheMaxEntries)
+    {
+        this.cacheMaxEntries = cacheMaxEntries;
+    }
+
     /**
      * @param defaultStoreStr
      *            the defaultStoreStr to set
@@ -167,4 +370,283 @@ public class XPathNodeLocator extends AbstractNodeLocator implements Initializin
     {
         this.defaultStore = new StoreRef(defaultStoreStr);
     }
+
+    protected NodeRef getRootNode(final String tenantDomain, final StoreRef store)
+    {
+        return this.rootNodes.computeIfAbsent(new Pair<>(tenantDomain, store), k -> this.nodeService.getRootNode(store));
+    }
+
+    protected QName[] resolveSimplePathSteps(final String query)
+    {
+        QName[] stepQNames = null;
+        if (SIMPLE_PATH_QUERY.matcher(query).matches())
+        {
+            try
+            {
+                final String[] steps = query.substring(1).split("/");
+                stepQNames = new QName[steps.length];
+                for (int idx = 0; idx < steps.length; idx++)
+                {
+                    stepQNames[idx] = QName.createQName(steps[idx], this.namespaceService);
+                }
+            }
+            catch (final NamespaceException nex)
+            {
+                LOGGER.debug("Failed to resolve steps of simple path query {} - falling back to XPath evaluation", query, nex);
+                stepQNames = null;
+            }
+        }
+        return stepQNames;
+    }
+
+    protected NodeRef locateNode(final String tenantDomain, final StoreRef store, final String query, final QName[] stepQNames)
+    {
+        final NodeRef rootNode = this.getRootNode(tenantDomain, store);
+
+        NodeRef node = null;
+        if (stepQNames != null)
+        {
+            node = this.locateFirstMatch(rootNode, stepQNames, 0, null);
+        }
+        else
+        {
+            final List<NodeRef> nodes = this.searchService.selectNodes(rootNode, query, new QueryParameterDefinition[0],
+                    this.namespaceService, true);
+            if (nodes.size() > 0)
+            {
+                node = nodes.get(0);
+            }
+        }
+
+        return node;
+    }
+
+    protected NodeRef locateFirstMatch(final NodeRef parent, final QName[] stepQNames, final int stepIdx, final List<NodeRef> path)
+    {
+        NodeRef match = null;
+        // XPath child axis follows both primary and secondary child associations, in document (association index) order
+        final List<ChildAssociationRef> childAssocs = this.nodeService.getChildAssocs(parent, RegexQNamePattern.MATCH_ALL,
+                stepQNames[stepIdx]);
+        for (final ChildAssociationRef childAssoc : childAssocs)
+        {
+            final NodeRef childRef = childAssoc.getChildRef();
+            if (path != null)
+            {
+                path.add(childRef);
+            }
+            match = stepIdx == stepQNames.length - 1 ? childRef : this.locateFirstMatch(childRef, stepQNames, stepIdx + 1, path);
+            if (match != null)
+            {
+                break;
+            }
+            if (path != null)
+            {
+                path.remove(path.size() - 1);
+            }
+        }
+        return match;
+    }
+
+    protected void registerLocatedNode(final LocatedNodeKey cacheKey, final NodeRef node, final List<NodeRef> path,
+            final QName[] stepQNames)
+    {
+        // path actually traversed, which may include secondary child associations
+        final List<String> pathNodeIds = new ArrayList<>(path.size());
+        for (final NodeRef pathNode : path)
+        {
+            pathNodeIds.add(pathNode.getId());
+        }
+        final LocatedNode locatedNode = new LocatedNode(node, pathNodeIds, stepQNames);
+
+        for (final String pathNodeId : pathNodeIds)
+        {
+            this.addDependent(this.locatedNodeDependents, pathNodeId, cacheKey);
+        }
+        for (final QName stepQName : stepQNames)
+        {
+            this.addDependent(this.locatedNodeStepDependents, stepQName, cacheKey);
+        }
+
+        final LocatedNode previous = this.locatedNodes.put(cacheKey, locatedNode);
+        if (previous != null)
+        {
+            // only drop dependencies no longer relevant for the key
+            final List<String> obsoletePathNodeIds = new ArrayList<>(previous.getPathNodeIds());
+            obsoletePathNodeIds.removeAll(pathNodeIds);
+            obsoletePathNodeIds.forEach(pathNodeId -> this.removeDependent(this.locatedNodeDependents, pathNodeId, cacheKey));
+        }
+    }
+
+    protected void invalidateLocatedNodes(final NodeRef nodeRef)
+    {
+        this.invalidateLocatedNodes(this.locatedNodeDependents, nodeRef.getId());
+    }
+
+    protected void invalidateLocatedNodes(final QName stepQName)
+    {
+        this.invalidateLocatedNodes(this.locatedNodeStepDependents, stepQName);
+    }
+
+    protected <K> void invalidateLocatedNodes(final ConcurrentMap<K, Set<LocatedNodeKey>> dependentsMap, final K dependency)
+    {
+        if (dependentsMap.containsKey(dependency))
+        {
+            this.removeLocatedNodes(dependentsMap, dependency);
+
+            // concurrent transactions may have re-cached the pre-change state before this transaction commits
+            TransactionSupportUtil.bindListener(new TransactionListenerAdapter()
+            {
+
+                /**
+                 * {@inheritDoc}
+                 */
+                @Override
+                public void afterCommit()
+                {
+                    XPathNodeLocator.this.removeLocatedNodes(dependentsMap, dependency);
+                }
+            }, 0);
+        }
+    }
+
+    protected <K> void removeLocatedNodes(final ConcurrentMap<K, Set<LocatedNodeKey>> dependentsMap, final K dependency)
+    {
+        final Set<LocatedNodeKey> dependents = dependentsMap.remove(dependency);
+        if (dependents != null)
+        {
+            LOGGER.debug("Invalidating {} cached located node(s) due to change on {}", dependents.size(), dependency);
+            for (final LocatedNodeKey cacheKey : dependents)
+            {
+                final LocatedNode locatedNode = this.locatedNodes.remove(cacheKey);
+                if (locatedNode != null)
+                {
+                    this.unregisterDependents(cacheKey, locatedNode);
+                }
+            }
+        }
+    }
+
+    protected void unregisterDependents(final LocatedNodeKey cacheKey, final LocatedNode locatedNode)
+    {
+        for (final String pathNodeId : locatedNode.getPathNodeIds())
+        {
+            this.removeDependent(this.locatedNodeDependents, pathNodeId, cacheKey);
+        }
+        for (final QName stepQName : locatedNode.getStepQNames())
+        {
+            this.removeDependent(this.locatedNodeStepDependents, stepQName, cacheKey);
+        }
+    }
+
+    protected <K> void addDependent(final ConcurrentMap<K, Set<LocatedNodeKey>> dependentsMap, final K dependency,
+            final LocatedNodeKey cacheKey)
+    {
+        // atomic with regards to removeDependent, so a key is never added to a reverse index entry already dropped
+        dependentsMap.compute(dependency, (k, dependents) -> {
+            final Set<LocatedNodeKey> effectiveDependents = dependents != null ? dependents
+                    : Collections.newSetFromMap(new ConcurrentHashMap<>());
+            effectiveDependents.add(cacheKey);
+            return effectiveDependents;
+        });
+    }
+
+    protected <K> void removeDependent(final ConcurrentMap<K, Set<LocatedNodeKey>> dependentsMap, final K dependency,
+            final LocatedNodeKey cacheKey)
+    {
+        // atomically drop the reverse index entry once it no longer references any cache key
+        dependentsMap.computeIfPresent(dependency, (k, dependents) -> {
+            dependents.remove(cacheKey);
+            return dependents.isEmpty() ? null : dependents;
+        });
+    }
+
+    /**
+     * Instances of this class represent a node located by a simple path query, including the dependencies of the cache entry.
+     *
+     * @author Axel Faust
+     */
+    protected static class LocatedNode
+    {
+
+        private final NodeRef node;
+
+        private final List<String> pathNodeIds;
+
+        private final QName[] stepQNames;
+
+        protected LocatedNode(final NodeRef node, final List<String> pathNodeIds, final QName[] stepQNames)
+        {
+            this.node = node;
+            this.pathNodeIds = Collections.unmodifiableList(pathNodeIds);
+            this.stepQNames = stepQNames;
+        }
+
+        protected NodeRef getNode()
+        {
+            return this.node;
+        }
+
+        protected List<String> getPathNodeIds()
+        {
+            return this.pathNodeIds;
+        }
+
+        protected QName[] getStepQNames()
+        {
+            return this.stepQNames;
+        }
+    }
+
+    /**
+     * Instances of this class represent the cache key of a node located by a simple path query.
+     *
+     * @author Axel Faust
+     */
+    protected static class LocatedNodeKey
+    {
+
+        private final String tenantDomain;
+
+        private final String user;
+
+        private final StoreRef store;
+
+        private final String query;
+
+        protected LocatedNodeKey(final String tenantDomain, final String user, final StoreRef store, final String query)
+        {
+            this.tenantDomain = tenantDomain;
+            this.user = user;
+            this.store = store;
+            this.query = query;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(this.tenantDomain, this.user, this.store, this.query);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean equals(final Object obj)
+        {
+            if (this == obj)
+            {
+                return true;
+            }
+            if (!(obj instanceof LocatedNodeKey))
+            {
+                return false;
+            }
+            final LocatedNodeKey other = (LocatedNodeKey) obj;
+            return Objects.equals(this.tenantDomain, other.tenantDomain) && Objects.equals(this.user, other.user)
+                    && Objects.equals(this.store, other.store) && Objects.equals(this.query, other.query);
+        }
+    }
 }
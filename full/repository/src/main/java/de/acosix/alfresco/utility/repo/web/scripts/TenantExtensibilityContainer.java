@@ -18,14 +18,19 @@ package de.acosix.alfresco.utility.repo.web.scripts;
 import java.io.IOException;
 import java.io.Writer;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.ResourceBundle;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
+import org.alfresco.repo.tenant.TenantUtil;
 import org.alfresco.repo.web.scripts.ExtensibilityContainer;
 import org.alfresco.repo.web.scripts.RepositoryContainer;
 import org.alfresco.repo.web.scripts.TenantRepositoryContainer;
+import org.alfresco.util.ParameterCheck;
 import org.dom4j.Element;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -68,65 +73,27 @@ public class TenantExtensibilityContainer extends TenantRepositoryContainer impl
 
     /**
      *
-     * Maintains a list of all the {@link ExtensibilityModel} instances being used across all the
-     * available threads.
+     * The extensibility state of the request currently being processed by a thread. The state is bound once per
+     * {@link #executeScript(WebScriptRequest, WebScriptResponse, Authenticator) script execution} and always unbound when it completes,
+     * and may be {@link #doInRequestState(ExtensibilityRequestState, Supplier) bound} to other threads processing the same request.
      *
      */
-    protected final ThreadLocal<ExtensibilityModel> extensibilityModel = new ThreadLocal<>();
+    protected final ThreadLocal<ExtensibilityRequestState> requestState = new ThreadLocal<>();
 
     /**
      *
-     * A thread-safe cache of extended {@link ResourceBundle} instances for the current request.
+     * The cache of extended configuration shared by all requests, keyed by tenant domain and the IDs of the evaluated extension modules.
      *
      */
-    protected final ThreadLocal<Map<String, WebScriptPropertyResourceBundle>> extendedBundleCache = new ThreadLocal<>();
+    protected final Map<String, ExtendedConfig> extendedConfigCache = new ConcurrentHashMap<>();
 
     /**
      *
-     * A {@link ThreadLocal} reference to the file currently being processed in the model.
-     */
-    protected final ThreadLocal<String> fileBeingProcessed = new ThreadLocal<>();
-
-    /**
-     *
-     * The list of {@link BasicExtensionModule extension module} instances that have been evaluated as applicable to
-     * this RequestContext. This is set to <code>null</code> when during instantiation and is only
-     * properly set the first time the <code>getEvaluatedModules</code> method is invoked. This ensures
-     * that module evaluation only occurs once per request.
-     *
-     */
-    protected final ThreadLocal<List<BasicExtensionModule>> evaluatedModules = new ThreadLocal<>();
-
-    /**
-     *
-     * This is a local {@link ConfigImpl} instance that will only be used when extension modules are employed. It will
-     * initially be populated with the default "static" global configuration taken from the {@link ConfigService} associated
-     * with the current request context but then updated to include global configuration provided by
-     * extension modules that have been evaluated to be applied to the current request.
-     *
-     */
-    protected ThreadLocal<ConfigImpl> globalConfig = new ThreadLocal<>();
-
-    /**
-     *
-     * This map represents {@link ConfigSection} instances mapped by area. It will only be used when extension modules are
-     * employed. It will initially be populated with the default "static" configuration taken from the {@link ConfigService} associated
-     * with the current request context but then updated to include configuration provided by extension modules that have been evaluated to
-     * be applied to the current request.
-     *
-     */
-    protected ThreadLocal<Map<String, List<ConfigSection>>> sectionsByArea = new ThreadLocal<>();
-
-    /**
-     *
-     * A list of {@link ConfigSection} instances that are only applicable to the current request. It will only be used when extension
-     * modules are
-     * employed. It will initially be populated with the default "static" configuration taken from the {@link ConfigService} associated
-     * with the current request context but then updated to include configuration provided by extension modules that have been evaluated to
-     * be applied to the current request.
+     * The list of {@link BasicExtensionModule extension module} instances as last retrieved from the
+     * {@link WebScriptExtensibilityModuleHandler extensibility handler}, only valid for the global configuration it was retrieved for.
      *
      */
-    protected ThreadLocal<List<ConfigSection>> sections = new ThreadLocal<>();
+    protected volatile ExtensionModules extensionModules;
 
     /**
      *
@@ -161,7 +128,8 @@ public class TenantExtensibilityContainer extends TenantRepositoryContainer impl
     @Override
     public String getFileBeingProcessed()
     {
-        return this.fileBeingProcessed.get();
+        final ExtensibilityRequestState requestState = this.requestState.get();
+        return requestState != null ? requestState.fileBeingProcessed : null;
     }
 
     /**
@@ -176,7 +144,7 @@ public class TenantExtensibilityContainer extends TenantRepositoryContainer impl
     @Override
     public void setFileBeingProcessed(final String file)
     {
-        this.fileBeingProcessed.set(file);
+        this.getRequestState().fileBeingProcessed = file;
     }
 
     /**
@@ -189,6 +157,61 @@ public class TenantExtensibilityContainer extends TenantRepositoryContainer impl
         return false;
     }
 
+    /**
+     *
+     * {@inheritDoc}
+     */
+    @Override
+    public void reset()
+    {
+        super.reset();
+
+        // configuration and / or extension modules may have been reloaded
+        this.extensionModules = null;
+        this.extendedConfigCache.clear();
+    }
+
+    /**
+     * Retrieves the extensibility state of the request currently being processed by the calling thread, e.g. in order to
+     * {@link #doInRequestState(ExtensibilityRequestState, Supplier) hand it off} to a different thread for asynchronous processing.
+     *
+     * @return the extensibility state of the current request, or {@code null} if no request is being processed by the calling thread
+     */
+    public ExtensibilityRequestState getCurrentRequestState()
+    {
+        return this.requestState.get();
+    }
+
+    /**
+     * Executes an operation with a specific extensibility state bound to the calling thread, restoring any previously bound state
+     * afterwards. This allows the state of a request to be handed off to other threads, e.g. virtual threads or threads used for
+     * asynchronous servlet processing.
+     *
+     * @param <R>
+     *            the type of the result of the operation
+     * @param requestState
+     *            the extensibility state to bind
+     * @param operation
+     *            the operation to execute
+     * @return the result of the operation
+     */
+    public <R> R doInRequestState(final ExtensibilityRequestState requestState, final Supplier<R> operation)
+    {
+        ParameterCheck.mandatory("requestState", requestState);
+        ParameterCheck.mandatory("operation", operation);
+
+        final ExtensibilityRequestState previousRequestState = this.requestState.get();
+        this.requestState.set(requestState);
+        try
+        {
+            return operation.get();
+        }
+        finally
+        {
+            this.restoreRequestState(previousRequestState);
+        }
+    }
+
     /**
      *
      * Opens a new {@link ExtensibilityModel}, defers execution to the extended {@link RepositoryContainer} and
@@ -199,42 +222,52 @@ public class TenantExtensibilityContainer extends TenantRepositoryContainer impl
     public void executeScript(final WebScriptRequest scriptReq, final WebScriptResponse scriptRes, final Authenticator auth)
             throws IOException
     {
-        final ExtensibilityModel extModel = this.openExtensibilityModel();
-        boolean exceptionOccurred = false;
+        final ExtensibilityRequestState previousRequestState = this.requestState.get();
+        this.requestState.set(new ExtensibilityRequestState());
         try
         {
-            super.executeScript(scriptReq, scriptRes, auth);
-        }
-        catch (final Exception e)
-        {
-            LOGGER.debug(
-                    "{} occurred during script execution - not closing extensibility model and thus not flushing response (relegated to container status handling)",
-                    e.getClass());
-            exceptionOccurred = true;
-            if (e instanceof RuntimeException || e instanceof IOException)
+            final ExtensibilityModel extModel = this.openExtensibilityModel();
+            boolean exceptionOccurred = false;
+            try
             {
-                throw e;
+                super.executeScript(scriptReq, scriptRes, auth);
             }
-            throw new WebScriptException(Status.STATUS_INTERNAL_SERVER_ERROR, "Unexpected error", e);
-        }
-        finally
-        {
-            // It's only necessary to close the model if it's actually been used. Not all WebScripts will make use of the
-            // model. An example of this would be the StreamContent WebScript. It is important not to attempt to close
-            // an unused model since the WebScript executed may have already flushed the response if it has overridden
-            // the default .execute() method.
-            if (!exceptionOccurred && extModel.isModelStarted())
+            catch (final Exception e)
             {
-                try
+                LOGGER.debug(
+                        "{} occurred during script execution - not closing extensibility model and thus not flushing response (relegated to container status handling)",
+                        e.getClass());
+                exceptionOccurred = true;
+                if (e instanceof RuntimeException || e instanceof IOException)
                 {
-                    this.closeExtensibilityModel(extModel, scriptRes.getWriter());
+                    throw e;
                 }
-                catch (final IOException e)
+                throw new WebScriptException(Status.STATUS_INTERNAL_SERVER_ERROR, "Unexpected error", e);
+            }
+            finally
+            {
+                // It's only necessary to close the model if it's actually been used. Not all WebScripts will make use of the
+                // model. An example of this would be the StreamContent WebScript. It is important not to attempt to close
+                // an unused model since the WebScript executed may have already flushed the response if it has overridden
+                // the default .execute() method.
+                if (!exceptionOccurred && extModel.isModelStarted())
                 {
-                    LOGGER.error("An error occurred getting the Writer when closing an ExtensibilityModel", e);
+                    try
+                    {
+                        this.closeExtensibilityModel(extModel, scriptRes.getWriter());
+                    }
+                    catch (final IOException e)
+                    {
+                        LOGGER.error("An error occurred getting the Writer when closing an ExtensibilityModel", e);
+                    }
                 }
             }
         }
+        finally
+        {
+            // always unbind, even if the model could not be opened / closed due to an exception
+            this.restoreRequestState(previousRequestState);
+        }
     }
 
     /**
@@ -245,10 +278,11 @@ public class TenantExtensibilityContainer extends TenantRepositoryContainer impl
     public ExtensibilityModel openExtensibilityModel()
     {
         LOGGER.debug("Opening for thread: {}", Thread.currentThread().getName());
-        this.extendedBundleCache.set(new HashMap<String, WebScriptPropertyResourceBundle>());
+        final ExtensibilityRequestState requestState = this.getRequestState();
+        requestState.extendedBundleCache.clear();
 
         final ExtensibilityModel model = new ExtensibilityModelImpl(null, this);
-        this.extensibilityModel.set(model);
+        requestState.extensibilityModel = model;
 
         return model;
     }
@@ -263,14 +297,12 @@ public class TenantExtensibilityContainer extends TenantRepositoryContainer impl
         LOGGER.debug("Closing for thread: {}", Thread.currentThread().getName());
         model.flushModel(out);
 
-        this.extendedBundleCache.remove();
-        this.evaluatedModules.remove();
-        this.fileBeingProcessed.remove();
-        this.globalConfig.remove();
-        this.sections.remove();
-        this.sectionsByArea.remove();
-
-        this.extensibilityModel.remove();
+        // state itself is unbound by executeScript / doInRequestState which bound it
+        final ExtensibilityRequestState requestState = this.requestState.get();
+        if (requestState != null && requestState.extensibilityModel == model)
+        {
+            requestState.extensibilityModel = null;
+        }
     }
 
     /**
@@ -280,7 +312,7 @@ public class TenantExtensibilityContainer extends TenantRepositoryContainer impl
     public ExtensibilityModel getCurrentExtensibilityModel()
     {
         LOGGER.debug("Getting current for thread: {}", Thread.currentThread().getName());
-        ExtensibilityModel extensibilityModel = this.extensibilityModel.get();
+        ExtensibilityModel extensibilityModel = this.getRequestState().extensibilityModel;
         if (extensibilityModel == null)
         {
             extensibilityModel = this.openExtensibilityModel();
@@ -311,10 +343,10 @@ public class TenantExtensibilityContainer extends TenantRepositoryContainer impl
     public ResourceBundle getCachedExtendedBundle(final String webScriptId)
     {
         ResourceBundle cachedExtendedBundle = null;
-        final Map<String, WebScriptPropertyResourceBundle> threadLocal = this.extendedBundleCache.get();
-        if (threadLocal != null)
+        final ExtensibilityRequestState requestState = this.requestState.get();
+        if (requestState != null)
         {
-            cachedExtendedBundle = this.extendedBundleCache.get().get(webScriptId);
+            cachedExtendedBundle = requestState.extendedBundleCache.get(webScriptId);
         }
         return cachedExtendedBundle;
     }
@@ -332,15 +364,7 @@ public class TenantExtensibilityContainer extends TenantRepositoryContainer impl
     @Override
     public void addExtensionBundleToCache(final String webScriptId, final WebScriptPropertyResourceBundle extensionBundle)
     {
-        Map<String, WebScriptPropertyResourceBundle> threadLocal = this.extendedBundleCache.get();
-        if (threadLocal == null)
-        {
-            // This should never be the case because when a new model is opened this value should be reset
-            // but we will double-check to avoid the potential of NPEs...
-            threadLocal = new HashMap<>();
-            this.extendedBundleCache.set(threadLocal);
-        }
-        threadLocal.put(webScriptId, extensionBundle);
+        this.getRequestState().extendedBundleCache.put(webScriptId, extensionBundle);
     }
 
     /**
@@ -370,7 +394,8 @@ public class TenantExtensibilityContainer extends TenantRepositoryContainer impl
      */
     public List<BasicExtensionModule> getEvaluatedModules()
     {
-        List<BasicExtensionModule> evaluatedModules = this.evaluatedModules.get();
+        final ExtensibilityRequestState requestState = this.getRequestState();
+        List<BasicExtensionModule> evaluatedModules = requestState.evaluatedModules;
         if (evaluatedModules == null)
         {
             if (this.extensibilityModuleHandler == null)
@@ -384,9 +409,17 @@ public class TenantExtensibilityContainer extends TenantRepositoryContainer impl
             }
             else
             {
-                evaluatedModules = this.extensibilityModuleHandler.getExtensionModules();
+                final Object globalConfig = this.getConfigService() != null ? this.getConfigService().getGlobalConfig() : null;
+                ExtensionModules extensionModules = this.extensionModules;
+                // extension modules are loaded from configuration and may change when it is reloaded
+                if (extensionModules == null || extensionModules.globalConfig != globalConfig)
+                {
+                    extensionModules = new ExtensionModules(globalConfig, this.extensibilityModuleHandler.getExtensionModules());
+                    this.extensionModules = extensionModules;
+                }
+                evaluatedModules = extensionModules.modules;
             }
-            this.evaluatedModules.set(evaluatedModules);
+            requestState.evaluatedModules = evaluatedModules;
         }
         return evaluatedModules;
     }
@@ -402,12 +435,18 @@ public class TenantExtensibilityContainer extends TenantRepositoryContainer impl
     @Override
     public ScriptConfigModel getExtendedScriptConfigModel(final String xmlConfig)
     {
-        if (this.globalConfig.get() == null && this.sectionsByArea.get() == null && this.sections.get() == null)
+        final ExtendedConfig extendedConfig = this.getConfigExtensions();
+        final ScriptConfigModel configModel;
+        if (extendedConfig != null)
         {
-            this.getConfigExtensions();
+            configModel = new ExtendedScriptConfigModel(this.getConfigService(), xmlConfig, extendedConfig.globalConfig,
+                    extendedConfig.sectionsByArea, extendedConfig.sections);
         }
-        return new ExtendedScriptConfigModel(this.getConfigService(), xmlConfig, this.globalConfig.get(), this.sectionsByArea.get(),
-                this.sections.get());
+        else
+        {
+            configModel = new ExtendedScriptConfigModel(this.getConfigService(), xmlConfig, null, null, null);
+        }
+        return configModel;
     }
 
     /**
@@ -421,12 +460,18 @@ public class TenantExtensibilityContainer extends TenantRepositoryContainer impl
     @Override
     public TemplateConfigModel getExtendedTemplateConfigModel(final String xmlConfig)
     {
-        if (this.globalConfig.get() == null && this.sectionsByArea.get() == null && this.sections.get() == null)
+        final ExtendedConfig extendedConfig = this.getConfigExtensions();
+        final TemplateConfigModel configModel;
+        if (extendedConfig != null)
         {
-            this.getConfigExtensions();
+            configModel = new ExtendedTemplateConfigModel(this.getConfigService(), xmlConfig, extendedConfig.globalConfig,
+                    extendedConfig.sectionsByArea, extendedConfig.sections);
         }
-        return new ExtendedTemplateConfigModel(this.getConfigService(), xmlConfig, this.globalConfig.get(), this.sectionsByArea.get(),
-                this.sections.get());
+        else
+        {
+            configModel = new ExtendedTemplateConfigModel(this.getConfigService(), xmlConfig, null, null, null);
+        }
+        return configModel;
     }
 
     /**
@@ -440,71 +485,221 @@ public class TenantExtensibilityContainer extends TenantRepositoryContainer impl
     }
 
     /**
-     * Creates and populates the request specific configuration container objects (<code>globalConfig</code>, <code>sectionsByArea</code>
-     * and
-     * <code>sections</code> with a combination of the default static configuration (taken from files accessed by the {@link ConfigService})
-     * and
-     * dynamic configuration taken from extension modules evaluated for the current request.
+     * Retrieves the request specific configuration container objects (<code>globalConfig</code>, <code>sectionsByArea</code> and
+     * <code>sections</code>) with a combination of the default static configuration (taken from files accessed by the
+     * {@link ConfigService}) and dynamic configuration taken from extension modules evaluated for the current request. The combined
+     * configuration is only created once per tenant domain and distinct list of evaluated modules, and shared between all requests until
+     * either the configuration or the extension modules change.
+     *
+     * @return the extended configuration for the current request, or {@code null} if the config service does not support extended
+     *         configuration
      */
-    protected void getConfigExtensions()
+    protected ExtendedConfig getConfigExtensions()
     {
+        final ExtensibilityRequestState requestState = this.getRequestState();
+        ExtendedConfig extendedConfig = requestState.extendedConfig;
+
         // Extended configuration is only possible if config service is an XMLConfigService...
-        // ...also, it's only necessary to populate the configuration containers if they have not already been populated. This test should
-        // also be carried out by the two methods ("getExtendedTemplateConfigModel" & "getExtendedTemplateConfigModel") to prevent
-        // duplication of effort... but in case other methods attempt to access it we will make these additional tests.
-        if (this.getConfigService() instanceof XMLConfigService && this.globalConfig.get() == null && this.sectionsByArea.get() == null
-                && this.sections.get() == null)
+        if (extendedConfig == null && this.getConfigService() instanceof XMLConfigService)
         {
             // Cast the config service for ease of access
             final XMLConfigService xmlConfigService = (XMLConfigService) this.getConfigService();
+            final List<BasicExtensionModule> evaluatedModules = this.getEvaluatedModules();
 
-            // Get the current configuration from the ConfigService - we don't want to permanently pollute
-            // the standard configuration with additions from the modules...
-            this.globalConfig.set(new ConfigImpl((ConfigImpl) xmlConfigService.getGlobalConfig())); // Make a copy of the current global
-                                                                                                    // config
+            final StringBuilder keyBuilder = new StringBuilder(TenantUtil.getCurrentDomain());
+            evaluatedModules.forEach(module -> keyBuilder.append('|').append(module.getId()));
+            final String key = keyBuilder.toString();
 
-            // Initialise these with the config service values...
-            this.sectionsByArea.set(new HashMap<>(xmlConfigService.getSectionsByArea()));
-            this.sections.set(new ArrayList<>(xmlConfigService.getSections()));
+            extendedConfig = this.extendedConfigCache.get(key);
+            // configuration may have been reloaded or modules (re-)deployed since the cache entry was created
+            if (extendedConfig == null || !extendedConfig.isValid(xmlConfigService, evaluatedModules))
+            {
+                LOGGER.debug("Creating extended configuration for {}", key);
+                extendedConfig = this.createConfigExtensions(xmlConfigService, evaluatedModules);
+                this.extendedConfigCache.put(key, extendedConfig);
+            }
 
-            // Check to see if there are any modules that we need to apply...
-            final List<BasicExtensionModule> evaluatedModules = this.getEvaluatedModules();
-            if (evaluatedModules != null && !evaluatedModules.isEmpty())
+            requestState.extendedConfig = extendedConfig;
+        }
+
+        return extendedConfig;
+    }
+
+    /**
+     * Creates and populates the configuration container objects (<code>globalConfig</code>, <code>sectionsByArea</code> and
+     * <code>sections</code> with a combination of the default static configuration (taken from files accessed by the
+     * {@link ConfigService}) and dynamic configuration taken from extension modules.
+     *
+     * @param xmlConfigService
+     *            the config service providing the default static configuration
+     * @param evaluatedModules
+     *            the extension modules to apply
+     * @return the extended configuration
+     */
+    protected ExtendedConfig createConfigExtensions(final XMLConfigService xmlConfigService,
+            final List<BasicExtensionModule> evaluatedModules)
+    {
+        // Get the current configuration from the ConfigService - we don't want to permanently pollute
+        // the standard configuration with additions from the modules...
+        // Make a copy of the current global config
+        final ConfigImpl globalConfig = new ConfigImpl((ConfigImpl) xmlConfigService.getGlobalConfig());
+
+        // Initialise these with the config service values...
+        final Map<String, List<ConfigSection>> sectionsByArea = new HashMap<>(xmlConfigService.getSectionsByArea());
+        final List<ConfigSection> sections = new ArrayList<>(xmlConfigService.getSections());
+
+        // Check to see if there are any modules that we need to apply...
+        if (evaluatedModules != null && !evaluatedModules.isEmpty())
+        {
+            for (final BasicExtensionModule currModule : evaluatedModules)
             {
-                for (final BasicExtensionModule currModule : evaluatedModules)
+                for (final Element currentConfigElement : currModule.getConfigurations())
                 {
-                    for (final Element currentConfigElement : currModule.getConfigurations())
+                    // Set up containers for our request specific configuration - this will contain data taken from the evaluated
+                    // modules...
+                    final Map<String, ConfigElementReader> parsedElementReaders = new HashMap<>();
+                    final Map<String, Evaluator> parsedEvaluators = new HashMap<>();
+                    final List<ConfigSection> parsedConfigSections = new ArrayList<>();
+
+                    // Parse and process the parses configuration...
+                    final String currentArea = xmlConfigService.parseFragment(currentConfigElement, parsedElementReaders, parsedEvaluators,
+                            parsedConfigSections);
+                    for (final Map.Entry<String, Evaluator> entry : parsedEvaluators.entrySet())
                     {
-                        // Set up containers for our request specific configuration - this will contain data taken from the evaluated
-                        // modules...
-                        final Map<String, ConfigElementReader> parsedElementReaders = new HashMap<>();
-                        final Map<String, Evaluator> parsedEvaluators = new HashMap<>();
-                        final List<ConfigSection> parsedConfigSections = new ArrayList<>();
-
-                        // Parse and process the parses configuration...
-                        final String currentArea = xmlConfigService.parseFragment(currentConfigElement, parsedElementReaders,
-                                parsedEvaluators, parsedConfigSections);
-                        for (final Map.Entry<String, Evaluator> entry : parsedEvaluators.entrySet())
-                        {
-                            // add the evaluators to the config service
-                            parsedEvaluators.put(entry.getKey(), entry.getValue());
-                        }
-
-                        for (final Map.Entry<String, ConfigElementReader> entry : parsedElementReaders.entrySet())
-                        {
-                            // add the element readers to the config service
-                            parsedElementReaders.put(entry.getKey(), entry.getValue());
-                        }
-
-                        for (final ConfigSection section : parsedConfigSections)
-                        {
-                            // Update local configuration with our updated data...
-                            xmlConfigService.addConfigSection(section, currentArea, this.globalConfig.get(), this.sectionsByArea.get(),
-                                    this.sections.get());
-                        }
+                        // add the evaluators to the config service
+                        parsedEvaluators.put(entry.getKey(), entry.getValue());
+                    }
+
+                    for (final Map.Entry<String, ConfigElementReader> entry : parsedElementReaders.entrySet())
+                    {
+                        // add the element readers to the config service
+                        parsedElementReaders.put(entry.getKey(), entry.getValue());
+                    }
+
+                    for (final ConfigSection section : parsedConfigSections)
+                    {
+                        // Update local configuration with our updated data...
+                        xmlConfigService.addConfigSection(section, currentArea, globalConfig, sectionsByArea, sections);
                     }
                 }
             }
         }
+
+        return new ExtendedConfig(xmlConfigService, evaluatedModules, globalConfig, sectionsByArea, sections);
+    }
+
+    /**
+     * Retrieves the extensibility state bound to the calling thread. If the calling thread is not currently processing a request, a
+     * transient state is returned which is never bound to the thread, so that no state can leak into subsequent use of pooled threads.
+     *
+     * @return the extensibility state of the current request, or a transient state if no request is being processed by the calling thread
+     */
+    protected ExtensibilityRequestState getRequestState()
+    {
+        ExtensibilityRequestState requestState = this.requestState.get();
+        if (requestState == null)
+        {
+            LOGGER.trace("No extensibility state bound for thread: {} - using transient state", Thread.currentThread().getName());
+            requestState = new ExtensibilityRequestState();
+        }
+        return requestState;
+    }
+
+    /**
+     * Restores the extensibility state previously bound to the calling thread.
+     *
+     * @param previousRequestState
+     *            the previously bound state, or {@code null} if no state was bound
+     */
+    protected void restoreRequestState(final ExtensibilityRequestState previousRequestState)
+    {
+        if (previousRequestState != null)
+        {
+            this.requestState.set(previousRequestState);
+        }
+        else
+        {
+            this.requestState.remove();
+        }
+    }
+
+    /**
+     * Instances of this class hold the extensibility state of a single request, i.e. the extensibility model, the extended resource
+     * bundles, the evaluated extension modules and the extended configuration applicable to the request. Instances may be accessed by
+     * multiple threads processing the same request.
+     *
+     * @author Axel Faust
+     */
+    public static class ExtensibilityRequestState
+    {
+
+        protected final Map<String, WebScriptPropertyResourceBundle> extendedBundleCache = new ConcurrentHashMap<>();
+
+        protected volatile ExtensibilityModel extensibilityModel;
+
+        protected volatile String fileBeingProcessed;
+
+        protected volatile List<BasicExtensionModule> evaluatedModules;
+
+        protected volatile ExtendedConfig extendedConfig;
+    }
+
+    /**
+     * Instances of this class hold the extension modules loaded for a specific global configuration.
+     *
+     * @author Axel Faust
+     */
+    protected static class ExtensionModules
+    {
+
+        protected final Object globalConfig;
+
+        protected final List<BasicExtensionModule> modules;
+
+        protected ExtensionModules(final Object globalConfig, final List<BasicExtensionModule> modules)
+        {
+            this.globalConfig = globalConfig;
+            this.modules = modules != null ? Collections.unmodifiableList(new ArrayList<>(modules)) : Collections.emptyList();
+        }
+    }
+
+    /**
+     * Instances of this class hold the fully merged configuration for a specific list of extension modules. Instances are shared between
+     * requests and must not be modified after creation.
+     *
+     * @author Axel Faust
+     */
+    protected static class ExtendedConfig
+    {
+
+        protected final Object sourceGlobalConfig;
+
+        protected final List<BasicExtensionModule> modules;
+
+        protected final ConfigImpl globalConfig;
+
+        protected final Map<String, List<ConfigSection>> sectionsByArea;
+
+        protected final List<ConfigSection> sections;
+
+        protected ExtendedConfig(final XMLConfigService xmlConfigService, final List<BasicExtensionModule> modules,
+                final ConfigImpl globalConfig, final Map<String, List<ConfigSection>> sectionsByArea, final List<ConfigSection> sections)
+        {
+            this.sourceGlobalConfig = xmlConfigService.getGlobalConfig();
+            this.modules = new ArrayList<>(modules);
+            this.globalConfig = globalConfig;
+            this.sectionsByArea = Collections.unmodifiableMap(sectionsByArea);
+            this.sections = Collections.unmodifiableList(sections);
+        }
+
+        protected boolean isValid(final XMLConfigService xmlConfigService, final List<BasicExtensionModule> modules)
+        {
+            boolean valid = this.sourceGlobalConfig == xmlConfigService.getGlobalConfig() && this.modules.size() == modules.size();
+            for (int idx = 0; valid && idx < modules.size(); idx++)
+            {
+                valid = this.modules.get(idx) == modules.get(idx);
+            }
+            return valid;
+        }
     }
 }
@@ -17,6 +17,7 @@ package de.acosix.alfresco.utility.share.surf;
 
 import java.io.IOException;
 
+import org.alfresco.util.ParameterCheck;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.extensions.surf.extensibility.ExtensibilityModel;
@@ -62,9 +63,10 @@ public class ExtensibilityFixedLocalWebScriptRuntimeContainer extends LocalWebSc
     private static final Logger LOGGER = LoggerFactory.getLogger(ExtensibilityFixedLocalWebScriptRuntimeContainer.class);
 
     /**
-     * This keeps track of wether the application of extensibility has been suppressed for the current thread.
+     * This keeps track of the state of the request currently being processed by a thread, specifically wether the application of
+     * extensibility has been suppressed. The state is bound once per script execution and always unbound when it completes.
      */
-    protected final ThreadLocal<Boolean> extensibilitySuppressed = new ThreadLocal<>();
+    protected final ThreadLocal<RequestState> requestState = new ThreadLocal<>();
 
     /**
      *
@@ -73,7 +75,14 @@ public class ExtensibilityFixedLocalWebScriptRuntimeContainer extends LocalWebSc
     @Override
     public void suppressExtensibility()
     {
-        this.extensibilitySuppressed.set(Boolean.TRUE);
+        RequestState requestState = this.requestState.get();
+        if (requestState == null)
+        {
+            // suppression outside of script execution - bound until unsuppressed
+            requestState = new RequestState(false);
+            this.requestState.set(requestState);
+        }
+        requestState.extensibilitySuppressed = true;
     }
 
     /**
@@ -83,7 +92,15 @@ public class ExtensibilityFixedLocalWebScriptRuntimeContainer extends LocalWebSc
     @Override
     public void unsuppressExtensibility()
     {
-        this.extensibilitySuppressed.set(Boolean.FALSE);
+        final RequestState requestState = this.requestState.get();
+        if (requestState != null)
+        {
+            requestState.extensibilitySuppressed = false;
+            if (!requestState.scriptExecution)
+            {
+                this.requestState.remove();
+            }
+        }
     }
 
     /**
@@ -93,10 +110,53 @@ public class ExtensibilityFixedLocalWebScriptRuntimeContainer extends LocalWebSc
     @Override
     public boolean isExtensibilitySuppressed()
     {
-        final boolean extensibilityIsSuppressed = Boolean.TRUE.equals(this.extensibilitySuppressed.get());
+        final RequestState requestState = this.requestState.get();
+        final boolean extensibilityIsSuppressed = requestState != null && requestState.extensibilitySuppressed;
         return extensibilityIsSuppressed;
     }
 
+    /**
+     * Retrieves the state of the request currently being processed by the calling thread, e.g. in order to
+     * {@link #doInRequestState(RequestState, Callback) hand it off} to a different thread for asynchronous processing.
+     *
+     * @return the state of the current request, or {@code null} if no request is being processed by the calling thread
+     */
+    public RequestState getCurrentRequestState()
+    {
+        return this.requestState.get();
+    }
+
+    /**
+     * Executes an operation with a specific request state bound to the calling thread, restoring any previously bound state afterwards.
+     * This allows the state of a request to be handed off to other threads, e.g. virtual threads or threads used for asynchronous servlet
+     * processing.
+     *
+     * @param <T>
+     *            the type of exception the operation may throw
+     * @param requestState
+     *            the request state to bind
+     * @param operation
+     *            the operation to execute
+     * @throws T
+     *             if the operation fails
+     */
+    public <T extends Throwable> void doInRequestState(final RequestState requestState, final Callback<T> operation) throws T
+    {
+        ParameterCheck.mandatory("requestState", requestState);
+        ParameterCheck.mandatory("operation", operation);
+
+        final RequestState previousRequestState = this.requestState.get();
+        this.requestState.set(requestState);
+        try
+        {
+            operation.execute();
+        }
+        finally
+        {
+            this.restoreRequestState(previousRequestState);
+        }
+    }
+
     // copied almost verbatim from spring-surf 6.12
     /**
      *
@@ -106,7 +166,7 @@ public class ExtensibilityFixedLocalWebScriptRuntimeContainer extends LocalWebSc
     public void executeScript(final WebScriptRequest scriptReq, final WebScriptResponse scriptRes, final Authenticator auth)
             throws IOException
     {
-        final Callback<IOException> cb = () -> {
+        final Callback<IOException> scriptCb = () -> {
             // call through to the parent container to perform the WebScript processing
             final ExtensibilityModel extModel = this.openExtensibilityModel();
             boolean exceptionOccurred = false;
@@ -139,6 +199,19 @@ public class ExtensibilityFixedLocalWebScriptRuntimeContainer extends LocalWebSc
             }
         };
 
+        final Callback<IOException> cb = () -> {
+            final RequestState previousRequestState = this.requestState.get();
+            this.requestState.set(new RequestState(true));
+            try
+            {
+                scriptCb.execute();
+            }
+            finally
+            {
+                this.restoreRequestState(previousRequestState);
+            }
+        };
+
         if (USE_JAVAX_CONTEXT_UTILITY)
         {
             JavaxRequestContextUtility.doInRequestContext(this.applicationContext, scriptReq, scriptRes, this::getRequestContext,
@@ -167,4 +240,41 @@ public class ExtensibilityFixedLocalWebScriptRuntimeContainer extends LocalWebSc
             script.execute(scriptReq, scriptRes);
         }
     }
+
+    /**
+     * Restores the request state previously bound to the calling thread.
+     *
+     * @param previousRequestState
+     *            the previously bound state, or {@code null} if no state was bound
+     */
+    protected void restoreRequestState(final RequestState previousRequestState)
+    {
+        if (previousRequestState != null)
+        {
+            this.requestState.set(previousRequestState);
+        }
+        else
+        {
+            this.requestState.remove();
+        }
+    }
+
+    /**
+     * Instances of this class hold the state of a single request handled by this container. Instances may be accessed by multiple threads
+     * processing the same request.
+     *
+     * @author Axel Faust
+     */
+    public static class RequestState
+    {
+
+        protected final boolean scriptExecution;
+
+        protected volatile boolean extensibilitySuppressed;
+
+        protected RequestState(final boolean scriptExecution)
+        {
+            this.scriptExecution = scriptExecution;
+        }
+    }
 }
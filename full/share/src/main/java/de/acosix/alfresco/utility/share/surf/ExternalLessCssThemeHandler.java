@@ -2,17 +2,41 @@ package de.acosix.alfresco.utility.share.surf;
 
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.StringTokenizer;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.extensions.config.ConfigElement;
 import org.springframework.extensions.config.WebFrameworkConfigElement;
 import org.springframework.extensions.surf.CssThemeHandler;
@@ -35,26 +59,84 @@ import com.asual.lesscss.LessException;
  * Typically uses a Node "lessc" module preinstalled via NPM or similar. This is not
  * expected to be used in production environments where adding additional 3rd party
  * modules to the web-tier is not desired or permitted.
+ * <p>
+ * Instead of spawning a new process via the {@link #setCmd(String) cmd} for every CSS resource, a pool of long-lived worker processes can
+ * be used by configuring a {@link #setWorkerCmd(String) workerCmd}. Workers are fed via a simple framed protocol: each request is written
+ * to stdin as a line containing the decimal byte length of the LESS source, followed by the UTF-8 encoded LESS source. Each response is
+ * read from stdout as a line containing either {@code OK} or {@code ERR}, a space and the decimal byte length of the payload, followed by
+ * the UTF-8 encoded compiled CSS or error message respectively. Workers are expected to terminate when their stdin is closed. Workers not
+ * responding within the {@link #setWorkerTimeout(long) worker timeout} are forcibly terminated.
+ * <p>
+ * Compiled CSS is cached keyed by a hash of the command and the full LESS source (including LESS variables), so identical inputs are never
+ * compiled twice. The in-memory cache is shared by all instances of this class, and can be complemented by a
+ * {@link #setCompiledCssCacheDirectory(String) cache directory} to retain compiled CSS across restarts.
  *
  * @see <a href="http://lesscss.org/#using-less-installation">http://lesscss.org/</a>
  *
  * @author Kevin Roast
  */
-public class ExternalLessCssThemeHandler extends CssThemeHandler
+public class ExternalLessCssThemeHandler extends CssThemeHandler implements DisposableBean
 {
 
     public static final String LESS_TOKEN = "less-variables";
 
     private static final Log logger = LogFactory.getLog(ExternalLessCssThemeHandler.class);
 
+    private static final int COMPILED_CSS_CACHE_SIZE = 1000;
+
+    private static final String COMPILED_CSS_FILE_SUFFIX = ".css";
+
+    private static final String WORKER_RESPONSE_OK = "OK";
+
+    private static final String WORKER_RESPONSE_ERROR = "ERR";
+
+    private static final Map<String, String> COMPILED_CSS_CACHE = Collections
+            .synchronizedMap(new LinkedHashMap<String, String>(16, 0.75f, true)
+            {
+
+                private static final long serialVersionUID = 1L;
+
+                /**
+                 * {@inheritDoc}
+                 */
+                @Override
+                protected boolean removeEldestEntry(final Map.Entry<String, String> eldest)
+                {
+                    return this.size() > COMPILED_CSS_CACHE_SIZE;
+                }
+            });
+
     /**
      * The default LESS configuration. This will be populated with the contents of a file referenced by the
      * web-framework > defaults > dojo-pages > default-less-configuration.
      */
-    private String defaultLessConfig = null;
+    private volatile String defaultLessConfig = null;
 
     private String cmd;
 
+    private String workerCmd;
+
+    private int workerPoolSize = 2;
+
+    private long workerTimeout = 30000;
+
+    private boolean compiledCssCacheEnabled = true;
+
+    private String compiledCssCacheDirectory;
+
+    private final BlockingQueue<LessWorker> idleWorkers = new LinkedBlockingQueue<>();
+
+    private final AtomicInteger workerCount = new AtomicInteger();
+
+    // threads are only started on demand, i.e. when workers are actually used
+    private final ScheduledExecutorService workerWatchdog = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        final Thread thread = new Thread(runnable, "ExternalLessCssThemeHandler-workerWatchdog");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile boolean destroyed;
+
     /**
      * @param cmd
      *            The external cmd to execute. For example Node lessc this would be "lessc -".
@@ -65,6 +147,63 @@ public class ExternalLessCssThemeHandler extends CssThemeHandler
         this.cmd = cmd;
     }
 
+    /**
+     * @param workerCmd
+     *            The external cmd to execute to start a long-lived worker process. If set, this takes precedence over the
+     *            {@link #setCmd(String) cmd}. The worker process must support the framed protocol described in the class
+     *            documentation.
+     */
+    public void setWorkerCmd(final String workerCmd)
+    {
+        this.workerCmd = workerCmd;
+    }
+
+    /**
+     * @param workerPoolSize
+     *            The maximum number of concurrently running worker processes - must be at least {@code 1}.
+     */
+    public void setWorkerPoolSize(final int workerPoolSize)
+    {
+        if (workerPoolSize < 1)
+        {
+            throw new IllegalArgumentException("External LESS 'workerPoolSize' must be at least 1");
+        }
+        this.workerPoolSize = workerPoolSize;
+    }
+
+    /**
+     * @param workerTimeout
+     *            The maximum time in milliseconds to wait for an idle worker process, and for a worker process to respond to a compilation
+     *            request - must be at least {@code 1}.
+     */
+    public void setWorkerTimeout(final long workerTimeout)
+    {
+        if (workerTimeout < 1)
+        {
+            throw new IllegalArgumentException("External LESS 'workerTimeout' must be at least 1");
+        }
+        this.workerTimeout = workerTimeout;
+    }
+
+    /**
+     * @param compiledCssCacheEnabled
+     *            Whether compiled CSS should be cached keyed by the hash of the LESS source.
+     */
+    public void setCompiledCssCacheEnabled(final boolean compiledCssCacheEnabled)
+    {
+        this.compiledCssCacheEnabled = compiledCssCacheEnabled;
+    }
+
+    /**
+     * @param compiledCssCacheDirectory
+     *            The path to the directory in which to persist compiled CSS so it can be reused across restarts - if not set, compiled
+     *            CSS will only be cached in memory.
+     */
+    public void setCompiledCssCacheDirectory(final String compiledCssCacheDirectory)
+    {
+        this.compiledCssCacheDirectory = compiledCssCacheDirectory;
+    }
+
     /**
      * Sets up a new instance.
      */
@@ -85,11 +224,57 @@ public class ExternalLessCssThemeHandler extends CssThemeHandler
     @Override
     public String processCssThemes(final String path, final StringBuilder cssContents) throws IOException
     {
-        if (this.cmd == null || this.cmd.length() == 0)
+        final boolean useWorker = this.workerCmd != null && !this.workerCmd.isEmpty();
+        if (!useWorker && (this.cmd == null || this.cmd.length() == 0))
         {
             throw new IllegalArgumentException("External LESS 'cmd' not set correctly in bean config.");
         }
 
+        final String lessSource = this.getLessVariables() + cssContents.toString();
+
+        String cacheKey = null;
+        String result = null;
+        if (this.compiledCssCacheEnabled)
+        {
+            cacheKey = this.buildCacheKey(useWorker ? this.workerCmd : this.cmd, lessSource);
+            result = this.getCachedCss(cacheKey);
+        }
+
+        if (result == null)
+        {
+            result = useWorker ? this.compileWithWorker(path, lessSource) : this.compileWithProcess(path, lessSource);
+
+            if (cacheKey != null)
+            {
+                this.cacheCss(cacheKey, result);
+            }
+        }
+        else if (logger.isDebugEnabled())
+        {
+            logger.debug("Using cached compiled CSS for path: " + path);
+        }
+
+        return result;
+    }
+
+    /**
+     *
+     * {@inheritDoc}
+     */
+    @Override
+    public void destroy()
+    {
+        this.destroyed = true;
+
+        final List<LessWorker> workers = new ArrayList<>();
+        this.idleWorkers.drainTo(workers);
+        workers.forEach(this::discardWorker);
+
+        this.workerWatchdog.shutdownNow();
+    }
+
+    protected String compileWithProcess(final String path, final String lessSource) throws IOException
+    {
         // setup our external process and retrieve streams - IO exception is handled in caller
         final Process proc = Runtime.getRuntime().exec(this.cmd);
 
@@ -101,8 +286,7 @@ public class ExternalLessCssThemeHandler extends CssThemeHandler
         try
         {
             // push our CSS to the standard Input of the external process
-            stdIn.append(this.getLessVariables());
-            stdIn.append(cssContents.toString());
+            stdIn.append(lessSource);
             stdIn.close();
 
             // read the output from the command
@@ -138,6 +322,175 @@ public class ExternalLessCssThemeHandler extends CssThemeHandler
         }
     }
 
+    protected String compileWithWorker(final String path, final String lessSource) throws IOException
+    {
+        final LessWorker worker = this.checkoutWorker();
+        boolean reusable = false;
+        try
+        {
+            final String result = worker.compile(lessSource, this.workerWatchdog, this.workerTimeout);
+            reusable = true;
+            return result;
+        }
+        catch (final LessWorkerCompilationException lwcex)
+        {
+            // worker is still in a consistent state
+            reusable = true;
+            throw new IOException("Error during external LESS compilation for path: " + path + "\r\n" + lwcex.getMessage());
+        }
+        finally
+        {
+            if (reusable && !this.destroyed)
+            {
+                this.idleWorkers.offer(worker);
+            }
+            else
+            {
+                this.discardWorker(worker);
+            }
+        }
+    }
+
+    protected LessWorker checkoutWorker() throws IOException
+    {
+        final long deadline = System.currentTimeMillis() + this.workerTimeout;
+        LessWorker worker = null;
+        while (worker == null)
+        {
+            if (this.destroyed)
+            {
+                throw new IOException("External LESS handler has been destroyed");
+            }
+
+            worker = this.idleWorkers.poll();
+            if (worker == null)
+            {
+                if (this.workerCount.incrementAndGet() <= this.workerPoolSize)
+                {
+                    try
+                    {
+                        worker = new LessWorker(this.workerCmd);
+                    }
+                    catch (final IOException ioex)
+                    {
+                        this.workerCount.decrementAndGet();
+                        throw ioex;
+                    }
+                }
+                else
+                {
+                    this.workerCount.decrementAndGet();
+
+                    final long remainingWait = deadline - System.currentTimeMillis();
+                    if (remainingWait <= 0)
+                    {
+                        throw new IOException("Timed out waiting for an external LESS worker after " + this.workerTimeout + " ms");
+                    }
+
+                    try
+                    {
+                        // limited wait as busy workers may be discarded instead of being returned
+                        worker = this.idleWorkers.poll(Math.min(remainingWait, 1000), TimeUnit.MILLISECONDS);
+                    }
+                    catch (final InterruptedException iex)
+                    {
+                        Thread.currentThread().interrupt();
+                        throw new InterruptedIOException("Interrupted while waiting for an external LESS worker");
+                    }
+                }
+            }
+
+            if (worker != null && !worker.isAlive())
+            {
+                this.discardWorker(worker);
+                worker = null;
+            }
+        }
+        return worker;
+    }
+
+    protected void discardWorker(final LessWorker worker)
+    {
+        this.workerCount.decrementAndGet();
+        worker.destroy();
+    }
+
+    protected String buildCacheKey(final String command, final String lessSource)
+    {
+        try
+        {
+            final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(command.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            final byte[] hash = digest.digest(lessSource.getBytes(StandardCharsets.UTF_8));
+
+            final StringBuilder keyBuilder = new StringBuilder(hash.length * 2);
+            for (final byte b : hash)
+            {
+                keyBuilder.append(Character.forDigit((b >> 4) & 0xf, 16));
+                keyBuilder.append(Character.forDigit(b & 0xf, 16));
+            }
+            return keyBuilder.toString();
+        }
+        catch (final NoSuchAlgorithmException nsaex)
+        {
+            // SHA-256 is guaranteed to be supported by every Java platform
+            throw new IllegalStateException("SHA-256 not supported", nsaex);
+        }
+    }
+
+    protected String getCachedCss(final String cacheKey)
+    {
+        String css = COMPILED_CSS_CACHE.get(cacheKey);
+        if (css == null && this.compiledCssCacheDirectory != null && !this.compiledCssCacheDirectory.isEmpty())
+        {
+            final Path cacheFile = Paths.get(this.compiledCssCacheDirectory, cacheKey + COMPILED_CSS_FILE_SUFFIX);
+            if (Files.isRegularFile(cacheFile))
+            {
+                try
+                {
+                    css = new String(Files.readAllBytes(cacheFile), StandardCharsets.UTF_8);
+                    COMPILED_CSS_CACHE.put(cacheKey, css);
+                }
+                catch (final IOException ioex)
+                {
+                    logger.warn("Failed to read compiled CSS from cache file: " + cacheFile, ioex);
+                }
+            }
+        }
+        return css;
+    }
+
+    protected void cacheCss(final String cacheKey, final String css)
+    {
+        COMPILED_CSS_CACHE.put(cacheKey, css);
+
+        if (this.compiledCssCacheDirectory != null && !this.compiledCssCacheDirectory.isEmpty())
+        {
+            final Path cacheDirectory = Paths.get(this.compiledCssCacheDirectory);
+            final Path cacheFile = cacheDirectory.resolve(cacheKey + COMPILED_CSS_FILE_SUFFIX);
+            try
+            {
+                Files.createDirectories(cacheDirectory);
+                // write to temporary file first so concurrent readers never see partial contents
+                final Path tempFile = Files.createTempFile(cacheDirectory, cacheKey, ".tmp");
+                try
+                {
+                    Files.write(tempFile, css.getBytes(StandardCharsets.UTF_8));
+                    Files.move(tempFile, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                }
+                finally
+                {
+                    Files.deleteIfExists(tempFile);
+                }
+            }
+            catch (final IOException ioex)
+            {
+                logger.warn("Failed to write compiled CSS to cache file: " + cacheFile, ioex);
+            }
+        }
+    }
+
     /**
      * Looks for the LESS CSS token which should contain the LESS style variables that
      * can be applied to each CSS file. This will be prepended to each CSS file processed.
@@ -198,45 +551,213 @@ public class ExternalLessCssThemeHandler extends CssThemeHandler
     protected String getDefaultLessConfig()
     {
         final RequestContext rc = ThreadLocalRequestContext.getRequestContext();
-        if (this.defaultLessConfig == null)
+        String defaultLessConfig = this.defaultLessConfig;
+        if (defaultLessConfig == null)
         {
-            String defaultLessConfigPath = null;
-            final ScriptConfigModel config = rc.getExtendedScriptConfigModel(null);
-            final Map<String, ConfigElement> configs = (Map<String, ConfigElement>) config.getScoped().get("WebFramework");
-            if (configs != null)
+            // load only once even if multiple requests concurrently require it
+            synchronized (this)
             {
-                final WebFrameworkConfigElement wfce = (WebFrameworkConfigElement) configs.get("web-framework");
-                defaultLessConfigPath = wfce.getDojoDefaultLessConfig();
+                if (this.defaultLessConfig == null)
+                {
+                    String defaultLessConfigPath = null;
+                    final ScriptConfigModel config = rc.getExtendedScriptConfigModel(null);
+                    final Map<String, ConfigElement> configs = (Map<String, ConfigElement>) config.getScoped().get("WebFramework");
+                    if (configs != null)
+                    {
+                        final WebFrameworkConfigElement wfce = (WebFrameworkConfigElement) configs.get("web-framework");
+                        defaultLessConfigPath = wfce.getDojoDefaultLessConfig();
+                    }
+                    else
+                    {
+                        defaultLessConfigPath = this.getWebFrameworkConfigElement().getDojoDefaultLessConfig();
+                    }
+                    try
+                    {
+                        final InputStream in = this.getDependencyHandler().getResourceInputStream(defaultLessConfigPath);
+                        if (in != null)
+                        {
+                            this.defaultLessConfig = this.getDependencyHandler().convertResourceToString(in);
+                        }
+                        else
+                        {
+                            if (logger.isErrorEnabled())
+                            {
+                                logger.error("Could not find the default LESS configuration at: " + defaultLessConfigPath);
+                            }
+                            // Set the configuration as the empty string as it's not in the configured location
+                            this.defaultLessConfig = "";
+                        }
+                    }
+                    catch (final IOException e)
+                    {
+                        if (logger.isErrorEnabled())
+                        {
+                            logger.error("An exception occurred retrieving the default LESS configuration from: " + defaultLessConfigPath,
+                                    e);
+                        }
+                    }
+                }
+                defaultLessConfig = this.defaultLessConfig;
             }
-            else
+        }
+        return defaultLessConfig;
+    }
+
+    /**
+     * Instances of this class represent a single long-lived external LESS worker process.
+     *
+     * @author Axel Faust
+     */
+    protected static class LessWorker
+    {
+
+        private final Process process;
+
+        private final OutputStream stdIn;
+
+        private final InputStream stdOut;
+
+        protected LessWorker(final String workerCmd) throws IOException
+        {
+            // tokenise the same way Runtime.exec(String) would
+            final StringTokenizer tokenizer = new StringTokenizer(workerCmd);
+            final List<String> command = new ArrayList<>();
+            while (tokenizer.hasMoreTokens())
             {
-                defaultLessConfigPath = this.getWebFrameworkConfigElement().getDojoDefaultLessConfig();
+                command.add(tokenizer.nextToken());
             }
+
+            this.process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+            this.stdIn = this.process.getOutputStream();
+            this.stdOut = this.process.getInputStream();
+        }
+
+        protected boolean isAlive()
+        {
+            return this.process.isAlive();
+        }
+
+        protected String compile(final String lessSource, final ScheduledExecutorService watchdog, final long timeout) throws IOException
+        {
+            // process streams do not support read timeouts - forcibly terminating the process unblocks any pending read
+            final AtomicBoolean timedOut = new AtomicBoolean();
+            final ScheduledFuture<?> timeoutTask = watchdog.schedule(() -> {
+                timedOut.set(true);
+                this.process.destroyForcibly();
+            }, timeout, TimeUnit.MILLISECONDS);
             try
             {
-                final InputStream in = this.getDependencyHandler().getResourceInputStream(defaultLessConfigPath);
-                if (in != null)
+                return this.compile(lessSource);
+            }
+            catch (final IOException ioex)
+            {
+                if (timedOut.get() && !(ioex instanceof LessWorkerCompilationException))
                 {
-                    this.defaultLessConfig = this.getDependencyHandler().convertResourceToString(in);
+                    throw new IOException("External LESS worker did not respond within " + timeout + " ms", ioex);
                 }
-                else
+                throw ioex;
+            }
+            finally
+            {
+                timeoutTask.cancel(false);
+            }
+        }
+
+        private String compile(final String lessSource) throws IOException
+        {
+            final byte[] lessBytes = lessSource.getBytes(StandardCharsets.UTF_8);
+            this.stdIn.write((lessBytes.length + "\n").getBytes(StandardCharsets.US_ASCII));
+            this.stdIn.write(lessBytes);
+            this.stdIn.flush();
+
+            final String header = this.readLine();
+            final int separator = header.indexOf(' ');
+            if (separator == -1)
+            {
+                throw new IOException("Invalid response header from external LESS worker: " + header);
+            }
+
+            final String status = header.substring(0, separator);
+            final int length;
+            try
+            {
+                length = Integer.parseInt(header.substring(separator + 1).trim());
+            }
+            catch (final NumberFormatException nfex)
+            {
+                throw new IOException("Invalid response length from external LESS worker: " + header);
+            }
+
+            final byte[] payload = new byte[length];
+            int offset = 0;
+            while (offset < length)
+            {
+                final int read = this.stdOut.read(payload, offset, length - offset);
+                if (read == -1)
                 {
-                    if (logger.isErrorEnabled())
-                    {
-                        logger.error("Could not find the default LESS configuration at: " + defaultLessConfigPath);
-                    }
-                    // Set the configuration as the empty string as it's not in the configured location
-                    this.defaultLessConfig = "";
+                    throw new EOFException("External LESS worker terminated prematurely");
                 }
+                offset += read;
+            }
+            final String content = new String(payload, StandardCharsets.UTF_8);
+
+            if (WORKER_RESPONSE_ERROR.equals(status))
+            {
+                throw new LessWorkerCompilationException(content);
+            }
+            else if (!WORKER_RESPONSE_OK.equals(status))
+            {
+                throw new IOException("Invalid response status from external LESS worker: " + header);
+            }
+            return content;
+        }
+
+        protected void destroy()
+        {
+            try
+            {
+                this.stdIn.close();
+            }
+            catch (final IOException ioex)
+            {
+                logger.debug("Failed to close stdin of external LESS worker", ioex);
             }
-            catch (final IOException e)
+            this.process.destroy();
+        }
+
+        private String readLine() throws IOException
+        {
+            final ByteArrayOutputStream lineBytes = new ByteArrayOutputStream(16);
+            int b;
+            while ((b = this.stdOut.read()) != '\n')
             {
-                if (logger.isErrorEnabled())
+                if (b == -1)
+                {
+                    throw new EOFException("External LESS worker terminated prematurely");
+                }
+                if (b != '\r')
                 {
-                    logger.error("An exception occurred retrieving the default LESS configuration from: " + defaultLessConfigPath, e);
+                    lineBytes.write(b);
                 }
             }
+            return new String(lineBytes.toByteArray(), StandardCharsets.US_ASCII);
+        }
+    }
+
+    /**
+     * Instances of this exception signal a LESS compilation error reported by an external LESS worker process via the framed protocol,
+     * after which the worker remains usable.
+     *
+     * @author Axel Faust
+     */
+    protected static class LessWorkerCompilationException extends IOException
+    {
+
+        private static final long serialVersionUID = 1L;
+
+        protected LessWorkerCompilationException(final String message)
+        {
+            super(message);
         }
-        return this.defaultLessConfig;
     }
 }
@@ -17,12 +17,13 @@ package de.acosix.alfresco.utility.share.surf;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.Collections;
 import java.util.Map;
-import java.util.WeakHashMap;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeansException;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationContextAware;
 import org.springframework.extensions.config.WebFrameworkConfigElement;
 import org.springframework.extensions.surf.CssThemeHandler;
 import org.springframework.extensions.surf.RequestContext;
@@ -36,7 +37,7 @@ import com.inet.lib.less.LessException;
 /**
  * @author Axel Faust
  */
-public class JLesscCssThemeHandler extends CssThemeHandler
+public class JLesscCssThemeHandler extends CssThemeHandler implements ApplicationContextAware
 {
 
     public static final String LESS_TOKEN = "less-variables";
@@ -45,13 +46,13 @@ public class JLesscCssThemeHandler extends CssThemeHandler
 
     private static final String LESS_PROCESSED_MARKER = "/* LESS-processed */";
 
-    protected final Map<RequestContext, Map<String, String>> tokensMap = new WeakHashMap<>();
+    protected final ThemeTokenCache tokenCache = new ThemeTokenCache();
 
     /**
      * The default LESS configuration. This will be populated with the contents of a file referenced by the
      * web-framework &gt; defaults &gt; dojo-pages &gt; default-less-configuration.
      */
-    protected String defaultLessConfig = null;
+    protected volatile String defaultLessConfig = null;
 
     /**
      * Returns the current default LESS configuration. If it has not previously been retrieved then it will
@@ -62,40 +63,49 @@ public class JLesscCssThemeHandler extends CssThemeHandler
     public String getDefaultLessConfig()
     {
         final RequestContext rc = ThreadLocalRequestContext.getRequestContext();
-        if (this.defaultLessConfig == null)
+        String defaultLessConfig = this.defaultLessConfig;
+        if (defaultLessConfig == null)
         {
-            String defaultLessConfigPath = null;
-            final ScriptConfigModel config = rc.getExtendedScriptConfigModel(null);
-            final Map<?, ?> configs = (Map<?, ?>) config.getScoped().get("WebFramework");
-            if (configs != null)
+            // load only once even if multiple requests concurrently require it
+            synchronized (this)
             {
-                final WebFrameworkConfigElement wfce = (WebFrameworkConfigElement) configs.get("web-framework");
-                defaultLessConfigPath = wfce.getDojoDefaultLessConfig();
-            }
-            else
-            {
-                defaultLessConfigPath = this.getWebFrameworkConfigElement().getDojoDefaultLessConfig();
-            }
-            try
-            {
-                final InputStream in = this.getDependencyHandler().getResourceInputStream(defaultLessConfigPath);
-                if (in != null)
-                {
-                    this.defaultLessConfig = this.getDependencyHandler().convertResourceToString(in);
-                }
-                else
+                if (this.defaultLessConfig == null)
                 {
-                    LOGGER.error("Could not find the default LESS configuration at: {}", defaultLessConfigPath);
-                    // Set the configuration as the empty string as it's not in the configured location
-                    this.defaultLessConfig = "";
+                    String defaultLessConfigPath = null;
+                    final ScriptConfigModel config = rc.getExtendedScriptConfigModel(null);
+                    final Map<?, ?> configs = (Map<?, ?>) config.getScoped().get("WebFramework");
+                    if (configs != null)
+                    {
+                        final WebFrameworkConfigElement wfce = (WebFrameworkConfigElement) configs.get("web-framework");
+                        defaultLessConfigPath = wfce.getDojoDefaultLessConfig();
+                    }
+                    else
+                    {
+                        defaultLessConfigPath = this.getWebFrameworkConfigElement().getDojoDefaultLessConfig();
+                    }
+                    try
+                    {
+                        final InputStream in = this.getDependencyHandler().getResourceInputStream(defaultLessConfigPath);
+                        if (in != null)
+                        {
+                            this.defaultLessConfig = this.getDependencyHandler().convertResourceToString(in);
+                        }
+                        else
+                        {
+                            LOGGER.error("Could not find the default LESS configuration at: {}", defaultLessConfigPath);
+                            // Set the configuration as the empty string as it's not in the configured location
+                            this.defaultLessConfig = "";
+                        }
+                    }
+                    catch (final IOException e)
+                    {
+                        LOGGER.error("An exception occurred retrieving the default LESS configuration from: {}", defaultLessConfigPath, e);
+                    }
                 }
-            }
-            catch (final IOException e)
-            {
-                LOGGER.error("An exception occurred retrieving the default LESS configuration from: {}", defaultLessConfigPath, e);
+                defaultLessConfig = this.defaultLessConfig;
             }
         }
-        return this.defaultLessConfig;
+        return defaultLessConfig;
     }
 
     /**
@@ -120,6 +130,16 @@ public class JLesscCssThemeHandler extends CssThemeHandler
         return variables;
     }
 
+    /**
+     *
+     * {@inheritDoc}
+     */
+    @Override
+    public void setApplicationContext(final ApplicationContext applicationContext) throws BeansException
+    {
+        this.tokenCache.setApplicationContext(applicationContext);
+    }
+
     /**
      *
      * {@inheritDoc}
@@ -137,25 +157,9 @@ public class JLesscCssThemeHandler extends CssThemeHandler
     @Override
     public Map<String, String> getTokenMap()
     {
-        Map<String, String> cssTokens;
-
-        // tokensMap keyed by request context which may have different customizations applied to it than previous contexts
-        final RequestContext rc = ThreadLocalRequestContext.getRequestContext();
-        cssTokens = this.tokensMap.get(rc);
-        if (cssTokens == null)
-        {
-            Theme currentTheme = rc.getTheme();
-            if (currentTheme == null)
-            {
-                currentTheme = rc.getObjectService().getTheme("default");
-            }
-            // obtain theme tokens (previously handled by determineThemeTokens in base class)
-            cssTokens = currentTheme.getCssTokens();
-            this.tokensMap.put(rc, cssTokens);
-        }
-
-        // do not expose modifiable internal state
-        return Collections.unmodifiableMap(cssTokens);
+        // tokens keyed by theme and applied extension modules instead of globally (previously handled by determineThemeTokens in base
+        // class) as different customizations may be applied to different request contexts
+        return this.tokenCache.getTokens();
     }
 
     /**
@@ -18,34 +18,29 @@ package de.acosix.alfresco.utility.share.surf;
 import java.util.regex.Pattern;
 
 import org.alfresco.util.PropertyCheck;
-import org.json.JSONArray;
-import org.json.JSONException;
-import org.json.JSONObject;
-import org.json.JSONTokener;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.extensions.surf.DojoCssDependencyRule;
 import org.springframework.extensions.surf.DojoDependencies;
 
+import de.acosix.alfresco.utility.share.surf.JSONDependencyModelScanner.CssRequirement;
+import de.acosix.alfresco.utility.share.surf.JSONDependencyModelScanner.ScanResult;
+
 /**
- * This special rule implementation will attempt to parse and process the declarative widget model of a page as JSON before falling back to
- * the less efficient and more error prone default RegEx evaluation.
+ * This special rule implementation will attempt to {@link JSONDependencyModelScanner scan} the declarative widget model of a page as JSON
+ * before falling back to the less efficient and more error prone default RegEx evaluation.
  *
  * @author Axel Faust
  */
 public class JSONAwareCssDependencyRule extends DojoCssDependencyRule implements InitializingBean
 {
 
-    private static final String CSS_FILE = "cssFile";
+    protected String cssDependencyKeyRegex = JSONDependencyModelScanner.DEFAULT_CSS_DEPENDENCY_KEY_REGEX;
 
-    private static final String MEDIA_TYPE = "mediaType";
+    protected Pattern cssDependencyKeyPattern;
 
-    private static final Logger LOGGER = LoggerFactory.getLogger(JSONAwareCssDependencyRule.class);
+    protected String widgetKeyRegex = JSONDependencyModelScanner.DEFAULT_WIDGET_KEY_REGEX;
 
-    protected String cssDependencyKeyRegex = "^(cssRequirements)$";
-
-    protected Pattern cssDependencyKeyPattern;
+    protected Pattern widgetKeyPattern;
 
     /**
      * {@inheritDoc}
@@ -54,7 +49,9 @@ public class JSONAwareCssDependencyRule extends DojoCssDependencyRule implements
     public void afterPropertiesSet()
     {
         PropertyCheck.mandatory(this, "cssDependencyKeyRegex", this.cssDependencyKeyRegex);
+        PropertyCheck.mandatory(this, "widgetKeyRegex", this.widgetKeyRegex);
         this.cssDependencyKeyPattern = Pattern.compile(this.cssDependencyKeyRegex);
+        this.widgetKeyPattern = Pattern.compile(this.widgetKeyRegex);
     }
 
     /**
@@ -66,6 +63,18 @@ public class JSONAwareCssDependencyRule extends DojoCssDependencyRule implements
         this.cssDependencyKeyRegex = cssDependencyKeyRegex;
     }
 
+    /**
+     * Sets the regex for keys holding widget definitions. This should be identical to the regex used by the
+     * {@link JSONAwareWidgetsDependencyRule widgets dependency rule} so that both rules can share the scan of a model.
+     *
+     * @param widgetKeyRegex
+     *            the widgetKeyRegex to set
+     */
+    public void setWidgetKeyRegex(final String widgetKeyRegex)
+    {
+        this.widgetKeyRegex = widgetKeyRegex;
+    }
+
     /**
      *
      * {@inheritDoc}
@@ -75,29 +84,18 @@ public class JSONAwareCssDependencyRule extends DojoCssDependencyRule implements
     {
         if (filePath == null)
         {
-            Object jsonModel = null;
-            try
-            {
-                jsonModel = this.tryParseAsJSON(fileContents);
-            }
-            catch (final JSONException e)
-            {
-                LOGGER.debug("Failed to parse potential JSON model - falling back to regex evaluation", e);
-            }
-
-            if (!(jsonModel instanceof JSONObject || jsonModel instanceof JSONArray))
+            final ScanResult scanResult = JSONDependencyModelScanner.getScanResult(fileContents, this.widgetKeyPattern,
+                    this.cssDependencyKeyPattern);
+            if (scanResult == null)
             {
                 super.processRegexRules(null, fileContents, dependencies);
             }
             else
             {
-                if (jsonModel instanceof JSONObject)
-                {
-                    this.processModelImpl((JSONObject) jsonModel, dependencies, fileContents);
-                }
-                else
+                for (final CssRequirement cssRequirement : scanResult.getCssRequirements())
                 {
-                    this.processModelsImpl((JSONArray) jsonModel, dependencies, fileContents);
+                    final String cssPath = this.getDojoDependencyHandler().getPath(null, cssRequirement.getCssFile());
+                    dependencies.addCssDep(cssPath, cssRequirement.getMediaType());
                 }
             }
         }
@@ -106,121 +104,4 @@ public class JSONAwareCssDependencyRule extends DojoCssDependencyRule implements
             super.processRegexRules(filePath, fileContents, dependencies);
         }
     }
-
-    protected Object tryParseAsJSON(final String fileContents) throws JSONException
-    {
-        final Object json;
-
-        if (fileContents.startsWith("{"))
-        {
-            json = new JSONObject(new JSONTokener(fileContents));
-        }
-        else if (fileContents.startsWith("["))
-        {
-            json = new JSONArray(new JSONTokener(fileContents));
-        }
-        else
-        {
-            LOGGER.debug("Unable to determine if JSON should be parsed as array or object");
-            json = null;
-        }
-
-        return json;
-    }
-
-    protected void processModelImpl(final JSONObject jsonModel, final DojoDependencies dependencies, final String fileContents)
-    {
-        try
-        {
-            final String[] names = JSONObject.getNames(jsonModel);
-            // null as return value for empty object is evil - should've been empty array
-            if (names != null)
-            {
-                for (final String key : names)
-                {
-                    final Object value = jsonModel.get(key);
-
-                    if (this.cssDependencyKeyPattern.matcher(key).matches())
-                    {
-                        if (value instanceof JSONObject)
-                        {
-                            this.processSingleDependencyImpl((JSONObject) value, dependencies, fileContents);
-                        }
-                        else if (value instanceof JSONArray)
-                        {
-                            this.processMultiDependenciesImpl((JSONArray) value, dependencies, fileContents);
-                        }
-                    }
-                    else
-                    {
-                        if (value instanceof JSONObject)
-                        {
-                            this.processModelImpl((JSONObject) value, dependencies, fileContents);
-                        }
-                        else if (value instanceof JSONArray)
-                        {
-                            this.processModelsImpl((JSONArray) value, dependencies, fileContents);
-                        }
-                    }
-                }
-            }
-        }
-        catch (final JSONException e)
-        {
-            LOGGER.warn("Error processing JSON model - falling back to regex rules", e);
-            super.processRegexRules(null, fileContents, dependencies);
-        }
-    }
-
-    protected void processModelsImpl(final JSONArray jsonModels, final DojoDependencies dependencies, final String fileContents)
-    {
-        try
-        {
-            for (int idx = 0; idx < jsonModels.length(); idx++)
-            {
-                final Object element = jsonModels.get(idx);
-                if (element instanceof JSONObject)
-                {
-                    this.processModelImpl((JSONObject) element, dependencies, fileContents);
-                }
-                else if (element instanceof JSONArray)
-                {
-                    this.processModelsImpl((JSONArray) element, dependencies, fileContents);
-                }
-            }
-        }
-        catch (final JSONException e)
-        {
-            LOGGER.warn("Error processing JSON models - falling back to regex rules", e);
-            super.processRegexRules(null, fileContents, dependencies);
-        }
-    }
-
-    protected void processMultiDependenciesImpl(final JSONArray dependenciesModel, final DojoDependencies dependencies,
-            final String fileContents)
-    {
-        for (int idx = 0; idx < dependenciesModel.length(); idx++)
-        {
-            final JSONObject dependencyModel = dependenciesModel.optJSONObject(idx);
-            if (dependencyModel != null)
-            {
-                this.processSingleDependencyImpl(dependencyModel, dependencies, fileContents);
-            }
-        }
-    }
-
-    protected void processSingleDependencyImpl(final JSONObject dependencyModel, final DojoDependencies dependencies,
-            final String fileContents)
-    {
-        // TODO Do we want to make cssFile / mediaType key names configurable? Unlikely to be different than these defaults
-        final String cssFile = dependencyModel.optString(CSS_FILE);
-        String mediaType = dependencyModel.optString(MEDIA_TYPE);
-        if (mediaType == null || mediaType.trim().isEmpty())
-        {
-            mediaType = "screen";
-        }
-
-        final String cssPath = this.getDojoDependencyHandler().getPath(null, cssFile);
-        dependencies.addCssDep(cssPath, mediaType);
-    }
-}
\ No newline at end of file
+}
@@ -0,0 +1,565 @@
+/*
+ * Copyright 2016 - 2026 Acosix GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.acosix.alfresco.utility.share.surf;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Instances of this class scan the declarative widget model of a page in a single streaming pass to extract the names of the widgets and
+ * the CSS requirements contained in the model, without building a full JSON DOM. Results are cached by the hash of the model contents
+ * and the key patterns used, so that the {@link JSONAwareWidgetsDependencyRule widgets} and {@link JSONAwareCssDependencyRule CSS}
+ * dependency rules share a single scan of the same model.
+ *
+ * @author Axel Faust
+ */
+public final class JSONDependencyModelScanner
+{
+
+    /**
+     * The default regex for keys holding widget definitions.
+     */
+    public static final String DEFAULT_WIDGET_KEY_REGEX = "^((?:_+)?(?:widgets?|[\\w]+Widgets?|widgets?[A-Z]\\w+)(?:_+)?)$";
+
+    /**
+     * The default regex for keys holding CSS requirements.
+     */
+    public static final String DEFAULT_CSS_DEPENDENCY_KEY_REGEX = "^(cssRequirements)$";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(JSONDependencyModelScanner.class);
+
+    private static final String WIDGET_CONFIG = "config";
+
+    private static final String WIDGET_NAME = "name";
+
+    private static final String CSS_FILE = "cssFile";
+
+    private static final String MEDIA_TYPE = "mediaType";
+
+    private static final String DEFAULT_MEDIA_TYPE = "screen";
+
+    private static final int SCAN_RESULT_CACHE_SIZE = 1000;
+
+    private static final ScanResult NOT_JSON = new ScanResult(Collections.emptyList(), Collections.emptyList());
+
+    private static final Map<String, ScanResult> SCAN_RESULT_CACHE = Collections
+            .synchronizedMap(new LinkedHashMap<String, ScanResult>(16, 0.75f, true)
+            {
+
+                private static final long serialVersionUID = 1L;
+
+                /**
+                 *
+                 * {@inheritDoc}
+                 */
+                @Override
+                protected boolean removeEldestEntry(final Map.Entry<String, ScanResult> eldest)
+                {
+                    return this.size() > SCAN_RESULT_CACHE_SIZE;
+                }
+            });
+
+    private enum WidgetRole
+    {
+        NONE, MODEL, WIDGETS, WIDGET;
+    }
+
+    private enum CssRole
+    {
+        NONE, MODEL, REQUIREMENTS, REQUIREMENT;
+    }
+
+    private final String contents;
+
+    private final Pattern widgetKeyPattern;
+
+    private final Pattern cssDependencyKeyPattern;
+
+    private final List<CssRequirement> cssRequirements = new ArrayList<>();
+
+    private int position;
+
+    private JSONDependencyModelScanner(final String contents, final Pattern widgetKeyPattern, final Pattern cssDependencyKeyPattern)
+    {
+        this.contents = contents;
+        this.widgetKeyPattern = widgetKeyPattern;
+        this.cssDependencyKeyPattern = cssDependencyKeyPattern;
+    }
+
+    /**
+     * Retrieves the result of scanning a declarative widget model, scanning the model if no cached result exists.
+     *
+     * @param modelContents
+     *     the contents of the model
+     * @param widgetKeyPattern
+     *     the pattern for keys holding widget definitions
+     * @param cssDependencyKeyPattern
+     *     the pattern for keys holding CSS requirements
+     * @return the result of scanning the model, or {@code null} if the model is not a valid JSON object or array
+     */
+    public static ScanResult getScanResult(final String modelContents, final Pattern widgetKeyPattern,
+            final Pattern cssDependencyKeyPattern)
+    {
+        final String cacheKey = buildCacheKey(modelContents, widgetKeyPattern, cssDependencyKeyPattern);
+        ScanResult result = SCAN_RESULT_CACHE.get(cacheKey);
+        if (result == null)
+        {
+            result = NOT_JSON;
+            if (modelContents.startsWith("{") || modelContents.startsWith("["))
+            {
+                final JSONDependencyModelScanner scanner = new JSONDependencyModelScanner(modelContents, widgetKeyPattern,
+                        cssDependencyKeyPattern);
+                try
+                {
+                    final List<String> widgetNames = new ArrayList<>();
+                    scanner.scanValue(WidgetRole.MODEL, CssRole.MODEL, widgetNames);
+                    result = new ScanResult(widgetNames, scanner.cssRequirements);
+                }
+                catch (final MalformedModelException e)
+                {
+                    LOGGER.debug("Failed to scan potential JSON model", e);
+                }
+            }
+            else
+            {
+                LOGGER.debug("Unable to determine if model should be scanned as JSON array or object");
+            }
+            SCAN_RESULT_CACHE.put(cacheKey, result);
+        }
+        return result != NOT_JSON ? result : null;
+    }
+
+    private static String buildCacheKey(final String modelContents, final Pattern widgetKeyPattern, final Pattern cssDependencyKeyPattern)
+    {
+        try
+        {
+            final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(widgetKeyPattern.pattern().getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(cssDependencyKeyPattern.pattern().getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            final byte[] hash = digest.digest(modelContents.getBytes(StandardCharsets.UTF_8));
+
+            final StringBuilder keyBuilder = new StringBuilder(hash.length * 2);
+            for (final byte b : hash)
+            {
+                keyBuilder.append(Character.forDigit((b >> 4) & 0xf, 16));
+                keyBuilder.append(Character.forDigit(b & 0xf, 16));
+            }
+            return keyBuilder.toString();
+        }
+        catch (final NoSuchAlgorithmException nsaex)
+        {
+            // SHA-256 is guaranteed to be supported by every Java platform
+            throw new IllegalStateException("SHA-256 not supported", nsaex);
+        }
+    }
+
+    private String scanValue(final WidgetRole widgetRole, final CssRole cssRole, final List<String> widgetNames)
+            throws MalformedModelException
+    {
+        String value = null;
+        final char c = this.nextNonWhitespace();
+        switch (c)
+        {
+            case '{':
+                // a single object in place of a list of widgets / requirements
+                this.scanObject(widgetRole == WidgetRole.WIDGETS ? WidgetRole.WIDGET : widgetRole,
+                        cssRole == CssRole.REQUIREMENTS ? CssRole.REQUIREMENT : cssRole, widgetNames);
+                break;
+            case '[':
+                this.scanArray(widgetRole, cssRole, widgetNames);
+                break;
+            case '"':
+            case '\'':
+                value = this.scanString(c);
+                break;
+            default:
+                this.scanLiteral();
+        }
+        return value;
+    }
+
+    private void scanObject(final WidgetRole widgetRole, final CssRole cssRole, final List<String> widgetNames)
+            throws MalformedModelException
+    {
+        String widgetName = null;
+        final List<String> configWidgetNames = widgetRole == WidgetRole.WIDGET ? new ArrayList<>() : widgetNames;
+        final List<String> otherWidgetNames = widgetRole == WidgetRole.WIDGET ? new ArrayList<>() : widgetNames;
+        String cssFile = null;
+        String mediaType = null;
+
+        char c = this.nextNonWhitespace();
+        while (c != '}')
+        {
+            if (c != '"' && c != '\'')
+            {
+                throw new MalformedModelException("Expected key", this.position - 1);
+            }
+            final String key = this.scanString(c);
+            if (this.nextNonWhitespace() != ':')
+            {
+                throw new MalformedModelException("Expected ':'", this.position - 1);
+            }
+
+            final boolean relevantModelKey = widgetRole == WidgetRole.MODEL || widgetRole == WidgetRole.WIDGET;
+            final boolean widgetConfig = widgetRole == WidgetRole.WIDGET && WIDGET_CONFIG.equals(key) && this.peekNonWhitespace() == '{';
+            final WidgetRole valueWidgetRole;
+            if (widgetConfig)
+            {
+                valueWidgetRole = WidgetRole.MODEL;
+            }
+            else if (relevantModelKey)
+            {
+                valueWidgetRole = this.widgetKeyPattern.matcher(key).matches() ? WidgetRole.WIDGETS : WidgetRole.MODEL;
+            }
+            else
+            {
+                valueWidgetRole = WidgetRole.NONE;
+            }
+
+            final CssRole valueCssRole;
+            if (cssRole == CssRole.MODEL)
+            {
+                valueCssRole = this.cssDependencyKeyPattern.matcher(key).matches() ? CssRole.REQUIREMENTS : CssRole.MODEL;
+            }
+            else
+            {
+                valueCssRole = CssRole.NONE;
+            }
+
+            final String value = this.scanValue(valueWidgetRole, valueCssRole, widgetConfig ? configWidgetNames : otherWidgetNames);
+            if (widgetRole == WidgetRole.WIDGET && WIDGET_NAME.equals(key))
+            {
+                widgetName = value;
+            }
+            else if (cssRole == CssRole.REQUIREMENT && CSS_FILE.equals(key))
+            {
+                cssFile = value;
+            }
+            else if (cssRole == CssRole.REQUIREMENT && MEDIA_TYPE.equals(key))
+            {
+                mediaType = value;
+            }
+
+            c = this.nextNonWhitespace();
+            if (c == ',')
+            {
+                c = this.nextNonWhitespace();
+            }
+            else if (c != '}')
+            {
+                throw new MalformedModelException("Expected ',' or '}'", this.position - 1);
+            }
+        }
+
+        if (widgetRole == WidgetRole.WIDGET)
+        {
+            // a widget without a name is treated as a regular model
+            if (widgetName != null)
+            {
+                widgetNames.add(widgetName);
+            }
+            else
+            {
+                widgetNames.addAll(otherWidgetNames);
+            }
+            widgetNames.addAll(configWidgetNames);
+        }
+
+        if (cssRole == CssRole.REQUIREMENT && cssFile != null && !cssFile.isEmpty())
+        {
+            this.cssRequirements.add(new CssRequirement(cssFile,
+                    mediaType == null || mediaType.trim().isEmpty() ? DEFAULT_MEDIA_TYPE : mediaType));
+        }
+    }
+
+    private void scanArray(final WidgetRole widgetRole, final CssRole cssRole, final List<String> widgetNames)
+            throws MalformedModelException
+    {
+        final WidgetRole elementWidgetRole;
+        switch (widgetRole)
+        {
+            case MODEL:
+                elementWidgetRole = WidgetRole.MODEL;
+                break;
+            case WIDGETS:
+                elementWidgetRole = WidgetRole.WIDGET;
+                break;
+            default:
+                elementWidgetRole = WidgetRole.NONE;
+        }
+
+        final CssRole elementCssRole;
+        switch (cssRole)
+        {
+            case MODEL:
+                elementCssRole = CssRole.MODEL;
+                break;
+            case REQUIREMENTS:
+                elementCssRole = CssRole.REQUIREMENT;
+                break;
+            default:
+                elementCssRole = CssRole.NONE;
+        }
+
+        char c = this.peekNonWhitespace();
+        if (c == ']')
+        {
+            this.nextNonWhitespace();
+        }
+        else
+        {
+            do
+            {
+                // single widgets / requirements are only recognised as objects, not nested arrays
+                final boolean objectElement = this.peekNonWhitespace() == '{';
+                this.scanValue(objectElement || elementWidgetRole == WidgetRole.MODEL ? elementWidgetRole : WidgetRole.NONE,
+                        objectElement || elementCssRole == CssRole.MODEL ? elementCssRole : CssRole.NONE, widgetNames);
+
+                c = this.nextNonWhitespace();
+                if (c != ',' && c != ']')
+                {
+                    throw new MalformedModelException("Expected ',' or ']'", this.position - 1);
+                }
+            }
+            while (c != ']');
+        }
+    }
+
+    private String scanString(final char quote) throws MalformedModelException
+    {
+        final int start = this.position;
+        final int length = this.contents.length();
+
+        // fast path for the common case of strings without escapes - only scan up to the closing quote / first escape or line break
+        int end = start;
+        char c = 0;
+        while (end < length && (c = this.contents.charAt(end)) != quote && c != '\\' && c != '\n' && c != '\r')
+        {
+            end++;
+        }
+        if (end >= length || c == '\n' || c == '\r')
+        {
+            throw new MalformedModelException("Unterminated string", start);
+        }
+
+        final String value;
+        if (c == quote)
+        {
+            value = this.contents.substring(start, end);
+            this.position = end + 1;
+        }
+        else
+        {
+            final StringBuilder valueBuilder = new StringBuilder(end - start + 16);
+            valueBuilder.append(this.contents, start, end);
+            this.position = end;
+
+            c = this.next();
+            while (c != quote)
+            {
+                if (c == '\\')
+                {
+                    c = this.next();
+                    switch (c)
+                    {
+                        case 'b':
+                            valueBuilder.append('\b');
+                            break;
+                        case 't':
+                            valueBuilder.append('\t');
+                            break;
+                        case 'n':
+                            valueBuilder.append('\n');
+                            break;
+                        case 'f':
+                            valueBuilder.append('\f');
+                            break;
+                        case 'r':
+                            valueBuilder.append('\r');
+                            break;
+                        case 'u':
+                            if (this.position + 4 > this.contents.length())
+                            {
+                                throw new MalformedModelException("Incomplete unicode escape", this.position);
+                            }
+                            try
+                            {
+                                valueBuilder.append((char) Integer.parseInt(this.contents.substring(this.position, this.position + 4), 16));
+                            }
+                            catch (final NumberFormatException nfe)
+                            {
+                                throw new MalformedModelException("Invalid unicode escape", this.position);
+                            }
+                            this.position += 4;
+                            break;
+                        default:
+                            valueBuilder.append(c);
+                    }
+                }
+                else if (c == '\n' || c == '\r')
+                {
+                    throw new MalformedModelException("Unterminated string", start);
+                }
+                else
+                {
+                    valueBuilder.append(c);
+                }
+                c = this.next();
+            }
+            value = valueBuilder.toString();
+        }
+        return value;
+    }
+
+    private void scanLiteral() throws MalformedModelException
+    {
+        // numbers, true / false / null (or unquoted strings in lenient models) are irrelevant and only need to be skipped
+        final int start = this.position - 1;
+        while (this.position < this.contents.length() && ",:]}[{\"' \t\r\n".indexOf(this.contents.charAt(this.position)) == -1)
+        {
+            this.position++;
+        }
+
+        if (",:]}[{\"'".indexOf(this.contents.charAt(start)) != -1)
+        {
+            throw new MalformedModelException("Unexpected character", start);
+        }
+    }
+
+    private char next() throws MalformedModelException
+    {
+        if (this.position >= this.contents.length())
+        {
+            throw new MalformedModelException("Unexpected end of model", this.position);
+        }
+        return this.contents.charAt(this.position++);
+    }
+
+    private char nextNonWhitespace() throws MalformedModelException
+    {
+        char c = this.next();
+        while (Character.isWhitespace(c))
+        {
+            c = this.next();
+        }
+        return c;
+    }
+
+    private char peekNonWhitespace() throws MalformedModelException
+    {
+        final char c = this.nextNonWhitespace();
+        this.position--;
+        return c;
+    }
+
+    /**
+     * Instances of this class represent the result of scanning a single declarative widget model.
+     *
+     * @author Axel Faust
+     */
+    public static final class ScanResult
+    {
+
+        private final List<String> widgetNames;
+
+        private final List<CssRequirement> cssRequirements;
+
+        private ScanResult(final List<String> widgetNames, final List<CssRequirement> cssRequirements)
+        {
+            this.widgetNames = Collections.unmodifiableList(widgetNames);
+            this.cssRequirements = Collections.unmodifiableList(cssRequirements);
+        }
+
+        /**
+         * @return the names of all widgets defined in the model
+         */
+        public List<String> getWidgetNames()
+        {
+            return this.widgetNames;
+        }
+
+        /**
+         * @return the CSS requirements defined in the model
+         */
+        public List<CssRequirement> getCssRequirements()
+        {
+            return this.cssRequirements;
+        }
+    }
+
+    /**
+     * Instances of this class represent a single CSS requirement defined in a declarative widget model.
+     *
+     * @author Axel Faust
+     */
+    public static final class CssRequirement
+    {
+
+        private final String cssFile;
+
+        private final String mediaType;
+
+        private CssRequirement(final String cssFile, final String mediaType)
+        {
+            this.cssFile = cssFile;
+            this.mediaType = mediaType;
+        }
+
+        /**
+         * @return the CSS file
+         */
+        public String getCssFile()
+        {
+            return this.cssFile;
+        }
+
+        /**
+         * @return the media type of the CSS file
+         */
+        public String getMediaType()
+        {
+            return this.mediaType;
+        }
+    }
+
+    /**
+     * Instances of this exception signal that a model is not valid JSON.
+     *
+     * @author Axel Faust
+     */
+    private static class MalformedModelException extends Exception
+    {
+
+        private static final long serialVersionUID = 1L;
+
+        private MalformedModelException(final String message, final int position)
+        {
+            super(message + " at position " + position);
+        }
+    }
+}
@@ -15,14 +15,12 @@
  */
 package de.acosix.alfresco.utility.share.surf;
 
-import java.util.Collections;
 import java.util.Map;
-import java.util.WeakHashMap;
 
+import org.springframework.beans.BeansException;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationContextAware;
 import org.springframework.extensions.surf.CssThemeHandler;
-import org.springframework.extensions.surf.RequestContext;
-import org.springframework.extensions.surf.support.ThreadLocalRequestContext;
-import org.springframework.extensions.surf.types.Theme;
 
 /**
  * This class provides an improved CSS theme handler implementation that does not allow CSS / LESS tokens to be reused across different
@@ -31,10 +29,20 @@ import org.springframework.extensions.surf.types.Theme;
  *
  * @author Axel Faust
  */
-public class StateSafeCssThemeHandler extends CssThemeHandler
+public class StateSafeCssThemeHandler extends CssThemeHandler implements ApplicationContextAware
 {
 
-    protected final Map<RequestContext, Map<String, String>> tokensMap = new WeakHashMap<>();
+    protected final ThemeTokenCache tokenCache = new ThemeTokenCache();
+
+    /**
+     *
+     * {@inheritDoc}
+     */
+    @Override
+    public void setApplicationContext(final ApplicationContext applicationContext) throws BeansException
+    {
+        this.tokenCache.setApplicationContext(applicationContext);
+    }
 
     /**
      *
@@ -53,24 +61,8 @@ public class StateSafeCssThemeHandler extends CssThemeHandler
     @Override
     public Map<String, String> getTokenMap()
     {
-        Map<String, String> cssTokens;
-
-        // tokensMap keyed by request context which may have different customizations applied to it than previous contexts
-        final RequestContext rc = ThreadLocalRequestContext.getRequestContext();
-        cssTokens = this.tokensMap.get(rc);
-        if (cssTokens == null)
-        {
-            Theme currentTheme = rc.getTheme();
-            if (currentTheme == null)
-            {
-                currentTheme = rc.getObjectService().getTheme("default");
-            }
-            // obtain theme tokens (previously handled by determineThemeTokens in base class)
-            cssTokens = currentTheme.getCssTokens();
-            this.tokensMap.put(rc, cssTokens);
-        }
-
-        // do not expose modifiable internal state
-        return Collections.unmodifiableMap(cssTokens);
+        // tokens keyed by theme and applied extension modules instead of globally (previously handled by determineThemeTokens in base
+        // class) as different customizations may be applied to different request contexts
+        return this.tokenCache.getTokens();
     }
 }
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2016 - 2026 Acosix GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.acosix.alfresco.utility.share.surf;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationContext;
+import org.springframework.extensions.surf.RequestContext;
+import org.springframework.extensions.surf.support.ThreadLocalRequestContext;
+import org.springframework.extensions.surf.types.ExtensionModule;
+import org.springframework.extensions.surf.types.Theme;
+import org.springframework.extensions.webscripts.LocalWebScriptRuntimeContainer;
+
+/**
+ * Instances of this class cache the CSS / LESS tokens of themes for use by the state-safe CSS theme handlers. Tokens are keyed by the ID of
+ * the theme and the IDs of the extension modules evaluated for the current request, so that tokens are computed only once per distinct
+ * combination instead of once per request context, without allowing tokens to spill over between requests with different customizations
+ * applied. Cached tokens are recomputed when the theme instance changes, e.g. after Surf caches have been reset.
+ *
+ * @author Axel Faust
+ */
+public class ThemeTokenCache
+{
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ThemeTokenCache.class);
+
+    private static final String WEB_SCRIPTS_CONTAINER_BEAN_NAME = "webscripts.container";
+
+    private static final String DEFAULT_THEME_ID = "default";
+
+    private final Map<String, CachedTokens> tokensByKey = new ConcurrentHashMap<>();
+
+    private volatile ApplicationContext applicationContext;
+
+    /**
+     * @param applicationContext
+     *     the application context from which to look up the web script container to determine the evaluated extension modules
+     */
+    public void setApplicationContext(final ApplicationContext applicationContext)
+    {
+        this.applicationContext = applicationContext;
+        this.tokensByKey.clear();
+    }
+
+    /**
+     * Retrieves the CSS / LESS tokens of the theme applicable to the current request.
+     *
+     * @return the tokens of the current theme
+     */
+    public Map<String, String> getTokens()
+    {
+        final RequestContext rc = ThreadLocalRequestContext.getRequestContext();
+        Theme currentTheme = rc.getTheme();
+        if (currentTheme == null)
+        {
+            currentTheme = rc.getObjectService().getTheme(DEFAULT_THEME_ID);
+        }
+
+        final String moduleKey = this.getEvaluatedModulesKey();
+        final Map<String, String> tokens;
+        if (moduleKey != null)
+        {
+            final Theme theme = currentTheme;
+            final String key = currentTheme.getId() + '|' + moduleKey;
+            // theme instance may be replaced when Surf caches are reset
+            final CachedTokens cachedTokens = this.tokensByKey.compute(key,
+                    (k, existing) -> existing != null && existing.theme == theme ? existing : new CachedTokens(theme));
+            tokens = cachedTokens.tokens;
+        }
+        else
+        {
+            // without knowledge of the applied modules, tokens cannot be safely shared with other requests
+            tokens = Collections.unmodifiableMap(new HashMap<>(currentTheme.getCssTokens()));
+        }
+        return tokens;
+    }
+
+    protected String getEvaluatedModulesKey()
+    {
+        String moduleKey = null;
+
+        final ApplicationContext applicationContext = this.applicationContext;
+        if (applicationContext != null && applicationContext.containsBean(WEB_SCRIPTS_CONTAINER_BEAN_NAME))
+        {
+            final Object container = applicationContext.getBean(WEB_SCRIPTS_CONTAINER_BEAN_NAME);
+            if (container instanceof LocalWebScriptRuntimeContainer)
+            {
+                final StringBuilder keyBuilder = new StringBuilder();
+                if (!((LocalWebScriptRuntimeContainer) container).isExtensibilitySuppressed())
+                {
+                    final List<ExtensionModule> evaluatedModules = ((LocalWebScriptRuntimeContainer) container).getEvaluatedModules();
+                    if (evaluatedModules != null)
+                    {
+                        // order of modules is relevant as later modules may override earlier ones
+                        evaluatedModules.forEach(module -> keyBuilder.append(module.getId()).append(','));
+                    }
+                }
+                moduleKey = keyBuilder.toString();
+            }
+            else
+            {
+                LOGGER.debug("Web script container {} does not support evaluation of extension modules", container);
+            }
+        }
+
+        return moduleKey;
+    }
+
+    /**
+     * Instances of this class hold the tokens computed for a specific theme instance.
+     *
+     * @author Axel Faust
+     */
+    protected static class CachedTokens
+    {
+
+        private final Theme theme;
+
+        private final Map<String, String> tokens;
+
+        protected CachedTokens(final Theme theme)
+        {
+            this.theme = theme;
+            // do not expose modifiable internal state
+            this.tokens = Collections.unmodifiableMap(new HashMap<>(theme.getCssTokens()));
+        }
+    }
+}
@@ -0,0 +1,302 @@
+/*
+ * Copyright 2016 - 2026 Acosix GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.acosix.alfresco.utility.share.surf;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.acosix.alfresco.utility.share.surf.JSONDependencyModelScanner.CssRequirement;
+import de.acosix.alfresco.utility.share.surf.JSONDependencyModelScanner.ScanResult;
+
+/**
+ * @author Axel Faust
+ */
+public class JSONDependencyModelScannerTest
+{
+
+    private static final Pattern WIDGET_KEY_PATTERN = Pattern.compile(JSONDependencyModelScanner.DEFAULT_WIDGET_KEY_REGEX);
+
+    private static final Pattern CSS_DEPENDENCY_KEY_PATTERN = Pattern.compile(JSONDependencyModelScanner.DEFAULT_CSS_DEPENDENCY_KEY_REGEX);
+
+    private static final String NESTED_MODEL = "{\"services\": [\"alfresco/services/NavigationService\", {\"name\": \"x\"}],"
+            + " \"widgets\": [{\"name\": \"alfresco/layout/HorizontalWidgets\", \"config\": {\"widgets\": [{\"name\":"
+            + " \"alfresco/buttons/AlfButton\", \"config\": {\"label\": \"a\", \"widgetsForDialog\": {\"name\":"
+            + " \"alfresco/forms/Form\"}}}, {\"name\": \"alfresco/html/Label\", \"widgets\": [{\"name\": \"ignored/OutsideConfig\"}]}],"
+            + " \"cssRequirements\": [{\"cssFile\": \"./css/Horizontal.css\"}, {\"cssFile\": \"./css/Print.css\", \"mediaType\":"
+            + " \"print\"}]}}, [{\"name\": \"nested/Array\"}]],"
+            + " \"other\": {\"deep\": [[{\"footerWidgets\": {\"name\": \"alfresco/footer/AlfStickyFooter\"}, \"count\": 3, \"flag\": true,"
+            + " \"nothing\": null, \"ratio\": -1.5e3}]]}}";
+
+    @Test
+    public void nestedObjectsAndArrays()
+    {
+        final ScanResult result = scan(NESTED_MODEL);
+        Assert.assertNotNull("Valid model was not scanned", result);
+
+        Assert.assertEquals("Widget names do not match",
+                Arrays.asList("alfresco/layout/HorizontalWidgets", "alfresco/buttons/AlfButton", "alfresco/forms/Form",
+                        "alfresco/html/Label", "alfresco/footer/AlfStickyFooter"),
+                result.getWidgetNames());
+        Assert.assertEquals("CSS requirements do not match", Arrays.asList("./css/Horizontal.css|screen", "./css/Print.css|print"),
+                toStrings(result.getCssRequirements()));
+    }
+
+    @Test
+    public void topLevelArray()
+    {
+        final ScanResult result = scan("[{\"widgets\": [{\"name\": \"a/A\"}]}, [{\"widgets\": {\"name\": \"b/B\"}}], 1, \"s\", null]");
+        Assert.assertNotNull("Valid model was not scanned", result);
+        Assert.assertEquals("Widget names do not match", Arrays.asList("a/A", "b/B"), result.getWidgetNames());
+    }
+
+    @Test
+    public void escapes()
+    {
+        final ScanResult result = scan("{\"widgets\": [{\"name\": \"alfresco\\/buttons\\/AlfButton\"}, {\"name\": \"quoted\\\"\\\\name\"},"
+                + " {\"name\": \"ctrl\\b\\t\\n\\f\\r\"}, {\"config\": {\"label\": \"\\\"}, {\\\"name\\\": \\\"fake/Widget\\\"\"}, \"name\":"
+                + " \"after/Escapes\"}], \"wid\\u0067ets\": {\"name\": \"escaped/Key\"},"
+                + " 'single': {'widgets': {'name': 'single\\'Quoted'}}}");
+        Assert.assertNotNull("Valid model was not scanned", result);
+        Assert.assertEquals("Widget names do not match",
+                Arrays.asList("alfresco/buttons/AlfButton", "quoted\"\\name", "ctrl\b\t\n\f\r", "after/Escapes", "escaped/Key",
+                        "single'Quoted"),
+                result.getWidgetNames());
+    }
+
+    @Test
+    public void unicodeEscapes()
+    {
+        final ScanResult result = scan("{\"widgets\": [{\"name\": \"alfresco/\\u0041lf\\u00e4\\u20AC\"},"
+                + " {\"name\": \"\\u0022quoted\\u0022\"}], \"cssRequirements\": {\"cssFile\": \"\\u002e/css/\\u00dcbersicht.css\"}}");
+        Assert.assertNotNull("Valid model was not scanned", result);
+        Assert.assertEquals("Widget names do not match", Arrays.asList("alfresco/Alf\u00e4\u20ac", "\"quoted\""), result.getWidgetNames());
+        Assert.assertEquals("CSS requirements do not match", Collections.singletonList("./css/\u00dcbersicht.css|screen"),
+                toStrings(result.getCssRequirements()));
+    }
+
+    @Test
+    public void malformedInput()
+    {
+        final List<String> malformedModels = Arrays.asList("", "widgets", "{\"widgets\": [{\"name\": \"a/A\"}]",
+                "{\"widgets\": \"unterminated}", "{\"widgets\": [{\"name\" \"a/A\"}]}",
+                "{\"widgets\": [{\"name\": \"a/A\"} {\"name\": \"b/B\"}]}", "{\"widgets\": [{\"name\": \"a/A\"]}",
+                "{\"name\": \"\\u00\"}", "{\"name\": \"\\uZZZZ\"}",
+                "{\"name\": \"line\nbreak\"}", "{\"key\": }", "[,]", "{\"widgets\": [{\"name\": \"a/A\\");
+        for (final String malformedModel : malformedModels)
+        {
+            Assert.assertNull("Malformed model was scanned: " + malformedModel, scan(malformedModel));
+        }
+    }
+
+    @Test
+    public void largeModelWithoutEscapes()
+    {
+        final StringBuilder modelBuilder = new StringBuilder(1024 * 1024);
+        final List<String> expectedWidgetNames = new ArrayList<>();
+        modelBuilder.append("{\"widgets\": [");
+        for (int idx = 0; idx < 10000; idx++)
+        {
+            if (idx != 0)
+            {
+                modelBuilder.append(", ");
+            }
+            final String name = "alfresco/generated/Widget" + idx;
+            modelBuilder.append("{\"id\": \"WIDGET_").append(idx).append("\", \"name\": \"").append(name)
+                    .append("\", \"config\": {\"label\": \"Label ").append(idx).append("\"}}");
+            expectedWidgetNames.add(name);
+        }
+        modelBuilder.append("], \"label\": \"escape\\tonly\\tat\\tthe\\tend\"}");
+
+        final ScanResult result = scan(modelBuilder.toString());
+        Assert.assertNotNull("Valid model was not scanned", result);
+        Assert.assertEquals("Widget names do not match", expectedWidgetNames, result.getWidgetNames());
+    }
+
+    @Test
+    public void orgJsonParity()
+    {
+        final List<String> models = Arrays.asList(NESTED_MODEL,
+                "[{\"widgets\": [{\"name\": \"a/A\", \"config\": {\"widgets\": {\"name\": \"b/B\"}}}]}, [[{\"mainWidgets\": [{\"name\":"
+                        + " \"c/C\"}, 42, [{\"name\": \"not/AWidget\"}]]}]]]",
+                "{\"widgetsLeft\": [{\"name\": \"a\\/A\", \"cssRequirements\": [{\"cssFile\": \"a.css\", \"mediaType\": \" \"}]}],"
+                        + " \"__widgets__\": {\"name\": \"b\\u002FB\"}, \"cssRequirements\": {\"cssFile\": \"b.css\","
+                        + " \"mediaType\": \"all\"}}",
+                "{\"widgets\": [{\"name\": \"a/A\", \"config\": \"not an object\"}, {\"name\": \"b/B\", \"config\": [{\"widgets\":"
+                        + " {\"name\": \"not/InConfig\"}}]}], \"list\": [], \"map\": {}}");
+
+        for (final String model : models)
+        {
+            final ScanResult result = scan(model);
+            Assert.assertNotNull("Valid model was not scanned: " + model, result);
+
+            final List<String> expectedWidgetNames = new ArrayList<>();
+            final List<String> expectedCssRequirements = new ArrayList<>();
+            final Object jsonModel = model.startsWith("{") ? new JSONObject(new JSONTokener(model))
+                    : new JSONArray(new JSONTokener(model));
+            collectFromJSON(jsonModel, expectedWidgetNames, expectedCssRequirements);
+
+            // org.json does not retain key order - order is irrelevant for dependency collection
+            final List<String> widgetNames = new ArrayList<>(result.getWidgetNames());
+            Collections.sort(expectedWidgetNames);
+            Collections.sort(widgetNames);
+            Assert.assertEquals("Widget names do not match org.json result for " + model, expectedWidgetNames, widgetNames);
+
+            final List<String> cssRequirements = toStrings(result.getCssRequirements());
+            Collections.sort(expectedCssRequirements);
+            Collections.sort(cssRequirements);
+            Assert.assertEquals("CSS requirements do not match org.json result for " + model, expectedCssRequirements, cssRequirements);
+        }
+    }
+
+    private static ScanResult scan(final String model)
+    {
+        return JSONDependencyModelScanner.getScanResult(model, WIDGET_KEY_PATTERN, CSS_DEPENDENCY_KEY_PATTERN);
+    }
+
+    private static List<String> toStrings(final List<CssRequirement> cssRequirements)
+    {
+        final List<String> result = new ArrayList<>(cssRequirements.size());
+        for (final CssRequirement cssRequirement : cssRequirements)
+        {
+            result.add(cssRequirement.getCssFile() + "|" + cssRequirement.getMediaType());
+        }
+        return result;
+    }
+
+    // reproduces the org.json DOM walk the dependency rules performed before the introduction of the scanner
+    private static void collectFromJSON(final Object jsonModel, final List<String> widgetNames, final List<String> cssRequirements)
+    {
+        collectWidgetNames(jsonModel, widgetNames);
+        collectCssRequirements(jsonModel, cssRequirements);
+    }
+
+    private static void collectWidgetNames(final Object jsonModel, final List<String> widgetNames)
+    {
+        if (jsonModel instanceof JSONObject)
+        {
+            final JSONObject jsonObject = (JSONObject) jsonModel;
+            final String[] names = JSONObject.getNames(jsonObject);
+            for (final String key : names != null ? names : new String[0])
+            {
+                final Object value = jsonObject.get(key);
+                if (WIDGET_KEY_PATTERN.matcher(key).matches())
+                {
+                    if (value instanceof JSONObject)
+                    {
+                        collectWidgetName((JSONObject) value, widgetNames);
+                    }
+                    else if (value instanceof JSONArray)
+                    {
+                        final JSONArray widgets = (JSONArray) value;
+                        for (int idx = 0; idx < widgets.length(); idx++)
+                        {
+                            final JSONObject widget = widgets.optJSONObject(idx);
+                            if (widget != null)
+                            {
+                                collectWidgetName(widget, widgetNames);
+                            }
+                        }
+                    }
+                }
+                else
+                {
+                    collectWidgetNames(value, widgetNames);
+                }
+            }
+        }
+        else if (jsonModel instanceof JSONArray)
+        {
+            final JSONArray jsonArray = (JSONArray) jsonModel;
+            for (int idx = 0; idx < jsonArray.length(); idx++)
+            {
+                collectWidgetNames(jsonArray.get(idx), widgetNames);
+            }
+        }
+    }
+
+    private static void collectWidgetName(final JSONObject widget, final List<String> widgetNames)
+    {
+        final JSONObject config = widget.optJSONObject("config");
+        if (config != null)
+        {
+            collectWidgetNames(config, widgetNames);
+        }
+        widgetNames.add(widget.optString("name"));
+    }
+
+    private static void collectCssRequirements(final Object jsonModel, final List<String> cssRequirements)
+    {
+        if (jsonModel instanceof JSONObject)
+        {
+            final JSONObject jsonObject = (JSONObject) jsonModel;
+            final String[] names = JSONObject.getNames(jsonObject);
+            for (final String key : names != null ? names : new String[0])
+            {
+                final Object value = jsonObject.get(key);
+                if (CSS_DEPENDENCY_KEY_PATTERN.matcher(key).matches())
+                {
+                    if (value instanceof JSONObject)
+                    {
+                        collectCssRequirement((JSONObject) value, cssRequirements);
+                    }
+                    else if (value instanceof JSONArray)
+                    {
+                        final JSONArray requirements = (JSONArray) value;
+                        for (int idx = 0; idx < requirements.length(); idx++)
+                        {
+                            final JSONObject requirement = requirements.optJSONObject(idx);
+                            if (requirement != null)
+                            {
+                                collectCssRequirement(requirement, cssRequirements);
+                            }
+                        }
+                    }
+                }
+                else
+                {
+                    collectCssRequirements(value, cssRequirements);
+                }
+            }
+        }
+        else if (jsonModel instanceof JSONArray)
+        {
+            final JSONArray jsonArray = (JSONArray) jsonModel;
+            for (int idx = 0; idx < jsonArray.length(); idx++)
+            {
+                collectCssRequirements(jsonArray.get(idx), cssRequirements);
+            }
+        }
+    }
+
+    private static void collectCssRequirement(final JSONObject requirement, final List<String> cssRequirements)
+    {
+        String mediaType = requirement.optString("mediaType");
+        if (mediaType == null || mediaType.trim().isEmpty())
+        {
+            mediaType = "screen";
+        }
+        cssRequirements.add(requirement.optString("cssFile") + "|" + mediaType);
+    }
+}